@@ -3,10 +3,12 @@ package image;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Paths;
 
 import image.control.ImageController;
 import image.control.ImageControllerImpl;
 import image.control.ImageControllerImplInteractive;
+import image.model.DecodeCache;
 import image.model.ImageModel;
 import image.model.ImageModelImpl;
 import image.view.ImageGraphics;
@@ -23,13 +25,22 @@ public class Main {
    * This method is a driver for this program. It loads a image from a filename and modifies the
    * image with the given arguments. Each try/catch block represents a different example of the
    * driver, meaning that each can be run separately (we do this in the test suite). Our goal was to
-   * create a independent model that could be passed to a controller in the future.
+   * create a independent model that could be passed to a controller in the future. Either mode can
+   * be followed by "-cache directory" to keep decoded images in the directory between runs; a
+   * script then ends by printing the counters of the cache.
    *
    * @param args the arguments passed to main via the command line.
    * @throws IOException if the operation cannot be completed.
    * @throws IllegalArgumentException if the command entered is invalid.
    */
   public static void main(String[] args) throws IOException, IllegalArgumentException {
+    DecodeCache cache = null;
+    for (int i = 1; i + 1 < args.length; i++) {
+      if (args[i].equals("-cache")) {
+        cache = new DecodeCache(Paths.get(args[i + 1]));
+        DecodeCache.setShared(cache);
+      }
+    }
     if (args[0].equals("-interactive")) {
       try {
         ImageModel model = new ImageModelImpl();
@@ -45,6 +56,9 @@ public class Main {
         ImageModel model = new ImageModelImpl();
         ImageController controller = new ImageControllerImpl(input, model);
         controller.begin();
+        if (cache != null) {
+          System.out.println(cache);
+        }
       } catch (IOException e) {
         throw new IOException(e.getMessage());
       }
@@ -1,22 +1,65 @@
 package image.control;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import image.model.ImageImpl;
+import image.model.DecodeCache;
+import image.model.Image;
 import image.model.ImageModel;
+import image.model.SaveOptions;
+import image.model.StreamingPipeline;
+import image.model.filter.DitherKernel;
+import image.model.filter.MosaicMethod;
+import image.model.filter.ThresholdMap;
 
-import static image.model.ImageUtil.readImage;
+import static image.model.ImageUtil.getHeight;
+import static image.model.ImageUtil.getWidth;
 import static image.model.ImageUtil.writeImage;
 
 /**
  * This class represents the ImageController, the controller for this program . It includes nested
  * classes for each method that an ImageModel can perform, and a begin function that starts the
- * parsing of an input.
+ * parsing of an input. An image that would take more memory than the memory budget of the
+ * controller is not loaded into the model; if every command up to the next load can be streamed
+ * (greyscale, sepia, blur, sharpen, error diffusion dither and saves to PNG or Netpbm files), the
+ * image is instead processed one band of rows at a time from its file to the saved files, and the
+ * model is left as it was. Files are read and written next to the commands: while an image is being
+ * edited, the image of the next load is decoded on a read-ahead thread, and saves hand the current
+ * image to a write-behind thread and go on. Loading a file waits for the saves to it that are still
+ * being written, and begin waits for every save before it returns. Images are loaded through the
+ * shared decode cache, so a file that is loaded again is not decoded again.
  */
 public class ImageControllerImpl implements ImageController {
 
+  /**
+   * The number of bytes that a loaded image takes per pixel.
+   */
+  private static final long BYTES_PER_PIXEL = 4;
+
+  /**
+   * The number of bytes per pixel of a band that the operations of a streamed image may need at
+   * once, counting the copies that the filters make of a band as arrays of channels.
+   */
+  private static final long BAND_BYTES_PER_PIXEL = 128;
+
+  /**
+   * The largest number of saves that may wait to be written at once. A save that would go over it
+   * waits for the oldest one to finish, so that the images held by the write-behind queue stay
+   * bounded.
+   */
+  private static final int MAX_PENDING_WRITES = 2;
+
   /**
    * This variable is a Readable object that cannot be edited.
    */
@@ -42,6 +85,42 @@ public class ImageControllerImpl implements ImageController {
    */
   private HashMap<String, Runnable> executables;
 
+  /**
+   * The number of bytes above which a loaded image is streamed instead of held in memory.
+   */
+  private final long memoryBudget;
+
+  /**
+   * The lines that were read ahead of the command being run and have not been run yet.
+   */
+  private final Deque<String> lines = new ArrayDeque<>();
+
+  /**
+   * The thread that decodes the image of the next load ahead of time.
+   */
+  private final ExecutorService reader;
+
+  /**
+   * The thread that writes saved images in the order they were saved.
+   */
+  private final ExecutorService writer;
+
+  /**
+   * The saves that are waiting to be written or being written, oldest first.
+   */
+  private final Deque<PendingWrite> writes = new ArrayDeque<>();
+
+  /**
+   * The image of the next load being decoded ahead of time, or null if there is none. It gives null
+   * if the image is too large to be read ahead.
+   */
+  private Future<Image> readAhead;
+
+  /**
+   * The file name of the image being read ahead, or null if there is none.
+   */
+  private String readAheadFile;
+
   /**
    * This constructs an ImageController object. ImageControllerImpl takes in a Readable input. The
    * ImageController also takes in an ImageModel. The ImageModel holds all the methods that can be
@@ -55,8 +134,24 @@ public class ImageControllerImpl implements ImageController {
    * @param model an ImageModelImpl object
    */
   public ImageControllerImpl(Readable input, ImageModel model) {
+    this(input, model, Runtime.getRuntime().maxMemory() / 2);
+  }
+
+  /**
+   * This constructs an ImageController object with the given memory budget. A loaded image that
+   * would take more than the budget, at four bytes per pixel, is streamed when the commands that
+   * follow it allow.
+   *
+   * @param input        a Readable object
+   * @param model        an ImageModelImpl object
+   * @param memoryBudget the number of bytes above which a loaded image is streamed
+   */
+  public ImageControllerImpl(Readable input, ImageModel model, long memoryBudget) {
+    this.memoryBudget = memoryBudget;
     this.input = input;
     this.model = model;
+    this.reader = daemonThread("read-ahead");
+    this.writer = daemonThread("write-behind");
     this.commands = new String[100];
     this.executables = new HashMap<>();
     executables.put("load", new Load());
@@ -67,16 +162,35 @@ public class ImageControllerImpl implements ImageController {
     executables.put("greyscale", new Greyscale());
     executables.put("sepia", new Sepia());
     executables.put("mosaic", new Mosaic());
+    executables.put("quadmosaic", new QuadMosaic());
+    executables.put("quantize", new Quantize());
+    executables.put("superpixel", new Superpixel());
     executables.put("checkerboard", new Checkerboard());
     executables.put("draw", new Draw());
     executables.put("undo", new Undo());
     executables.put("redo", new Redo());
   }
 
+  /**
+   * This helper method creates an executor with one daemon thread, so that a thread left waiting
+   * for work does not keep the program running.
+   *
+   * @param name the name of the thread.
+   * @return the executor.
+   */
+  private static ExecutorService daemonThread(String name) {
+    return Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   /**
    * This method runs the program by taking in user input and parsing it. After parsing the method
    * calls a helper that uses the parsed information to run the methods from the image model or the
-   * view.
+   * view. It returns once every saved image has been written, and throws the first error of a save
+   * that failed while being written.
    *
    * @throws IOException if the given file cannot be read or the information in the file is
    *                     invalid.
@@ -84,31 +198,375 @@ public class ImageControllerImpl implements ImageController {
   @Override
   public void begin() throws IOException {
     Scanner scan = new Scanner(input);
-    while (scan.hasNextLine()) {
-      counter = 0;
-      this.commands = new String[100];
-      Scanner scannedLine = new Scanner(scan.nextLine());
-      while (scannedLine.hasNext()) {
-        if (counter == 0) {
-          this.commands[counter] = scannedLine.next();
-          counter++;
-        } else if (this.commands[0].equals("save") || this.commands[0].equals(
-                "load")) {
-          this.commands[1] = scannedLine.nextLine().trim();
-          counter++;
+    try {
+      String line;
+      while ((line = nextLine(scan)) != null) {
+        parse(line);
+        boolean load = this.commands[0] != null && this.commands[0].equals("load")
+                && counter >= 2;
+        if (load) {
+          finishWritesTo(this.commands[1]);
+        }
+        if (!load || !stream(scan)) {
+          if (executables.containsKey(this.commands[0])) {
+            this.executables.get(this.commands[0]).run();
+          } else {
+            throw new IOException("Error: cannot run program");
+          }
+        }
+        if (load) {
+          readAhead(scan);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      try {
+        finishWrites();
+      } catch (RuntimeException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    finishWrites();
+  }
+
+  /**
+   * This helper method starts decoding the image of the next load, unless a save before it writes
+   * to the same file or the image is too large to be held next to the current one. The lines up to
+   * the next load are read ahead.
+   *
+   * @param scan the scanner of the input.
+   */
+  private void readAhead(Scanner scan) {
+    readAhead = null;
+    readAheadFile = null;
+    List<String> saved = new ArrayList<>();
+    String filename = null;
+    for (String line : lines) {
+      filename = loadedFile(line, saved);
+      if (filename != null) {
+        break;
+      }
+    }
+    while (filename == null && scan.hasNextLine()) {
+      String line = scan.nextLine();
+      lines.add(line);
+      filename = loadedFile(line, saved);
+    }
+    if (filename == null || filename.isEmpty()) {
+      return;
+    }
+    for (PendingWrite write : writes) {
+      saved.add(write.filename);
+    }
+    for (String save : saved) {
+      if (sameFile(save, filename)) {
+        return;
+      }
+    }
+    String file = filename;
+    readAheadFile = file;
+    readAhead = reader.submit(() -> {
+      if ((long) getWidth(file) * getHeight(file) * BYTES_PER_PIXEL > memoryBudget / 2) {
+        return null;
+      }
+      return DecodeCache.getShared().read(file);
+    });
+  }
+
+  /**
+   * This helper method gets the file of a load line, or adds the file of a save line to the given
+   * list.
+   *
+   * @param line  the line to look at.
+   * @param saved the files that are saved to before the next load.
+   * @return the file name of a load line, or null for any other line.
+   */
+  private static String loadedFile(String line, List<String> saved) {
+    Scanner words = new Scanner(line);
+    if (!words.hasNext()) {
+      return null;
+    }
+    String command = words.next();
+    String rest = words.hasNextLine() ? words.nextLine().trim() : "";
+    if (command.equals("load")) {
+      return rest;
+    }
+    if (command.equals("save")) {
+      saved.add(SaveOptions.filename(rest));
+    }
+    return null;
+  }
+
+  /**
+   * This helper method checks whether two file names name the same file.
+   *
+   * @param first  the first file name.
+   * @param second the second file name.
+   * @return true if both names resolve to the same path.
+   */
+  private static boolean sameFile(String first, String second) {
+    Path firstPath = new File(first).getAbsoluteFile().toPath().normalize();
+    return firstPath.equals(new File(second).getAbsoluteFile().toPath().normalize());
+  }
+
+  /**
+   * This helper method waits for the saves to the given file that are still being written, along
+   * with every save before them.
+   *
+   * @param filename the file that is about to be read.
+   */
+  private void finishWritesTo(String filename) {
+    int last = 0;
+    int index = 0;
+    for (PendingWrite write : writes) {
+      index++;
+      if (sameFile(write.filename, filename)) {
+        last = index;
+      }
+    }
+    for (int i = 0; i < last; i++) {
+      finish(writes.poll().future);
+    }
+  }
+
+  /**
+   * This helper method waits for every save that is still being written. A save that fails with an
+   * IOException is reported the same way as a save that is written right away; the first other
+   * error is thrown once every save has finished.
+   *
+   * @throws RuntimeException if a save failed with an unchecked exception.
+   */
+  private void finishWrites() {
+    RuntimeException failure = null;
+    while (!writes.isEmpty()) {
+      try {
+        finish(writes.poll().future);
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
         } else {
-          this.commands[counter] = scannedLine.next();
-          counter++;
+          failure.addSuppressed(e);
         }
       }
-      if (executables.containsKey(this.commands[0])) {
-        this.executables.get(this.commands[0]).run();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * This helper method waits for a save to be written. An IOException of the save is printed, as
+   * when an image is written right away, and any other error is thrown.
+   *
+   * @param future the save to wait for.
+   */
+  private static void finish(Future<?> future) {
+    try {
+      get(future);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * This helper method gets the result of a read or write on another thread, throwing its error on
+   * this thread.
+   *
+   * @param future the read or write to wait for.
+   * @param <T>    the type of the result.
+   * @return the result.
+   * @throws IOException if the read or write failed with an IOException.
+   */
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Error: interrupted while waiting for a file", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Error: could not complete file operation", cause);
+    }
+  }
+
+  /**
+   * This helper method gets the next line of the input, taking the lines that were read ahead
+   * first.
+   *
+   * @param scan the scanner of the input.
+   * @return the next line, or null at the end of the input.
+   */
+  private String nextLine(Scanner scan) {
+    if (!lines.isEmpty()) {
+      return lines.poll();
+    }
+    return scan.hasNextLine() ? scan.nextLine() : null;
+  }
+
+  /**
+   * This helper method splits a line into the current commands. The rest of a save or load line
+   * after the command is kept as one command.
+   *
+   * @param line the line to split.
+   */
+  private void parse(String line) {
+    counter = 0;
+    this.commands = new String[100];
+    Scanner scannedLine = new Scanner(line);
+    while (scannedLine.hasNext()) {
+      if (counter == 0) {
+        this.commands[counter] = scannedLine.next();
+        counter++;
+      } else if (this.commands[0].equals("save") || this.commands[0].equals(
+              "load")) {
+        this.commands[1] = scannedLine.nextLine().trim();
+        counter++;
       } else {
-        throw new IOException("Error: cannot run program");
+        this.commands[counter] = scannedLine.next();
+        counter++;
       }
     }
   }
 
+  /**
+   * This helper method streams the image of the current load command if it is larger than the
+   * memory budget and every command up to the next load can be streamed, with at least one save. A
+   * save to the loaded file is not streamed either, since it would overwrite the rows that are
+   * still to be read. Otherwise the lines that were read ahead are put back and the current
+   * commands are restored. An image that is too large to be held is not read ahead, so a read ahead
+   * of it is cancelled.
+   *
+   * @param scan the scanner of the input.
+   * @return true if the image was streamed and its commands were run.
+   */
+  private boolean stream(Scanner scan) {
+    String[] load = this.commands;
+    int loadCounter = counter;
+    String filename = load[1];
+    long width;
+    long height;
+    try {
+      width = getWidth(filename);
+      height = getHeight(filename);
+    } catch (IOException e) {
+      return false;
+    }
+    if (width * height * BYTES_PER_PIXEL <= memoryBudget) {
+      return false;
+    }
+    if (readAhead != null && filename.equals(readAheadFile)) {
+      readAhead.cancel(true);
+      readAhead = null;
+      readAheadFile = null;
+    }
+    List<String> segment = new ArrayList<>();
+    String line;
+    while ((line = nextLine(scan)) != null) {
+      Scanner words = new Scanner(line);
+      if (words.hasNext() && words.next().equals("load")) {
+        lines.addFirst(line);
+        break;
+      }
+      segment.add(line);
+    }
+    int bandHeight = (int) Math.max(1, Math.min(height,
+            memoryBudget / (BAND_BYTES_PER_PIXEL * width)));
+    StreamingPipeline pipeline = new StreamingPipeline(filename, bandHeight);
+    boolean saved = false;
+    boolean streamable = true;
+    for (String command : segment) {
+      parse(command);
+      boolean inPlace = this.commands[0] != null && this.commands[0].equals("save")
+              && counter >= 2 && sameFile(SaveOptions.filename(this.commands[1]), filename);
+      if (inPlace || !addStage(pipeline)) {
+        streamable = false;
+        break;
+      }
+      saved |= this.commands[0].equals("save");
+    }
+    if (!streamable || !saved) {
+      for (int i = segment.size() - 1; i >= 0; i--) {
+        lines.addFirst(segment.get(i));
+      }
+      this.commands = load;
+      counter = loadCounter;
+      return false;
+    }
+    finishWrites();
+    try {
+      for (IOException e : pipeline.run()) {
+        e.printStackTrace();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return true;
+  }
+
+  /**
+   * This helper method adds the current command to a streaming pipeline, if it can be streamed.
+   * Commands that would fail, such as an unknown dither kernel, are not streamed so that they fail
+   * the same way as when the image is loaded.
+   *
+   * @param pipeline the pipeline to add to.
+   * @return true if the command was added.
+   */
+  private boolean addStage(StreamingPipeline pipeline) {
+    if (this.commands[0] == null) {
+      return false;
+    }
+    try {
+      switch (this.commands[0]) {
+        case "greyscale":
+          pipeline.toGreyscale();
+          return true;
+        case "sepia":
+          pipeline.toSepia();
+          return true;
+        case "blur":
+          pipeline.blur(isLinear());
+          return true;
+        case "sharpen":
+          pipeline.sharpen(isLinear());
+          return true;
+        case "dither":
+          DitherKernel kernel = DitherKernel.FLOYD_STEINBERG;
+          boolean serpentine = false;
+          for (int i = 1; i < counter; i++) {
+            if (commands[i].equals("serpentine")) {
+              serpentine = true;
+            } else if (!commands[i].equals("parallel")) {
+              kernel = DitherKernel.fromName(commands[i]);
+            }
+          }
+          pipeline.dither(kernel, serpentine);
+          return true;
+        case "save":
+          if (counter < 2) {
+            return false;
+          }
+          SaveOptions options = SaveOptions.parse(commands[1]);
+          String filename = SaveOptions.filename(commands[1]);
+          if (!StreamingPipeline.canSave(filename, options)) {
+            return false;
+          }
+          pipeline.save(filename, options);
+          return true;
+        default:
+          return false;
+      }
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
   /**
    * This method is used by any implementation that uses a Java Swing graphical user interface
    * (GUI). It takes a string as a parameter, which is the command that has been passed from the
@@ -124,7 +582,8 @@ public class ImageControllerImpl implements ImageController {
 
   /**
    * This class implements the Runnable interface. It has one method, run, that calls the loadImage
-   * method on the model.
+   * method on the model. The image that was read ahead is used if it is the image of this load;
+   * otherwise the image comes from the shared decode cache.
    */
   private class Load implements Runnable {
     public void run() {
@@ -132,8 +591,14 @@ public class ImageControllerImpl implements ImageController {
         throw new IllegalArgumentException("Error: cannot load image");
       }
       try {
-        int[][][] image = readImage(commands[1]);
-        model.loadImage(new ImageImpl(image));
+        Image image = null;
+        if (readAhead != null && commands[1].equals(readAheadFile)) {
+          image = get(readAhead);
+        }
+        if (image == null) {
+          image = DecodeCache.getShared().read(commands[1]);
+        }
+        model.loadImage(image);
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -142,49 +607,122 @@ public class ImageControllerImpl implements ImageController {
 
   /**
    * This class implements the Runnable interface. It has one method, run, that writes the image
-   * held in the image model.
+   * held in the image model. The file name can be followed by encoder options (for example "save
+   * out.jpg quality=85", "save out.png compression=9" or "save out.jpg progressive"). The image is
+   * handed to the write-behind thread, which can hold it because the model replaces its image
+   * instead of changing it.
    */
   private class Save implements Runnable {
     public void run() {
       if (counter < 2) {
         throw new IllegalArgumentException("Error: cannot load image");
       }
-      try {
-        writeImage(model.getImage(), model.getImageWidth(), model.getImageHeight(), commands[1]);
-      } catch (IOException e) {
-        e.printStackTrace();
+      Image image = model.getCurrentImage();
+      String filename = SaveOptions.filename(commands[1]);
+      SaveOptions options = SaveOptions.parse(commands[1]);
+      while (writes.size() >= MAX_PENDING_WRITES) {
+        finish(writes.poll().future);
       }
+      writes.add(new PendingWrite(filename, writer.submit(() -> {
+        writeImage(image, filename, options);
+        return null;
+      })));
+    }
+  }
+
+  /**
+   * This class represents a save that is waiting to be written or being written.
+   */
+  private static class PendingWrite {
+
+    /**
+     * The file that the image is saved to.
+     */
+    private final String filename;
+
+    /**
+     * The write of the image.
+     */
+    private final Future<?> future;
+
+    /**
+     * This constructs a pending write of the given file.
+     *
+     * @param filename the file that the image is saved to.
+     * @param future   the write of the image.
+     */
+    private PendingWrite(String filename, Future<?> future) {
+      this.filename = filename;
+      this.future = future;
     }
   }
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the dither
-   * method on the model.
+   * method on the model. The command can name an error diffusion kernel (for example "dither
+   * atkinson"), "serpentine" to scan every other row from right to left and "parallel" to use
+   * several threads, or ask for an ordered dither with a threshold map (for example "dither ordered
+   * bayer4").
    */
   private class Dither implements Runnable {
     public void run() {
-      model.dither();
+      if (counter > 1 && commands[1].equals("ordered")) {
+        if (counter != 3) {
+          throw new IllegalArgumentException("Error: ordered dither needs a threshold map");
+        }
+        model.ditherOrdered(ThresholdMap.fromName(commands[2]));
+        return;
+      }
+      DitherKernel kernel = DitherKernel.FLOYD_STEINBERG;
+      boolean serpentine = false;
+      boolean parallel = false;
+      for (int i = 1; i < counter; i++) {
+        if (commands[i].equals("serpentine")) {
+          serpentine = true;
+        } else if (commands[i].equals("parallel")) {
+          parallel = true;
+        } else {
+          kernel = DitherKernel.fromName(commands[i]);
+        }
+      }
+      model.dither(kernel, serpentine, parallel);
     }
   }
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the blur
-   * method on the model.
+   * method on the model. The blur is applied in linear light if the command is "blur linear".
    */
   private class Blur implements Runnable {
     public void run() {
-      model.blur();
+      model.blur(isLinear());
     }
   }
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the sharpen
-   * method on the model.
+   * method on the model. The sharpen is applied in linear light if the command is "sharpen linear".
    */
   private class Sharpen implements Runnable {
     public void run() {
-      model.sharpen();
+      model.sharpen(isLinear());
+    }
+  }
+
+  /**
+   * This helper method checks whether the current command asks for a filter in linear light.
+   *
+   * @return true if the second word of the command is "linear".
+   * @throws IllegalArgumentException if the second word of the command is not "linear".
+   */
+  private boolean isLinear() throws IllegalArgumentException {
+    if (counter < 2) {
+      return false;
+    }
+    if (!commands[1].equals("linear")) {
+      throw new IllegalArgumentException("Error: unknown filter mode " + commands[1]);
     }
+    return true;
   }
 
   /**
@@ -209,11 +747,68 @@ public class ImageControllerImpl implements ImageController {
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the mosaic
-   * method on the model.
+   * method on the model. The command can go on with the way nearest seeds are found and with a
+   * number that the seeds are picked from, which gives the same mosaic every time (for example
+   * "mosaic 1000 exact 42").
    */
   private class Mosaic implements Runnable {
     public void run() {
-      model.mosaic(Integer.parseInt(commands[1]));
+      if (counter < 2 || counter > 4) {
+        throw new IllegalArgumentException("Error: mosaic needs a number of seeds");
+      }
+      int seeds = Integer.parseInt(commands[1]);
+      MosaicMethod method = counter > 2 ? MosaicMethod.fromName(commands[2]) : MosaicMethod.GRID;
+      if (counter == 4) {
+        model.mosaic(seeds, method, Long.parseLong(commands[3]));
+      } else {
+        model.mosaic(seeds, method);
+      }
+    }
+  }
+
+  /**
+   * This class implements the Runnable interface. It has one method, run, that executes the
+   * quadMosaic method on the model. The command gives the variance at which a block is split and
+   * the smallest size of a block (for example "quadmosaic 100 4").
+   */
+  private class QuadMosaic implements Runnable {
+    public void run() {
+      if (counter != 3) {
+        throw new IllegalArgumentException("Error: quadmosaic needs a threshold and a smallest "
+                + "size");
+      }
+      model.quadMosaic(Integer.parseInt(commands[1]), Integer.parseInt(commands[2]));
+    }
+  }
+
+  /**
+   * This class implements the Runnable interface. It has one method, run, that executes the
+   * quantize method on the model. The command gives the number of palette colors and can end with
+   * "dither" to spread the error of each pixel over its neighbors (for example "quantize 16
+   * dither").
+   */
+  private class Quantize implements Runnable {
+    public void run() {
+      if (counter < 2 || counter > 3 || (counter == 3 && !commands[2].equals("dither"))) {
+        throw new IllegalArgumentException("Error: quantize needs a number of colors");
+      }
+      model.quantize(Integer.parseInt(commands[1]), counter == 3);
+    }
+  }
+
+  /**
+   * This class implements the Runnable interface. It has one method, run, that executes the
+   * superpixel method on the model. The command gives the number of superpixels, the compactness
+   * and the largest number of iterations (for example "superpixel 400 10 10").
+   */
+  private class Superpixel implements Runnable {
+    public void run() {
+      if (counter != 4) {
+        throw new IllegalArgumentException("Error: superpixel needs a number of superpixels, a "
+                + "compactness and a number of iterations");
+      }
+      model.superpixel(Integer.parseInt(commands[1]), Integer.parseInt(commands[2]),
+              Integer.parseInt(commands[3]));
     }
   }
 
@@ -3,21 +3,47 @@ package image.control;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import image.model.ImageImpl;
+import image.model.DecodeCache;
+import image.model.Image;
 import image.model.ImageModel;
+import image.model.ImageModelImpl;
+import image.model.SaveOptions;
+import image.model.filter.DitherKernel;
+import image.model.filter.MosaicMethod;
+import image.model.filter.ThresholdMap;
 import image.view.ImageView;
 
-import static image.model.ImageUtil.readImage;
+import static image.model.ImageUtil.getHeight;
+import static image.model.ImageUtil.getWidth;
+import static image.model.ImageUtil.readPreview;
 import static image.model.ImageUtil.writeImage;
 
 /**
  * This class represents the ImageController, the controller for this program . It includes nested
  * classes for each method that an ImageModel can perform, and a begin function that starts the
- * parsing of an input.
+ * parsing of an input. A large image is first shown as a preview that is decoded directly at a
+ * reduced size, while the full image is decoded on a background thread. Until the full image and
+ * every command after it are done, commands are run on the preview so that their results show at
+ * once, and they are run again on the full image in the background; the view then switches to the
+ * full image. Saving waits for the full image. Images are loaded through the shared decode cache,
+ * and an image that the cache already holds is shown at once without a preview.
  */
 public class ImageControllerImplInteractive implements ImageController {
 
+  /**
+   * The number of pixels above which a loaded image is previewed first.
+   */
+  private static final long PREVIEW_PIXELS = 16_000_000L;
+
+  /**
+   * The largest width and height of a preview, in pixels.
+   */
+  private static final int PREVIEW_SIZE = 2048;
+
   /**
    * This variable represents the view of this program.
    */
@@ -43,6 +69,36 @@ public class ImageControllerImplInteractive implements ImageController {
    */
   private HashMap<String, Runnable> executables;
 
+  /**
+   * The model that holds the full image, which is the model that commands run on unless a preview
+   * is being shown.
+   */
+  private final ImageModel fullModel;
+
+  /**
+   * Whether large images are previewed. The controller that runs commands again on the full image
+   * does not preview.
+   */
+  private final boolean previews;
+
+  /**
+   * The thread that decodes full images and runs commands on them again, or null if this
+   * controller does not preview.
+   */
+  private final ExecutorService background;
+
+  /**
+   * The controller that runs commands again on the full model, or null if this controller does not
+   * preview.
+   */
+  private final ImageControllerImplInteractive replay;
+
+  /**
+   * The number of commands that wait to be run on the full model. It is only used while holding
+   * the lock of this controller.
+   */
+  private int queued;
+
   /**
    * This constructs an ImageController object. ImageControllerImplInteractive takes in a Readable
    * input. The ImageController also takes in an ImageModel. The ImageModel holds all the methods
@@ -57,8 +113,32 @@ public class ImageControllerImplInteractive implements ImageController {
    * @param model an ImageModelImpl object
    */
   public ImageControllerImplInteractive(ImageView view, ImageModel model) {
+    this(view, model, true);
+  }
+
+  /**
+   * This constructs an ImageController object that previews large images or not.
+   *
+   * @param view     a view for this program.
+   * @param model    an ImageModelImpl object
+   * @param previews whether large images are previewed while they are decoded in the background
+   */
+  private ImageControllerImplInteractive(ImageView view, ImageModel model, boolean previews) {
     this.view = view;
     this.model = model;
+    this.fullModel = model;
+    this.previews = previews;
+    if (previews) {
+      this.background = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "full-resolution");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.replay = new ImageControllerImplInteractive(view, model, false);
+    } else {
+      this.background = null;
+      this.replay = null;
+    }
     this.commands = new String[100];
     this.executables = new HashMap<>();
 
@@ -70,6 +150,9 @@ public class ImageControllerImplInteractive implements ImageController {
     executables.put("greyscale", new Greyscale());
     executables.put("sepia", new Sepia());
     executables.put("mosaic", new Mosaic());
+    executables.put("quadmosaic", new QuadMosaic());
+    executables.put("quantize", new Quantize());
+    executables.put("superpixel", new Superpixel());
     executables.put("checkerboard", new Checkerboard());
     executables.put("draw", new Draw());
     executables.put("undo", new Undo());
@@ -89,7 +172,9 @@ public class ImageControllerImplInteractive implements ImageController {
 
   /**
    * This method processes the commands from the user. It parses on a space an separates them into
-   * individual slots in an array. THis array can then be accessed to run the commands.
+   * individual slots in an array. THis array can then be accessed to run the commands. A large
+   * image is loaded as a preview and decoded in full in the background, and while a preview is
+   * shown every command also runs again on the full model.
    *
    * @param input the input from the user, a string.
    * @throws IOException if the input cannot be read.
@@ -99,7 +184,8 @@ public class ImageControllerImplInteractive implements ImageController {
     while (scan.hasNextLine()) {
       counter = 0;
       this.commands = new String[100];
-      Scanner scannedLine = new Scanner(scan.nextLine());
+      String line = scan.nextLine();
+      Scanner scannedLine = new Scanner(line);
       while (scannedLine.hasNext()) {
         if (counter == 0) {
           this.commands[counter] = scannedLine.next();
@@ -113,11 +199,88 @@ public class ImageControllerImplInteractive implements ImageController {
           counter++;
         }
       }
-      if (executables.containsKey(this.commands[0])) {
-        this.executables.get(this.commands[0]).run();
-      } else {
+      if (!executables.containsKey(this.commands[0])) {
         throw new IOException("Error: cannot run program");
       }
+      if (previews && this.commands[0].equals("save")) {
+        awaitFullModel();
+      }
+      synchronized (this) {
+        if (previews && this.commands[0].equals("load") && counter == 2
+                && isLarge(commands[1]) && !DecodeCache.getShared().contains(commands[1])) {
+          if (model == fullModel) {
+            model = new ImageModelImpl();
+          }
+          model.loadImage(readPreview(commands[1], PREVIEW_SIZE));
+          runOnFullModel(line);
+        } else {
+          this.executables.get(this.commands[0]).run();
+          if (model != fullModel) {
+            runOnFullModel(line);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * This helper method checks whether an image file is large enough to be previewed.
+   *
+   * @param filename the path of the file.
+   * @return true if the image has more pixels than a preview is used for.
+   */
+  private boolean isLarge(String filename) {
+    try {
+      return (long) getWidth(filename) * getHeight(filename) > PREVIEW_PIXELS;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * This helper method runs a command again on the full model in the background. Once no more
+   * commands wait, the preview is dropped and the view shows the full image. The view converts the
+   * image outside of the lock, so that commands typed meanwhile do not wait for it.
+   *
+   * @param line the command to run.
+   */
+  private synchronized void runOnFullModel(String line) {
+    queued++;
+    background.submit(() -> {
+      try {
+        replay.processCommand(line);
+      } catch (Exception exception) {
+        view.showErrorMessage(exception.getMessage());
+      } finally {
+        Image full = null;
+        synchronized (this) {
+          queued--;
+          if (queued == 0) {
+            model = fullModel;
+            full = model.getCurrentImage();
+          }
+        }
+        if (full != null) {
+          view.setImage(full);
+        }
+      }
+    });
+  }
+
+  /**
+   * This helper method waits until every command has been run on the full model, so that the full
+   * image is the current image again.
+   *
+   * @throws IOException if the wait is interrupted.
+   */
+  private void awaitFullModel() throws IOException {
+    try {
+      background.submit(() -> { }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Error: interrupted while finishing the full image");
+    } catch (ExecutionException e) {
+      throw new IOException("Error: could not finish the full image");
     }
   }
 
@@ -136,13 +299,17 @@ public class ImageControllerImplInteractive implements ImageController {
     } catch (Exception exception) {
       view.showErrorMessage(exception.getMessage());
     }
-    view.setImage(model.getImage());
+    Image current;
+    synchronized (this) {
+      current = model.getCurrentImage();
+    }
+    view.setImage(current);
     view.refresh();
   }
 
   /**
    * This class implements the Runnable interface. It has one method, run, that calls the loadImage
-   * method on the model.
+   * method on the model with the image of the file from the shared decode cache.
    */
   private class Load implements Runnable {
     public void run() {
@@ -150,8 +317,7 @@ public class ImageControllerImplInteractive implements ImageController {
         throw new IllegalArgumentException("Error: cannot load image");
       }
       try {
-        int[][][] image = readImage(commands[1]);
-        model.loadImage(new ImageImpl(image));
+        model.loadImage(DecodeCache.getShared().read(commands[1]));
       } catch (IOException e) {
         e.getMessage();
       }
@@ -160,7 +326,8 @@ public class ImageControllerImplInteractive implements ImageController {
 
   /**
    * This class implements the Runnable interface. It has one method, run, that writes the image
-   * held in the image model.
+   * held in the image model. The file name can be followed by encoder options (for example "save
+   * out.jpg quality=85", "save out.png compression=9" or "save out.jpg progressive").
    */
   private class Save implements Runnable {
     public void run() {
@@ -168,7 +335,8 @@ public class ImageControllerImplInteractive implements ImageController {
         throw new IllegalArgumentException("Error: cannot load image");
       }
       try {
-        writeImage(model.getImage(), model.getImageWidth(), model.getImageHeight(), commands[1]);
+        writeImage(model.getCurrentImage(), SaveOptions.filename(commands[1]),
+                SaveOptions.parse(commands[1]));
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -177,34 +345,72 @@ public class ImageControllerImplInteractive implements ImageController {
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the dither
-   * method on the model.
+   * method on the model. The command can name an error diffusion kernel (for example "dither
+   * atkinson"), "serpentine" to scan every other row from right to left and "parallel" to use
+   * several threads, or ask for an ordered dither with a threshold map (for example "dither ordered
+   * bayer4").
    */
   private class Dither implements Runnable {
     public void run() {
-      model.dither();
+      if (counter > 1 && commands[1].equals("ordered")) {
+        if (counter != 3) {
+          throw new IllegalArgumentException("Error: ordered dither needs a threshold map");
+        }
+        model.ditherOrdered(ThresholdMap.fromName(commands[2]));
+        return;
+      }
+      DitherKernel kernel = DitherKernel.FLOYD_STEINBERG;
+      boolean serpentine = false;
+      boolean parallel = false;
+      for (int i = 1; i < counter; i++) {
+        if (commands[i].equals("serpentine")) {
+          serpentine = true;
+        } else if (commands[i].equals("parallel")) {
+          parallel = true;
+        } else {
+          kernel = DitherKernel.fromName(commands[i]);
+        }
+      }
+      model.dither(kernel, serpentine, parallel);
     }
   }
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the blur
-   * method on the model.
+   * method on the model. The blur is applied in linear light if the command is "blur linear".
    */
   private class Blur implements Runnable {
     public void run() {
-      model.blur();
+      model.blur(isLinear());
     }
   }
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the sharpen
-   * method on the model.
+   * method on the model. The sharpen is applied in linear light if the command is "sharpen linear".
    */
   private class Sharpen implements Runnable {
     public void run() {
-      model.sharpen();
+      model.sharpen(isLinear());
     }
   }
 
+  /**
+   * This helper method checks whether the current command asks for a filter in linear light.
+   *
+   * @return true if the second word of the command is "linear".
+   * @throws IllegalArgumentException if the second word of the command is not "linear".
+   */
+  private boolean isLinear() throws IllegalArgumentException {
+    if (counter < 2) {
+      return false;
+    }
+    if (!commands[1].equals("linear")) {
+      throw new IllegalArgumentException("Error: unknown filter mode " + commands[1]);
+    }
+    return true;
+  }
+
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the
    * toGreyscale method on the model.
@@ -227,11 +433,68 @@ public class ImageControllerImplInteractive implements ImageController {
 
   /**
    * This class implements the Runnable interface. It has one method, run, that executes the mosaic
-   * method on the model.
+   * method on the model. The command can go on with the way nearest seeds are found and with a
+   * number that the seeds are picked from, which gives the same mosaic every time (for example
+   * "mosaic 1000 exact 42").
    */
   private class Mosaic implements Runnable {
     public void run() {
-      model.mosaic(Integer.parseInt(commands[1]));
+      if (counter < 2 || counter > 4) {
+        throw new IllegalArgumentException("Error: mosaic needs a number of seeds");
+      }
+      int seeds = Integer.parseInt(commands[1]);
+      MosaicMethod method = counter > 2 ? MosaicMethod.fromName(commands[2]) : MosaicMethod.GRID;
+      if (counter == 4) {
+        model.mosaic(seeds, method, Long.parseLong(commands[3]));
+      } else {
+        model.mosaic(seeds, method);
+      }
+    }
+  }
+
+  /**
+   * This class implements the Runnable interface. It has one method, run, that executes the
+   * quadMosaic method on the model. The command gives the variance at which a block is split and
+   * the smallest size of a block (for example "quadmosaic 100 4").
+   */
+  private class QuadMosaic implements Runnable {
+    public void run() {
+      if (counter != 3) {
+        throw new IllegalArgumentException("Error: quadmosaic needs a threshold and a smallest "
+                + "size");
+      }
+      model.quadMosaic(Integer.parseInt(commands[1]), Integer.parseInt(commands[2]));
+    }
+  }
+
+  /**
+   * This class implements the Runnable interface. It has one method, run, that executes the
+   * quantize method on the model. The command gives the number of palette colors and can end with
+   * "dither" to spread the error of each pixel over its neighbors (for example "quantize 16
+   * dither").
+   */
+  private class Quantize implements Runnable {
+    public void run() {
+      if (counter < 2 || counter > 3 || (counter == 3 && !commands[2].equals("dither"))) {
+        throw new IllegalArgumentException("Error: quantize needs a number of colors");
+      }
+      model.quantize(Integer.parseInt(commands[1]), counter == 3);
+    }
+  }
+
+  /**
+   * This class implements the Runnable interface. It has one method, run, that executes the
+   * superpixel method on the model. The command gives the number of superpixels, the compactness
+   * and the largest number of iterations (for example "superpixel 400 10 10").
+   */
+  private class Superpixel implements Runnable {
+    public void run() {
+      if (counter != 4) {
+        throw new IllegalArgumentException("Error: superpixel needs a number of superpixels, a "
+                + "compactness and a number of iterations");
+      }
+      model.superpixel(Integer.parseInt(commands[1]), Integer.parseInt(commands[2]),
+              Integer.parseInt(commands[3]));
     }
   }
 
@@ -0,0 +1,36 @@
+package image.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This interface represents an image file that is read one band of rows at a time, from top to
+ * bottom, so that the image is never held in memory as a whole.
+ */
+interface BandReader extends Closeable {
+
+  /**
+   * This method gets the width of the image.
+   *
+   * @return the width of the image in pixels.
+   */
+  int getWidth();
+
+  /**
+   * This method gets the height of the image.
+   *
+   * @return the height of the image in pixels.
+   */
+  int getHeight();
+
+  /**
+   * This method reads the next band of rows. The band is the same kind of image that reading the
+   * whole file would give.
+   *
+   * @param rows the number of rows to read, which is cut to the rows that are left.
+   * @return the rows that follow the rows of the previous band.
+   * @throws IOException if the file cannot be read or is not valid.
+   */
+  Image next(int rows) throws IOException;
+
+}
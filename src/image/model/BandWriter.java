@@ -0,0 +1,23 @@
+package image.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This interface represents an image file that is written one band of rows at a time, from top to
+ * bottom, so that the image is never held in memory as a whole. Closing the writer finishes the
+ * file.
+ */
+interface BandWriter extends Closeable {
+
+  /**
+   * This method writes the next band of rows. The format of the file is chosen from the first
+   * band, and every band after it should be the same kind of image.
+   *
+   * @param band the rows that follow the rows of the previous band.
+   * @throws IOException              if the file cannot be written.
+   * @throws IllegalArgumentException if the image cannot be held by the format of the file.
+   */
+  void write(Image band) throws IOException, IllegalArgumentException;
+
+}
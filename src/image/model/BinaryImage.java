@@ -0,0 +1,37 @@
+package image.model;
+
+/**
+ * This interface represents a black and white image. It stores one bit per pixel, packed into
+ * 64-bit words row by row, so it takes a small fraction of the memory of a greyscale or color
+ * image and can be written as a 1-bit file. Within a word, the leftmost pixel is in the most
+ * significant bit, and a set bit is a white pixel. Every row starts at a new word, so rows can be
+ * read without shifting. It still supports every method of the greyscale image interface, which
+ * returns 255 for white pixels and 0 for black pixels.
+ */
+public interface BinaryImage extends GreyscaleImage {
+
+  /**
+   * This method checks whether a single pixel of this image is white.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return true if the pixel is white, false if it is black.
+   */
+  boolean isWhite(int row, int column);
+
+  /**
+   * This method gets the number of 64-bit words that hold one row of this image.
+   *
+   * @return the number of words per row.
+   */
+  int getWordsPerRow();
+
+  /**
+   * This method gets the bits of this image, packed into 64-bit words row by row. The returned
+   * array is the one backing this image and must not be modified.
+   *
+   * @return the bits of this image.
+   */
+  long[] getWords();
+
+}
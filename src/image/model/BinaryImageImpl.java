@@ -0,0 +1,182 @@
+package image.model;
+
+/**
+ * This class represents the implementation of the binary image interface. It stores one bit per
+ * pixel in 64-bit words, with every row starting at a new word. The grey values and the
+ * three-channel integer array are only built when they are asked for.
+ */
+public class BinaryImageImpl implements BinaryImage {
+
+  /**
+   * The bits for this image, packed into 64-bit words row by row with the leftmost pixel in the
+   * most significant bit.
+   */
+  private final long[] words;
+
+  /**
+   * The number of words that hold one row of this image.
+   */
+  private final int wordsPerRow;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * This method constructs a BinaryImageImpl object from the given words. The array is used
+   * directly, so it must not be modified after the image is created.
+   *
+   * @param words  the bits of the image, packed into 64-bit words row by row with the leftmost
+   *               pixel in the most significant bit and a set bit for a white pixel.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @throws IllegalArgumentException if the number of words does not match the given width and
+   *                                  height.
+   */
+  public BinaryImageImpl(long[] words, int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1 || words.length != wordsPerRow(width) * height) {
+      throw new IllegalArgumentException("Error: words do not match the image size");
+    }
+    this.words = words;
+    this.wordsPerRow = wordsPerRow(width);
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * This method computes the number of 64-bit words that hold one row of the given width.
+   *
+   * @param width the width of the row.
+   * @return the number of words per row.
+   */
+  public static int wordsPerRow(int width) {
+    return (width + 63) >>> 6;
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is built from the bits each
+   * time it is called.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int value = getGrey(i, j);
+        image[i][j][0] = value;
+        image[i][j][1] = value;
+        image[i][j][2] = value;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer
+   * (0xRRGGBB), which is either white or black.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    return isWhite(row, column) ? 0xFFFFFF : 0;
+  }
+
+  /**
+   * This method gets the grey value of a single pixel of this image.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return 255 if the pixel is white, 0 if it is black.
+   */
+  @Override
+  public int getGrey(int row, int column) {
+    return isWhite(row, column) ? 255 : 0;
+  }
+
+  /**
+   * This method gets the grey values of this image as one unsigned byte per pixel, stored row by
+   * row. Unlike a greyscale image, a binary image does not keep grey values, so a new array is
+   * built each time this method is called.
+   *
+   * @return the grey values of this image.
+   */
+  @Override
+  public byte[] getGreyValues() {
+    byte[] grey = new byte[this.width * this.height];
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        if (isWhite(i, j)) {
+          grey[i * this.width + j] = (byte) 255;
+        }
+      }
+    }
+    return grey;
+  }
+
+  /**
+   * This method checks whether a single pixel of this image is white.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return true if the pixel is white, false if it is black.
+   */
+  @Override
+  public boolean isWhite(int row, int column) {
+    return (this.words[row * this.wordsPerRow + (column >>> 6)] << (column & 63)) < 0;
+  }
+
+  /**
+   * This method gets the number of 64-bit words that hold one row of this image.
+   *
+   * @return the number of words per row.
+   */
+  @Override
+  public int getWordsPerRow() {
+    return this.wordsPerRow;
+  }
+
+  /**
+   * This method gets the bits of this image, packed into 64-bit words row by row. The returned
+   * array is the one backing this image and must not be modified.
+   *
+   * @return the bits of this image.
+   */
+  @Override
+  public long[] getWords() {
+    return this.words;
+  }
+
+}
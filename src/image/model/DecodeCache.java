@@ -0,0 +1,472 @@
+package image.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class keeps decoded images so that loading the same file again does not decode it again.
+ * A file is known by its path together with its size, its time of last change and the key the
+ * file system gives it, so an entry is no longer used once its file changes; saves through
+ * ImageUtil also drop the entries of the files they write. Images are kept in memory up to a
+ * budget of bytes, and the images that were used longest ago are dropped first. A cache can also
+ * keep the images it decodes as imgraw files in a directory, which later runs map instead of
+ * decoding the file again; only files that ImageIO decodes are kept there, since Netpbm files are
+ * read as fast as the directory would be. Imgraw files are mapped, not decoded, so they are never
+ * cached. The images are shared by everyone that loads them, which is safe because images are
+ * never changed once they are made. All methods can be called from any thread, and threads that
+ * load the same file at the same time share a single decode.
+ */
+public final class DecodeCache {
+
+  /**
+   * The cache that the controllers load images through, or null before it is first used.
+   */
+  private static DecodeCache shared;
+
+  /**
+   * The largest number of bytes of images kept in memory.
+   */
+  private final long budget;
+
+  /**
+   * The directory that decoded images are kept in as imgraw files, or null to keep them in memory
+   * only.
+   */
+  private final Path directory;
+
+  /**
+   * The images kept in memory, from the one used longest ago to the one used last.
+   */
+  private final LinkedHashMap<Key, Image> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The files that are being loaded, with the image that every thread loading them waits for.
+   */
+  private final Map<Key, CompletableFuture<Image>> loading = new HashMap<>();
+
+  /**
+   * The number of bytes of the images kept in memory.
+   */
+  private long bytes;
+
+  /**
+   * The number of loads that found their image in memory or being loaded by another thread.
+   */
+  private long hits;
+
+  /**
+   * The number of loads that found their image in the directory.
+   */
+  private long diskHits;
+
+  /**
+   * The number of loads that decoded their file.
+   */
+  private long misses;
+
+  /**
+   * The number of images dropped from memory to stay within the budget.
+   */
+  private long evictions;
+
+  /**
+   * This constructs a decode cache.
+   *
+   * @param budget    the largest number of bytes of images kept in memory.
+   * @param directory the directory to keep decoded images in as imgraw files, or null to keep them
+   *                  in memory only.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public DecodeCache(long budget, Path directory) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Error: the budget of a cache cannot be negative");
+    }
+    this.budget = budget;
+    this.directory = directory;
+  }
+
+  /**
+   * This constructs a decode cache that keeps images in memory up to an eighth of the memory
+   * available to Java.
+   *
+   * @param directory the directory to keep decoded images in as imgraw files, or null to keep them
+   *                  in memory only.
+   */
+  public DecodeCache(Path directory) {
+    this(Runtime.getRuntime().maxMemory() / 8, directory);
+  }
+
+  /**
+   * This method gets the cache that the controllers load images through. Unless another one was
+   * set, it keeps images in memory only, up to an eighth of the memory available to Java.
+   *
+   * @return the shared cache.
+   */
+  public static synchronized DecodeCache getShared() {
+    if (shared == null) {
+      shared = new DecodeCache(null);
+    }
+    return shared;
+  }
+
+  /**
+   * This method sets the cache that the controllers load images through.
+   *
+   * @param cache the new shared cache.
+   */
+  public static synchronized void setShared(DecodeCache cache) {
+    shared = Objects.requireNonNull(cache);
+  }
+
+  /**
+   * This method reads an image file through the cache. The image is the same as the one that
+   * ImageUtil.readImageFile gives for the file.
+   *
+   * @param filename the path of the file.
+   * @return the image.
+   * @throws IOException if the file cannot be read or is not in a supported format.
+   */
+  public Image read(String filename) throws IOException {
+    if (ImgRaw.isImgRaw(filename)) {
+      return ImgRaw.read(filename);
+    }
+    Key key = Key.of(filename);
+    CompletableFuture<Image> pending;
+    synchronized (this) {
+      Image image = memory.get(key);
+      if (image != null) {
+        hits++;
+        return image;
+      }
+      pending = loading.get(key);
+      if (pending != null) {
+        hits++;
+      } else {
+        loading.put(key, new CompletableFuture<>());
+      }
+    }
+    if (pending != null) {
+      return await(pending);
+    }
+    Image image;
+    try {
+      image = load(filename, key);
+    } catch (IOException | RuntimeException | Error e) {
+      synchronized (this) {
+        loading.remove(key).completeExceptionally(e);
+      }
+      throw e;
+    }
+    synchronized (this) {
+      keep(key, image);
+      loading.remove(key).complete(image);
+    }
+    return image;
+  }
+
+  /**
+   * This method checks whether the image of a file is kept in memory, without counting it as a
+   * load.
+   *
+   * @param filename the path of the file.
+   * @return true if loading the file would not decode it.
+   */
+  public boolean contains(String filename) {
+    try {
+      Key key = Key.of(filename);
+      synchronized (this) {
+        return memory.containsKey(key) || loading.containsKey(key);
+      }
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * This method drops the images of a file from memory, whatever its size and time of change. It
+   * is called after the file is written, so that a file rewritten with the same size within the
+   * same tick of the clock is not taken for the old one.
+   *
+   * @param filename the path of the file.
+   */
+  public synchronized void invalidate(String filename) {
+    Path path = Paths.get(filename).toAbsolutePath().normalize();
+    Iterator<Map.Entry<Key, Image>> entries = memory.entrySet().iterator();
+    while (entries.hasNext()) {
+      Map.Entry<Key, Image> entry = entries.next();
+      if (entry.getKey().path.equals(path)) {
+        bytes -= sizeOf(entry.getValue());
+        entries.remove();
+      }
+    }
+  }
+
+  /**
+   * This method gets the number of loads that found their image in memory.
+   *
+   * @return the number of memory hits.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * This method gets the number of loads that found their image in the directory.
+   *
+   * @return the number of disk hits.
+   */
+  public synchronized long getDiskHits() {
+    return diskHits;
+  }
+
+  /**
+   * This method gets the number of loads that decoded their file.
+   *
+   * @return the number of misses.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * This method gets the number of images dropped from memory to stay within the budget.
+   *
+   * @return the number of evictions.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * This method reports the counters of this cache.
+   *
+   * @return the hits, disk hits, misses and evictions of this cache and the bytes it keeps in
+   *         memory.
+   */
+  @Override
+  public synchronized String toString() {
+    return "Decode cache: " + hits + " hits, " + diskHits + " disk hits, " + misses + " misses, "
+            + evictions + " evictions, " + bytes + " of " + budget + " bytes in memory";
+  }
+
+  /**
+   * This helper method loads an image that is not in memory, from the directory if it is there and
+   * from its file otherwise. A decoded image is kept in the directory if it has one; an image that
+   * cannot be kept there is only kept in memory.
+   *
+   * @param filename the path of the file.
+   * @param key      the key of the file.
+   * @return the image.
+   * @throws IOException if the file cannot be read or is not in a supported format.
+   */
+  private Image load(String filename, Key key) throws IOException {
+    boolean decoded = !Netpbm.isNetpbm(filename);
+    Path kept = directory == null || !decoded ? null : directory.resolve(key.digest() + ".imgraw");
+    if (kept != null && Files.isRegularFile(kept)) {
+      try {
+        MappedImage mapped = ImgRaw.read(kept.toString());
+        synchronized (this) {
+          diskHits++;
+        }
+        return TiledImageImpl.fromRows(mapped.getImageWidth(), mapped.getImageHeight(),
+                (row, i) -> {
+                  for (int j = 0; j < row.length; j++) {
+                    row[j] = mapped.getRGB(i, j);
+                  }
+                });
+      } catch (IOException e) {
+        Files.deleteIfExists(kept);
+      }
+    }
+    synchronized (this) {
+      misses++;
+    }
+    Image image = ImageUtil.readImageFile(filename);
+    if (kept != null) {
+      try {
+        Files.createDirectories(directory);
+        ImgRaw.write(image, kept.toString());
+      } catch (IOException | IllegalArgumentException e) {
+        // The directory only saves time, so an image that cannot be kept there is not an error.
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This helper method keeps an image in memory and drops the images used longest ago until the
+   * images fit in the budget. An image larger than the whole budget is not kept.
+   *
+   * @param key   the key of the file of the image.
+   * @param image the image.
+   */
+  private void keep(Key key, Image image) {
+    long size = sizeOf(image);
+    if (size > budget) {
+      return;
+    }
+    Image old = memory.put(key, image);
+    bytes += size - (old == null ? 0 : sizeOf(old));
+    Iterator<Image> eldest = memory.values().iterator();
+    while (bytes > budget) {
+      bytes -= sizeOf(eldest.next());
+      eldest.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * This helper method waits for another thread to load an image, throwing its error on this
+   * thread.
+   *
+   * @param pending the image being loaded.
+   * @return the image.
+   * @throws IOException if the file could not be read.
+   */
+  private static Image await(CompletableFuture<Image> pending) throws IOException {
+    try {
+      return pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Error: interrupted while waiting for an image", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw (Error) cause;
+    }
+  }
+
+  /**
+   * This helper method estimates the number of bytes an image takes in memory.
+   *
+   * @param image the image.
+   * @return the number of bytes of its pixels.
+   */
+  private static long sizeOf(Image image) {
+    long width = image.getImageWidth();
+    long height = image.getImageHeight();
+    if (image instanceof BinaryImage) {
+      return BinaryImageImpl.wordsPerRow((int) width) * 8L * height;
+    } else if (image instanceof GreyscaleImage) {
+      return width * height;
+    }
+    return width * height * 4;
+  }
+
+  /**
+   * This class represents the identity of a file: its path, its size, its time of last change and
+   * the key the file system gives it, if any.
+   */
+  private static final class Key {
+
+    /**
+     * The absolute path of the file.
+     */
+    private final Path path;
+
+    /**
+     * The size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * The time the file was last changed.
+     */
+    private final FileTime modified;
+
+    /**
+     * The key of the file in its file system, such as its inode, or null if there is none.
+     */
+    private final Object fileKey;
+
+    /**
+     * This constructs the identity of a file.
+     *
+     * @param path       the absolute path of the file.
+     * @param attributes the attributes of the file.
+     */
+    private Key(Path path, BasicFileAttributes attributes) {
+      this.path = path;
+      this.size = attributes.size();
+      this.modified = attributes.lastModifiedTime();
+      this.fileKey = attributes.fileKey();
+    }
+
+    /**
+     * This method reads the identity of a file.
+     *
+     * @param filename the path of the file.
+     * @return the identity of the file as it is now.
+     * @throws IOException if the file does not exist or cannot be read.
+     */
+    static Key of(String filename) throws IOException {
+      Path path = Paths.get(filename).toAbsolutePath().normalize();
+      return new Key(path, Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * This method gives a name for the image of this file in a directory, which is the SHA-256
+     * hash of the identity of the file in hexadecimal.
+     *
+     * @return the name.
+     */
+    String digest() {
+      try {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest((path + "|" + size + "|"
+                + modified + "|" + fileKey).getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder();
+        for (byte b : hash) {
+          name.append(String.format("%02x", b & 0xFF));
+        }
+        return name.toString();
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("Error: SHA-256 is not available", e);
+      }
+    }
+
+    /**
+     * This method checks whether another object is the identity of the same file, unchanged.
+     *
+     * @param other the object to compare to.
+     * @return true if the other object is a key with the same path, size, time and file key.
+     */
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return path.equals(key.path) && size == key.size && modified.equals(key.modified)
+              && Objects.equals(fileKey, key.fileKey);
+    }
+
+    /**
+     * This method gets a hash code that matches equals.
+     *
+     * @return the hash code of this key.
+     */
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, modified, fileKey);
+    }
+  }
+
+}
@@ -0,0 +1,20 @@
+package image.model;
+
+/**
+ * This interface represents an image whose pixels are computed from their position when they are
+ * asked for, such as a rainbow, a checkerboard or a flag. It keeps no pixel array, so a very large
+ * pattern takes almost no memory until an operation needs the three-channel integer array, and it
+ * can be read one row at a time when it is written to a file.
+ */
+public interface GeneratedImage extends Image {
+
+  /**
+   * This method computes the colors of one row of this image, packed into one integer per pixel
+   * with the red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row to compute.
+   * @param colors the array to fill, with at least one entry per column of this image.
+   */
+  void getRGBRow(int row, int[] colors);
+
+}
@@ -0,0 +1,127 @@
+package image.model;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * This class represents the implementation of the generated image interface. Every pixel has one
+ * of the colors of a small palette, and the palette entry of a pixel is computed from its row and
+ * column by the given function. The three-channel integer array is only built when it is asked
+ * for.
+ */
+public class GeneratedImageImpl implements GeneratedImage {
+
+  /**
+   * The colors of this image, packed into one integer each (0xRRGGBB).
+   */
+  private final int[] palette;
+
+  /**
+   * The function that computes the palette entry of a pixel from its row and column.
+   */
+  private final IntBinaryOperator colorIndex;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * This method constructs a GeneratedImageImpl object from the given palette and function.
+   *
+   * @param width      the width of the image.
+   * @param height     the height of the image.
+   * @param palette    the colors of the image, each given as its red, green and blue channels.
+   * @param colorIndex the function that computes the palette entry of a pixel from its row and
+   *                   column.
+   * @throws IllegalArgumentException if the width or height is less than one.
+   */
+  public GeneratedImageImpl(int width, int height, int[][] palette, IntBinaryOperator colorIndex)
+          throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Error: width and height must be at least 1");
+    }
+    this.palette = new int[palette.length];
+    for (int i = 0; i < palette.length; i++) {
+      this.palette[i] = (palette[i][0] << 16) | (palette[i][1] << 8) | palette[i][2];
+    }
+    this.colorIndex = colorIndex;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is computed from the
+   * function each time it is called.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    int[] colors = new int[this.width];
+    for (int i = 0; i < this.height; i++) {
+      getRGBRow(i, colors);
+      for (int j = 0; j < this.width; j++) {
+        image[i][j][0] = (colors[j] >> 16) & 0xFF;
+        image[i][j][1] = (colors[j] >> 8) & 0xFF;
+        image[i][j][2] = colors[j] & 0xFF;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    return this.palette[this.colorIndex.applyAsInt(row, column)];
+  }
+
+  /**
+   * This method computes the colors of one row of this image, packed into one integer per pixel
+   * with the red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row to compute.
+   * @param colors the array to fill, with at least one entry per column of this image.
+   */
+  @Override
+  public void getRGBRow(int row, int[] colors) {
+    for (int j = 0; j < this.width; j++) {
+      colors[j] = this.palette[this.colorIndex.applyAsInt(row, j)];
+    }
+  }
+
+}
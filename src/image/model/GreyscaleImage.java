@@ -0,0 +1,30 @@
+package image.model;
+
+/**
+ * This interface represents a greyscale image. It stores a single channel per pixel instead of
+ * three identical red, green and blue values, so filters and writers can work on one value per
+ * pixel. It still supports every method of the image interface, which returns the grey value in
+ * all three channels.
+ */
+public interface GreyscaleImage extends Image {
+
+  /**
+   * This method gets the grey value of a single pixel of this image.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the grey value of the pixel, between 0 and 255.
+   */
+  int getGrey(int row, int column);
+
+  /**
+   * This method gets the grey values of this image as one unsigned byte per pixel, stored row by
+   * row. Images that keep their grey values return the array backing the image, while images that
+   * store pixels in another form, such as binary images, may build a new array on each call.
+   * Either way the returned array must not be modified.
+   *
+   * @return the grey values of this image.
+   */
+  byte[] getGreyValues();
+
+}
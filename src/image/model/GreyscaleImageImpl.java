@@ -0,0 +1,123 @@
+package image.model;
+
+/**
+ * This class represents the implementation of the greyscale image interface. It stores one
+ * unsigned byte per pixel, row by row, which takes a third of the memory of three identical color
+ * channels. The three-channel integer array is only built when it is asked for.
+ */
+public class GreyscaleImageImpl implements GreyscaleImage {
+
+  /**
+   * The grey values for this image, one unsigned byte per pixel stored row by row.
+   */
+  private final byte[] grey;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * This method constructs a GreyscaleImageImpl object from the given grey values. The array is
+   * used directly, so it must not be modified after the image is created.
+   *
+   * @param grey   the grey values of the image, one unsigned byte per pixel stored row by row.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @throws IllegalArgumentException if the number of grey values does not match the given width
+   *                                  and height.
+   */
+  public GreyscaleImageImpl(byte[] grey, int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1 || grey.length != width * height) {
+      throw new IllegalArgumentException("Error: grey values do not match the image size");
+    }
+    this.grey = grey;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is built from the grey
+   * values each time it is called, with the grey value repeated in all three channels.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int value = this.grey[i * this.width + j] & 0xFF;
+        image[i][j][0] = value;
+        image[i][j][1] = value;
+        image[i][j][2] = value;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * grey value repeated in the red, green and blue channels (0xRRGGBB).
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    int value = getGrey(row, column);
+    return (value << 16) | (value << 8) | value;
+  }
+
+  /**
+   * This method gets the grey value of a single pixel of this image.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the grey value of the pixel, between 0 and 255.
+   */
+  @Override
+  public int getGrey(int row, int column) {
+    return this.grey[row * this.width + column] & 0xFF;
+  }
+
+  /**
+   * This method gets the grey values of this image as one unsigned byte per pixel, stored row by
+   * row. The returned array is the one backing this image and must not be modified.
+   *
+   * @return the grey values of this image.
+   */
+  @Override
+  public byte[] getGreyValues() {
+    return this.grey;
+  }
+
+}
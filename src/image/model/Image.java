@@ -31,4 +31,14 @@ public interface Image {
    */
   int getImageHeight();
 
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  int getRGB(int row, int column);
+
 }
@@ -2,8 +2,6 @@ package image.model;
 
 import java.io.IOException;
 
-import static image.model.ImageUtil.getHeight;
-import static image.model.ImageUtil.getWidth;
 import static image.model.ImageUtil.readImage;
 
 /**
@@ -32,8 +30,8 @@ public class ImageImpl implements Image {
   /**
    * This method constructs an ImageImpl object by taking in a file name formatted as the name of
    * the file in the format of folderName/filename. It uses the file information to read the image
-   * and store it as an integer array, find the height and store it as an integer, and find the
-   * width and store it as an integer. If the file cannot be read an exception is thrown.
+   * and store it as an integer array, and takes the height and width from that array, so the file
+   * is decoded only once. If the file cannot be read an exception is thrown.
    *
    * @param filename the name of the file in the format of folderName/filename.
    * @throws IOException this exception is thrown if the file could not be loaded.
@@ -41,8 +39,8 @@ public class ImageImpl implements Image {
   public ImageImpl(String filename) throws IOException {
     try {
       this.image = readImage(filename);
-      this.width = getWidth(filename);
-      this.height = getHeight(filename);
+      this.width = this.image[0].length;
+      this.height = this.image.length;
     } catch (IOException e) {
       throw new IOException("Error: could not load image from file");
     }
@@ -93,4 +91,18 @@ public class ImageImpl implements Image {
     return this.height;
   }
 
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    int[] pixel = this.image[row][column];
+    return (pixel[0] << 16) | (pixel[1] << 8) | pixel[2];
+  }
+
 }
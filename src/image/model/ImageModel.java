@@ -1,5 +1,9 @@
 package image.model;
 
+import image.model.filter.DitherKernel;
+import image.model.filter.MosaicMethod;
+import image.model.filter.ThresholdMap;
+
 /**
  * This interface represents the model for this program. It includes operations that transform an
  * array of pixels to the result of an applied operation and methods that apply a filter to an
@@ -16,6 +20,14 @@ public interface ImageModel {
    */
   int[][][] getImage();
 
+  /**
+   * This method gets the image object held by this model. The model never changes an image once it
+   * holds it, so the image can be read (for example to save it) without making a copy.
+   *
+   * @return the image held by this model.
+   */
+  Image getCurrentImage();
+
   /**
    * This method gets the width of the image as an integer.
    *
@@ -39,6 +51,17 @@ public interface ImageModel {
    */
   void blur() throws IllegalArgumentException;
 
+  /**
+   * This method applies a blur filter to a given image, optionally in linear light. Blurring in
+   * linear light decodes the sRGB values before filtering and encodes them afterwards, which keeps
+   * edges between light and dark areas from darkening.
+   *
+   * @param linearLight whether the filter should be applied in linear light.
+   * @throws IllegalArgumentException if the given filter is does not have odd dimensions or it is
+   *                                  bigger than the image.
+   */
+  void blur(boolean linearLight) throws IllegalArgumentException;
+
   /**
    * This method applies a sharpen filter to a given image by transforming the provided pixels using
    * the applied filter.
@@ -48,6 +71,16 @@ public interface ImageModel {
    */
   void sharpen() throws IllegalArgumentException;
 
+  /**
+   * This method applies a sharpen filter to a given image, optionally in linear light. Sharpening
+   * in linear light decodes the sRGB values before filtering and encodes them afterwards.
+   *
+   * @param linearLight whether the filter should be applied in linear light.
+   * @throws IllegalArgumentException if the given filter is does not have odd dimensions or it is
+   *                                  bigger than the image.
+   */
+  void sharpen(boolean linearLight) throws IllegalArgumentException;
+
   /**
    * This method applies the greyscale filter to a given image by transforming each individual
    * pixel's color channels.
@@ -87,10 +120,10 @@ public interface ImageModel {
   void drawRainbowWithVerticalStripes(int width, int height) throws IllegalArgumentException;
 
   /**
-   * This method draws three possible flags, France, Switzerland, and Greece. Each flag will be
-   * drawn in proportion to the size given.
+   * This method draws the flag of a country from its spec file. Each flag will be drawn in
+   * proportion to the size given.
    *
-   * @param country the country's flag to be drawn, can only be France, Switzerland, or Greece.
+   * @param country the country's flag to be drawn, such as France, Switzerland, Greece, or Japan.
    * @param size    the desired width in pixels of the image.
    * @throws IllegalArgumentException if the given value for size does not allow the method to draw
    *                                  the given country's flag (these differ between countries - see
@@ -117,6 +150,48 @@ public interface ImageModel {
    */
   void dither();
 
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel. The image
+   * is converted to greyscale, and then the difference between each pixel and the closest of black
+   * or white is spread over its neighbors using the weights of the kernel.
+   *
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   */
+  void dither(DitherKernel kernel, boolean serpentine);
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel, optionally
+   * on several threads. Dithering in parallel gives exactly the same image as dithering serially;
+   * it is only used for Floyd-Steinberg without serpentine scanning.
+   *
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param parallel   whether rows should be dithered on several threads.
+   */
+  void dither(DitherKernel kernel, boolean serpentine, boolean parallel);
+
+  /**
+   * This method uses an ordered dither effect on an image. The image is converted to greyscale,
+   * and then each pixel is compared against the threshold at its position in the given map, which
+   * is tiled over the image.
+   *
+   * @param map the threshold map that is tiled over the image.
+   */
+  void ditherOrdered(ThresholdMap map);
+
+  /**
+   * This method reduces an image to an adaptive palette of at most the given number of colors.
+   * The palette is built from the colors of the image, and every pixel takes its nearest palette
+   * color. With dithering, the difference between a pixel and its palette color is spread over
+   * its neighbors.
+   *
+   * @param colors the largest number of colors in the palette.
+   * @param dither whether the error of each pixel is spread over its neighbors.
+   * @throws IllegalArgumentException if the number of colors is not between 1 and 256.
+   */
+  void quantize(int colors, boolean dither) throws IllegalArgumentException;
+
   /**
    * This method uses a mosaic effect on an existing image to create a new image. It uses a seed
    * value to select a number of random pixels in an image, and then performs a "closest-neighbor"
@@ -131,6 +206,56 @@ public interface ImageModel {
    */
   void mosaic(final int seeds) throws IllegalArgumentException;
 
+  /**
+   * This method uses a mosaic effect on an existing image, finding the nearest seed of every pixel
+   * with the given method. The exact and jump flood methods compute the tiles of the whole image at
+   * once, so their cost does not depend on the number of seeds.
+   *
+   * @param seeds  the number of tiles the image will use to create the mosaic.
+   * @param method the way the nearest seed of every pixel is found.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds.
+   */
+  void mosaic(final int seeds, MosaicMethod method) throws IllegalArgumentException;
+
+  /**
+   * This method uses a mosaic effect on an existing image, picking the seeds with a random number
+   * generator started from the given value, so the same value always gives the same mosaic of the
+   * same image.
+   *
+   * @param seeds      the number of tiles the image will use to create the mosaic.
+   * @param method     the way the nearest seed of every pixel is found.
+   * @param randomSeed the starting value of the random number generator that picks the seeds.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds.
+   */
+  void mosaic(final int seeds, MosaicMethod method, long randomSeed)
+          throws IllegalArgumentException;
+
+  /**
+   * This method splits the image into superpixels with SLIC, a clustering over color and position,
+   * and paints every superpixel with the average color of its pixels.
+   *
+   * @param superpixels the number of superpixels that is asked for.
+   * @param compactness how strongly the distance in pixels counts against the color difference.
+   * @param iterations  the largest number of iterations of the clustering.
+   * @throws IllegalArgumentException if the number of superpixels or iterations is less than one,
+   *                                  if the compactness is negative, or if the image has fewer
+   *                                  pixels than the number of superpixels.
+   */
+  void superpixel(int superpixels, int compactness, int iterations)
+          throws IllegalArgumentException;
+
+  /**
+   * This method paints an adaptive mosaic of the image. The image is split into quadrants while
+   * the variance of the colors of a block is at least the threshold, and every block that is not
+   * split is painted with the average color of its pixels.
+   *
+   * @param threshold the variance at which a block is split, averaged over the three channels.
+   * @param minSize   the smallest width or height of a block.
+   * @throws IllegalArgumentException if the threshold is negative or the smallest size is less
+   *                                  than one.
+   */
+  void quadMosaic(int threshold, int minSize) throws IllegalArgumentException;
+
   /**
    * This method is used to load an image to this model. It takes the given image and assigns it to
    * this image model's image value.
@@ -1,10 +1,13 @@
 package image.model;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.Random;
 import java.util.Stack;
 
+import image.model.filter.DitherKernel;
 import image.model.filter.ImageFilterImpl;
+import image.model.filter.MosaicMethod;
+import image.model.filter.ThresholdMap;
 import image.model.pattern.FlagImageImpl;
 import image.model.pattern.PatternImageImpl;
 import image.model.transformation.ImageTransformationImpl;
@@ -17,6 +20,38 @@ import image.model.transformation.ImageTransformationImpl;
  */
 public class ImageModelImpl implements ImageModel {
 
+  /**
+   * The matrix that converts a color to its luma, the same in every channel.
+   */
+  static final double[][] GREYSCALE = {{0.2126, 0.7152, 0.0722}, {0.2126, 0.7152, 0.0722},
+          {0.2126, 0.7152, 0.0722}};
+
+  /**
+   * The matrix that converts a color to sepia.
+   */
+  static final double[][] SEPIA = {{0.393, 0.769, 0.189}, {0.349, 0.686, 0.168},
+          {0.272, 0.534, 0.131}};
+
+  /**
+   * The filter that blurs an image.
+   */
+  static final double[][] BLUR = {
+          {0.0625, 0.125, 0.0625},
+          {0.125, 0.25, 0.125},
+          {0.0625, 0.125, 0.0625}
+  };
+
+  /**
+   * The filter that sharpens an image.
+   */
+  static final double[][] SHARPEN = {
+          {-0.125, -0.125, -0.125, -0.125, -0.125},
+          {-0.125, 0.25, 0.25, 0.25, -0.125},
+          {-0.125, 0.25, 1, 0.25, -0.125},
+          {-0.125, 0.25, 0.25, 0.25, -0.125},
+          {-0.125, -0.125, -0.125, -0.125, -0.125}
+  };
+
   /**
    * This Image object holds all the information of the image.
    */
@@ -34,15 +69,17 @@ public class ImageModelImpl implements ImageModel {
 
   /**
    * This method constructs an ImageModelImpl object by taking in a file name formatted as
-   * foldername/filename. It uses the file information to read the image and store it as an
-   * ImageImpl object. If the file cannot be read an IOException is thrown.
+   * foldername/filename. It uses the file information to read the image and store it as a
+   * tiled image, so that areas of a single color are kept as one value per tile. Netpbm bitmaps
+   * and greymaps are kept as binary and greyscale images. If the file cannot be read an IOException
+   * is thrown.
    *
    * @param filename the name of the file in the format of folderName/filename
    * @throws IOException this exception is thrown if the file could not be read.
    */
   public ImageModelImpl(String filename) throws IOException {
     try {
-      this.image = new ImageImpl(filename);
+      this.image = ImageUtil.readImageFile(filename);
     } catch (IOException e) {
       throw new IOException("Error: could not read from file.");
     }
@@ -64,16 +101,29 @@ public class ImageModelImpl implements ImageModel {
    * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
    *         [[h,i,j],[k,l,m]]].
    */
+  @Override
   public int[][][] getImage() {
+    int[][][] pixels = this.image.getImage();
     int[][][] deepCopy = new int[this.image.getImageHeight()][this.image.getImageWidth()][3];
     for (int i = 0; i < this.image.getImageHeight(); i++) {
       for (int j = 0; j < this.image.getImageWidth(); j++) {
-        deepCopy[i][j] = this.image.getImage()[i][j];
+        System.arraycopy(pixels[i][j], 0, deepCopy[i][j], 0, 3);
       }
     }
     return deepCopy;
   }
 
+  /**
+   * This method gets the image object held by this model. The model never changes an image once it
+   * holds it, so the image can be read (for example to save it) without making a copy.
+   *
+   * @return the image held by this model.
+   */
+  @Override
+  public Image getCurrentImage() {
+    return this.image;
+  }
+
   /**
    * This method gets the integer value for this image's width (how many pixels wide the image is).
    *
@@ -94,7 +144,8 @@ public class ImageModelImpl implements ImageModel {
   }
 
   private void checkImage() {
-    if (Arrays.deepEquals(this.getImage(), new int[1][1][3])) {
+    if (this.image.getImageWidth() == 1 && this.image.getImageHeight() == 1
+            && this.image.getRGB(0, 0) == 0) {
       throw new IllegalArgumentException("Error: no image loaded yet");
     }
   }
@@ -108,14 +159,23 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public void blur() throws IllegalArgumentException {
+    blur(false);
+  }
+
+  /**
+   * This method applies a blur filter to the pixels of a given image, optionally in linear light.
+   * In linear light the sRGB values are decoded through a lookup table before filtering and encoded
+   * again afterwards.
+   *
+   * @param linearLight whether the filter should be applied in linear light.
+   * @throws IllegalArgumentException if the given filter is does not have odd dimensions or it is
+   *                                  bigger than the image.
+   */
+  @Override
+  public void blur(boolean linearLight) throws IllegalArgumentException {
     checkImage();
-    double[][] blurFilter = {
-            {0.0625, 0.125, 0.0625},
-            {0.125, 0.25, 0.125},
-            {0.0625, 0.125, 0.0625}
-    };
     undoHelper();
-    this.image = new ImageFilterImpl().applyFilter(this.image, blurFilter);
+    this.image = applyFilter(BLUR, linearLight);
   }
 
   /**
@@ -127,16 +187,38 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public void sharpen() throws IllegalArgumentException {
+    sharpen(false);
+  }
+
+  /**
+   * This method applies a sharpen filter to a given image, optionally in linear light. In linear
+   * light the sRGB values are decoded through a lookup table before filtering and encoded again
+   * afterwards.
+   *
+   * @param linearLight whether the filter should be applied in linear light.
+   * @throws IllegalArgumentException if the given filter is does not have odd dimensions or it is
+   *                                  bigger than the image.
+   */
+  @Override
+  public void sharpen(boolean linearLight) throws IllegalArgumentException {
     checkImage();
-    double[][] sharpenFilter = {
-            {-0.125, -0.125, -0.125, -0.125, -0.125},
-            {-0.125, 0.25, 0.25, 0.25, -0.125},
-            {-0.125, 0.25, 1, 0.25, -0.125},
-            {-0.125, 0.25, 0.25, 0.25, -0.125},
-            {-0.125, -0.125, -0.125, -0.125, -0.125}
-    };
     undoHelper();
-    this.image = new ImageFilterImpl().applyFilter(this.image, sharpenFilter);
+    this.image = applyFilter(SHARPEN, linearLight);
+  }
+
+  /**
+   * This helper method applies the given filter to this model's image, either directly to the sRGB
+   * values or in linear light.
+   *
+   * @param filter      the filter matrix to apply.
+   * @param linearLight whether the filter should be applied in linear light.
+   * @return the filtered image.
+   */
+  private Image applyFilter(double[][] filter, boolean linearLight) {
+    if (linearLight) {
+      return new ImageFilterImpl().applyLinearFilter(this.image, filter);
+    }
+    return new ImageFilterImpl().applyFilter(this.image, filter);
   }
 
   /**
@@ -146,10 +228,8 @@ public class ImageModelImpl implements ImageModel {
   @Override
   public void toGreyscale() {
     checkImage();
-    double[][] greyscale = {{0.2126, 0.7152, 0.0722}, {0.2126, 0.7152, 0.0722}, {0.2126,
-            0.7152, 0.0722}};
     undoHelper();
-    this.image = new ImageTransformationImpl().applyTransformation(this.image, greyscale);
+    this.image = new ImageTransformationImpl().applyTransformation(this.image, GREYSCALE);
   }
 
   /**
@@ -159,9 +239,8 @@ public class ImageModelImpl implements ImageModel {
   @Override
   public void toSepia() {
     checkImage();
-    double[][] sepia = {{0.393, 0.769, 0.189}, {0.349, 0.686, 0.168}, {0.272, 0.534, 0.131}};
     undoHelper();
-    this.image = new ImageTransformationImpl().applyTransformation(this.image, sepia);
+    this.image = new ImageTransformationImpl().applyTransformation(this.image, SEPIA);
   }
 
   /**
@@ -201,11 +280,11 @@ public class ImageModelImpl implements ImageModel {
   }
 
   /**
-   * This method draws three possible flags, France, Switzerland, and Greece. Countries must be
-   * input staring with a capital letter followed by all lowercase letters. Each flag will be drawn
-   * in proportion to the size given.
+   * This method draws the flag of a country from its spec file in the flags folder of the pattern
+   * package. Countries must be input staring with a capital letter. Each flag will be drawn in
+   * proportion to the size given.
    *
-   * @param country the country's flag to be drawn, can only be France, Switzerland, or Greece.
+   * @param country the country's flag to be drawn, such as France, Switzerland, Greece, or Japan.
    * @param size    the desired width in pixels of the image.
    * @throws IllegalArgumentException if the given value for size does not allow the method to draw
    *                                  the given country's flag (these differ between countries - see
@@ -241,11 +320,72 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public void dither() {
+    dither(DitherKernel.FLOYD_STEINBERG, false);
+  }
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel. The image
+   * is converted to greyscale, and then the difference between each pixel and the closest of black
+   * or white is spread over its neighbors using the weights of the kernel.
+   *
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   */
+  @Override
+  public void dither(DitherKernel kernel, boolean serpentine) {
+    dither(kernel, serpentine, false);
+  }
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel, optionally
+   * on several threads. Dithering in parallel gives exactly the same image as dithering serially;
+   * it is only used for Floyd-Steinberg without serpentine scanning.
+   *
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param parallel   whether rows should be dithered on several threads.
+   */
+  @Override
+  public void dither(DitherKernel kernel, boolean serpentine, boolean parallel) {
     checkImage();
     undoHelper();
     this.toGreyscale();
     undoStack.pop();
-    this.image = new ImageFilterImpl().applyDitherFilter(this.image);
+    this.image = new ImageFilterImpl().applyDitherFilter(this.image, kernel, serpentine, parallel);
+  }
+
+  /**
+   * This method uses an ordered dither effect on an image. The image is converted to greyscale,
+   * and then each pixel is compared against the threshold at its position in the given map, which
+   * is tiled over the image.
+   *
+   * @param map the threshold map that is tiled over the image.
+   */
+  @Override
+  public void ditherOrdered(ThresholdMap map) {
+    checkImage();
+    undoHelper();
+    this.toGreyscale();
+    undoStack.pop();
+    this.image = new ImageFilterImpl().applyOrderedDitherFilter(this.image, map);
+  }
+
+  /**
+   * This method reduces an image to an adaptive palette of at most the given number of colors.
+   * The palette is built from the colors of the image, and every pixel takes its nearest palette
+   * color. With dithering, the difference between a pixel and its palette color is spread over
+   * its neighbors. The undo history is only changed once the image has been quantized.
+   *
+   * @param colors the largest number of colors in the palette.
+   * @param dither whether the error of each pixel is spread over its neighbors.
+   * @throws IllegalArgumentException if the number of colors is not between 1 and 256.
+   */
+  @Override
+  public void quantize(int colors, boolean dither) throws IllegalArgumentException {
+    checkImage();
+    Image quantized = new ImageFilterImpl().applyQuantizeFilter(this.image, colors, dither);
+    undoHelper();
+    this.image = quantized;
   }
 
   /**
@@ -262,10 +402,81 @@ public class ImageModelImpl implements ImageModel {
    */
   @Override
   public void mosaic(final int seeds) throws IllegalArgumentException {
+    mosaic(seeds, MosaicMethod.GRID);
+  }
+
+  /**
+   * This method uses a mosaic effect on an existing image, finding the nearest seed of every pixel
+   * with the given method. The exact and jump flood methods compute the tiles of the whole image at
+   * once, so their cost does not depend on the number of seeds.
+   *
+   * @param seeds  the number of tiles the image will use to create the mosaic.
+   * @param method the way the nearest seed of every pixel is found.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds.
+   */
+  @Override
+  public void mosaic(final int seeds, MosaicMethod method) throws IllegalArgumentException {
     checkImage();
     undoHelper();
-    this.image = new ImageFilterImpl().applyMosaicFilter(this.image, seeds);
+    this.image = new ImageFilterImpl().applyMosaicFilter(this.image, seeds, method);
+  }
+
+  /**
+   * This method uses a mosaic effect on an existing image, picking the seeds with a random number
+   * generator started from the given value, so the same value always gives the same mosaic of the
+   * same image.
+   *
+   * @param seeds      the number of tiles the image will use to create the mosaic.
+   * @param method     the way the nearest seed of every pixel is found.
+   * @param randomSeed the starting value of the random number generator that picks the seeds.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds.
+   */
+  @Override
+  public void mosaic(final int seeds, MosaicMethod method, long randomSeed)
+          throws IllegalArgumentException {
+    checkImage();
+    undoHelper();
+    this.image = new ImageFilterImpl().applyMosaicFilter(this.image, seeds, method,
+            new Random(randomSeed));
+  }
+
+  /**
+   * This method splits the image into superpixels with SLIC, a clustering over color and position,
+   * and paints every superpixel with the average color of its pixels.
+   *
+   * @param superpixels the number of superpixels that is asked for.
+   * @param compactness how strongly the distance in pixels counts against the color difference.
+   * @param iterations  the largest number of iterations of the clustering.
+   * @throws IllegalArgumentException if the number of superpixels or iterations is less than one,
+   *                                  if the compactness is negative, or if the image has fewer
+   *                                  pixels than the number of superpixels.
+   */
+  @Override
+  public void superpixel(int superpixels, int compactness, int iterations)
+          throws IllegalArgumentException {
+    checkImage();
+    Image result = new ImageFilterImpl().applySuperpixelFilter(this.image, superpixels,
+            compactness, iterations);
+    undoHelper();
+    this.image = result;
+  }
 
+  /**
+   * This method paints an adaptive mosaic of the image. The image is split into quadrants while
+   * the variance of the colors of a block is at least the threshold, and every block that is not
+   * split is painted with the average color of its pixels.
+   *
+   * @param threshold the variance at which a block is split, averaged over the three channels.
+   * @param minSize   the smallest width or height of a block.
+   * @throws IllegalArgumentException if the threshold is negative or the smallest size is less
+   *                                  than one.
+   */
+  @Override
+  public void quadMosaic(int threshold, int minSize) throws IllegalArgumentException {
+    checkImage();
+    Image result = new ImageFilterImpl().applyQuadMosaicFilter(this.image, threshold, minSize);
+    undoHelper();
+    this.image = result;
   }
 
   /**
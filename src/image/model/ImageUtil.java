@@ -1,12 +1,45 @@
 package image.model;
 
-import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 
 /**
  * This class contains utility methods to read an image from file and write to a file.
@@ -14,33 +47,80 @@ import javax.imageio.ImageIO;
 public class ImageUtil {
 
   /**
-   * Read an image file and return the contents as an array.
+   * The encoders that each thread has used, by the extension of the files they write.
+   */
+  private static final ThreadLocal<Map<String, ImageWriter>> WRITERS =
+          ThreadLocal.withInitial(HashMap::new);
+
+  /**
+   * Read an image file and return the contents as an array. The file is decoded once and its
+   * pixels are copied from the decoded raster row by row.
    *
    * @param filename the path of the file. Look at the ImageIO documentation to see which file
    *                 formats are supported.
    * @return the image as a 3D array of integer values
+   * @throws IOException if the file cannot be read or is not in a supported format
    */
   public static int[][][] readImage(String filename) throws IOException {
-    BufferedImage input;
-
-    input = ImageIO.read(new FileInputStream(filename));
-
-    int[][][] result = new int[input.getHeight()][input.getWidth()][3];
-
-    for (int i = 0; i < input.getHeight(); i++) {
-      for (int j = 0; j < input.getWidth(); j++) {
-        int color = input.getRGB(j, i);
-        Color c = new Color(color);
-        result[i][j][0] = c.getRed();
-        result[i][j][1] = c.getGreen();
-        result[i][j][2] = c.getBlue();
+    if (Netpbm.isNetpbm(filename)) {
+      return Netpbm.read(filename).getImage();
+    }
+    if (ImgRaw.isImgRaw(filename)) {
+      return ImgRaw.read(filename).getImage();
+    }
+    BufferedImage input = decode(filename);
+    int width = input.getWidth();
+    int height = input.getHeight();
+    int[][][] result = new int[height][width][3];
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      readRow(input, i, row);
+      for (int j = 0; j < width; j++) {
+        result[i][j][0] = (row[j] >> 16) & 0xFF;
+        result[i][j][1] = (row[j] >> 8) & 0xFF;
+        result[i][j][2] = row[j] & 0xFF;
       }
     }
     return result;
   }
 
   /**
-   * Convenience function to get the width of an image.
+   * Read an image file and return it in the form that suits its contents. Netpbm files are read by
+   * the built-in reader, which gives binary, greyscale or tiled images; imgraw files are mapped
+   * into mapped images; all other files are read as tiled images.
+   *
+   * @param filename the path of the file. Look at the ImageIO documentation to see which file
+   *                 formats are supported, besides PBM, PGM, PPM, PNM and IMGRAW.
+   * @return the image
+   * @throws IOException if the file cannot be read or is not in a supported format
+   */
+  public static Image readImageFile(String filename) throws IOException {
+    if (Netpbm.isNetpbm(filename)) {
+      return Netpbm.read(filename);
+    }
+    if (ImgRaw.isImgRaw(filename)) {
+      return ImgRaw.read(filename);
+    }
+    return readTiledImage(filename);
+  }
+
+  /**
+   * Read an image file and return it as a tiled image. The file is decoded once and its rows are
+   * copied straight into the tiles, so the pixels are never held as a 3D array.
+   *
+   * @param filename the path of the file. Look at the ImageIO documentation to see which file
+   *                 formats are supported.
+   * @return the image split into tiles
+   * @throws IOException if the file cannot be read or is not in a supported format
+   */
+  public static TiledImage readTiledImage(String filename) throws IOException {
+    BufferedImage input = decode(filename);
+    return TiledImageImpl.fromRows(input.getWidth(), input.getHeight(),
+            (row, i) -> readRow(input, i, row));
+  }
+
+  /**
+   * Convenience function to get the width of an image. Only the header of the file is read.
    *
    * @param filename the full path of the image file. Look at the ImageIO class to see which file
    *                 formats are supported
@@ -49,15 +129,11 @@ public class ImageUtil {
    */
 
   public static int getWidth(String filename) throws IOException {
-    BufferedImage input;
-
-    input = ImageIO.read(new FileInputStream(filename));
-
-    return input.getWidth();
+    return readSize(filename)[0];
   }
 
   /**
-   * Convenience function to get the height of an image.
+   * Convenience function to get the height of an image. Only the header of the file is read.
    *
    * @param filename the full path of the image file. Look at the ImageIO class to see which file
    *                 formats are supported
@@ -65,11 +141,137 @@ public class ImageUtil {
    * @throws IOException if the file is not found
    */
   public static int getHeight(String filename) throws IOException {
-    BufferedImage input;
+    return readSize(filename)[1];
+  }
+
+  /**
+   * This helper method reads the width and height of an image from the header of its file,
+   * without decoding any pixels.
+   *
+   * @param filename the full path of the image file.
+   * @return the width and the height of the image.
+   * @throws IOException if the file cannot be read or is not in a supported format
+   */
+  private static int[] readSize(String filename) throws IOException {
+    if (Netpbm.isNetpbm(filename)) {
+      return Netpbm.readSize(filename);
+    }
+    if (ImgRaw.isImgRaw(filename)) {
+      return ImgRaw.readSize(filename);
+    }
+    try (ImageInputStream in = new FileImageInputStream(new File(filename))) {
+      ImageReader reader = reader(in);
+      try {
+        return new int[]{reader.getWidth(0), reader.getHeight(0)};
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
 
-    input = ImageIO.read(new FileInputStream(filename));
+  /**
+   * This method opens an image file to be read one band of rows at a time. Netpbm and imgraw files
+   * are read straight from the mapped file; other formats are decoded one band at a time from a
+   * region of the image.
+   *
+   * @param filename the path of the file.
+   * @return a reader of the bands of the image, which should be closed after use.
+   * @throws IOException if the file cannot be read or is not in a supported format
+   */
+  static BandReader readBands(String filename) throws IOException {
+    if (Netpbm.isNetpbm(filename)) {
+      return Netpbm.readBands(filename);
+    }
+    if (ImgRaw.isImgRaw(filename)) {
+      return ImgRaw.readBands(filename);
+    }
+    return new RegionBands(filename);
+  }
 
-    return input.getHeight();
+  /**
+   * This helper method decodes the first image of a file and closes the file.
+   *
+   * @param filename the full path of the image file.
+   * @return the decoded image.
+   * @throws IOException if the file cannot be read or is not in a supported format
+   */
+  private static BufferedImage decode(String filename) throws IOException {
+    try (ImageInputStream in = new FileImageInputStream(new File(filename))) {
+      ImageReader reader = reader(in);
+      try {
+        return reader.read(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * This helper method finds a reader for the format of an image stream and gives it the stream.
+   *
+   * @param in the stream of the image file.
+   * @return a reader set to read from the stream.
+   * @throws IOException if no reader supports the format of the file
+   */
+  private static ImageReader reader(ImageInputStream in) throws IOException {
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+    if (!readers.hasNext()) {
+      throw new IOException("Error: unsupported image format");
+    }
+    ImageReader reader = readers.next();
+    reader.setInput(in, true, true);
+    return reader;
+  }
+
+  /**
+   * This helper method copies one row of a decoded image as packed colors (0xRRGGBB). Images
+   * with 8-bit blue, green and red samples, packed RGB integers or 8-bit grey samples are copied
+   * straight from the data buffer; all other images are converted by their color model one row at
+   * a time.
+   *
+   * @param input the decoded image.
+   * @param row   the row to copy.
+   * @param out   the array that receives the colors of the row, at least as long as the width.
+   */
+  private static void readRow(BufferedImage input, int row, int[] out) {
+    int width = input.getWidth();
+    WritableRaster raster = input.getRaster();
+    int x = -raster.getSampleModelTranslateX();
+    int y = row - raster.getSampleModelTranslateY();
+    int type = input.getType();
+    if (type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_BYTE_GRAY) {
+      ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+      byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+      int pixelStride = model.getPixelStride();
+      int[] offsets = model.getBandOffsets();
+      int index = raster.getDataBuffer().getOffset() + y * model.getScanlineStride()
+              + x * pixelStride;
+      if (type == BufferedImage.TYPE_BYTE_GRAY) {
+        for (int j = 0; j < width; j++, index += pixelStride) {
+          int grey = data[index + offsets[0]] & 0xFF;
+          out[j] = grey << 16 | grey << 8 | grey;
+        }
+      } else {
+        for (int j = 0; j < width; j++, index += pixelStride) {
+          out[j] = (data[index + offsets[0]] & 0xFF) << 16
+                  | (data[index + offsets[1]] & 0xFF) << 8 | (data[index + offsets[2]] & 0xFF);
+        }
+      }
+      return;
+    }
+    if (type == BufferedImage.TYPE_INT_RGB) {
+      SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+      int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+      int index = raster.getDataBuffer().getOffset() + y * model.getScanlineStride() + x;
+      for (int j = 0; j < width; j++) {
+        out[j] = data[index + j] & 0xFFFFFF;
+      }
+      return;
+    }
+    input.getRGB(0, row, width, 1, out, 0, width);
+    for (int j = 0; j < width; j++) {
+      out[j] &= 0xFFFFFF;
+    }
   }
 
   /**
@@ -86,12 +288,33 @@ public class ImageUtil {
   public static void writeImage(int[][][] rgb, int width, int height, String
           filename)
           throws IOException {
+    try {
+      writeColors(rgb, width, height, filename);
+    } finally {
+      DecodeCache.getShared().invalidate(filename);
+    }
+  }
 
-    BufferedImage output = new BufferedImage(
-            width,
-            height,
-            BufferedImage.TYPE_INT_RGB);
-
+  /**
+   * This helper method writes an image given as a 3D array to a file in a given format.
+   *
+   * @param rgb      the image data as a 3D array of integers.
+   * @param width    the width of the image
+   * @param height   the height of the image
+   * @param filename the full path of where the image must be stored.
+   * @throws IOException if the file cannot be written to the provided path
+   */
+  private static void writeColors(int[][][] rgb, int width, int height, String filename)
+          throws IOException {
+    if (Netpbm.isNetpbm(filename)) {
+      Netpbm.write(new ImageImpl(rgb), filename);
+      return;
+    }
+    if (ImgRaw.isImgRaw(filename)) {
+      ImgRaw.write(new ImageImpl(rgb), filename);
+      return;
+    }
+    int[] colors = new int[width * height];
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
         int r = rgb[i][j][0];
@@ -101,12 +324,537 @@ public class ImageUtil {
         //color is stored in 1 integer, with the 4 bytes storing ARGB in that
         //order. Each of r,g,b are stored in 8 bits (hence between 0 and 255).
         // So we put them all in one integer by using bit-shifting << as below
-        int color = (r << 16) + (g << 8) + b;
-        output.setRGB(j, i, color);
+        colors[i * width + j] = (r << 16) + (g << 8) + b;
+      }
+    }
+    write(wrapColors(colors, width, height), extension(filename), filename,
+            SaveOptions.DEFAULTS);
+  }
+
+  /**
+   * Write an image to a file in a given format with the default settings of the encoder.
+   *
+   * @param image    the image to write
+   * @param filename the full path of where the image must be stored. This should include the name
+   *                 and extension of the file
+   * @throws IOException if the file cannot be written to the provided path
+   */
+  public static void writeImage(Image image, String filename) throws IOException {
+    writeImage(image, filename, SaveOptions.DEFAULTS);
+  }
+
+  /**
+   * Write an image to a file in a given format. PBM, PGM, PPM and PNM files are written by the
+   * built-in Netpbm writer, and IMGRAW files by the built-in imgraw writer. Binary images are
+   * written with one bit per pixel when saved as PNG, greyscale images are written with a single
+   * 8-bit grey channel, and indexed images are written with an 8-bit palette when saved as PNG or
+   * GIF; all other images are written as 24-bit color. Generated images saved as PNG are computed
+   * and written one row at a time, so they are never held in memory as a whole. The pixels are
+   * handed to the encoder in a raster that wraps the grey values or palette indices of the image,
+   * or that is filled with packed colors, and every thread keeps one encoder per format for the
+   * files it writes. The file is dropped from the shared decode cache once it is written.
+   *
+   * @param image    the image to write
+   * @param filename the full path of where the image must be stored. This should include the name
+   *                 and extension of the file
+   * @param options  the settings of the encoder
+   * @throws IOException              if the file cannot be written to the provided path, or if
+   *                                  its format is not supported
+   * @throws IllegalArgumentException if an option is not supported by the format of the file
+   */
+  public static void writeImage(Image image, String filename, SaveOptions options)
+          throws IOException, IllegalArgumentException {
+    try {
+      writeEncoded(image, filename, options);
+    } finally {
+      DecodeCache.getShared().invalidate(filename);
+    }
+  }
+
+  /**
+   * This helper method writes an image to a file in the format of its extension, as described in
+   * writeImage.
+   *
+   * @param image    the image to write
+   * @param filename the full path of where the image must be stored.
+   * @param options  the settings of the encoder
+   * @throws IOException              if the file cannot be written to the provided path, or if
+   *                                  its format is not supported
+   * @throws IllegalArgumentException if an option is not supported by the format of the file
+   */
+  private static void writeEncoded(Image image, String filename, SaveOptions options)
+          throws IOException, IllegalArgumentException {
+    String extension = extension(filename);
+    checkOptions(extension, options);
+    int level = options.getCompression() < 0 ? Deflater.DEFAULT_COMPRESSION
+            : options.getCompression();
+    if (Netpbm.isNetpbm(filename)) {
+      Netpbm.write(image, filename);
+      return;
+    }
+    if (ImgRaw.isImgRaw(filename)) {
+      ImgRaw.write(image, filename);
+      return;
+    }
+    if (image instanceof BinaryImage && !options.isProgressive() && extension.equals("png")) {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+        writeBinaryPng((BinaryImage) image, out, level);
+      }
+      return;
+    }
+    if (image instanceof GeneratedImage && !options.isProgressive() && extension.equals("png")) {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+        writeGeneratedPng((GeneratedImage) image, out, level);
+      }
+      return;
+    }
+    write(bufferedImage(image, extension.equals("png") || extension.equals("gif")), extension,
+            filename, options);
+  }
+
+  /**
+   * This helper method gives an image to ImageIO without converting it to a 3D array. Grey values
+   * and palette indices are wrapped as they are, and all other images are packed into one array of
+   * colors.
+   *
+   * @param image   the image to convert
+   * @param indexed whether indexed images should keep their palette
+   * @return a buffered image with the pixels of the image
+   */
+  private static BufferedImage bufferedImage(Image image, boolean indexed) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    BufferedImage output;
+    if (image instanceof IndexedImage && indexed) {
+      int[] palette = ((IndexedImage) image).getPalette();
+      byte[] red = new byte[palette.length];
+      byte[] green = new byte[palette.length];
+      byte[] blue = new byte[palette.length];
+      for (int i = 0; i < palette.length; i++) {
+        red[i] = (byte) (palette[i] >> 16);
+        green[i] = (byte) (palette[i] >> 8);
+        blue[i] = (byte) palette[i];
+      }
+      output = wrapBytes(((IndexedImage) image).getIndices(), width, height,
+              new IndexColorModel(8, palette.length, red, green, blue));
+    } else if (image instanceof GreyscaleImage) {
+      output = wrapBytes(((GreyscaleImage) image).getGreyValues(), width, height,
+              new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY), new int[]{8},
+                      false, true, Transparency.OPAQUE, DataBuffer.TYPE_BYTE));
+    } else {
+      output = wrapColors(packColors(image), width, height);
+    }
+    return output;
+  }
+
+  /**
+   * This method opens a file to be written one band of rows at a time, with the same options and
+   * formats as writeImage. The file is created when the first band is written.
+   *
+   * @param filename the path of the file, ending with ".png" or a Netpbm extension.
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @param options  the settings of the encoder.
+   * @return a writer of the bands of the image, which should be closed to finish the file.
+   * @throws IOException              if the name of the file has no extension
+   * @throws IllegalArgumentException if an option is not supported by the format of the file, or
+   *                                  if the format cannot be written one band at a time
+   */
+  static BandWriter writeBands(String filename, int width, int height, SaveOptions options)
+          throws IOException, IllegalArgumentException {
+    String extension = extension(filename);
+    checkOptions(extension, options);
+    if (Netpbm.isNetpbm(filename)) {
+      return Netpbm.writeBands(filename, width, height);
+    }
+    if (!canWriteBands(filename, options)) {
+      throw new IllegalArgumentException("Error: " + extension + " files cannot be written in "
+              + "bands");
+    }
+    return new PngBands(filename, width, height, options.getCompression() < 0
+            ? Deflater.DEFAULT_COMPRESSION : options.getCompression());
+  }
+
+  /**
+   * This method checks whether a file can be written one band of rows at a time, which is the
+   * case for Netpbm files and for PNG files that are not interlaced.
+   *
+   * @param filename the path of the file.
+   * @param options  the settings of the encoder.
+   * @return true if the file can be written by writeBands.
+   */
+  static boolean canWriteBands(String filename, SaveOptions options) {
+    if (Netpbm.isNetpbm(filename)) {
+      return true;
+    }
+    try {
+      return extension(filename).equals("png") && !options.isProgressive();
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * This helper method gets the format of a file from its extension, which is the part of the
+   * name after its last dot.
+   *
+   * @param filename the path of the file
+   * @return the extension in lower case
+   * @throws IOException if the name of the file has no extension
+   */
+  private static String extension(String filename) throws IOException {
+    String name = new File(filename).getName();
+    int dot = name.lastIndexOf('.');
+    if (dot < 0 || dot == name.length() - 1) {
+      throw new IOException("Error: file name has no extension");
+    }
+    return name.substring(dot + 1).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * This helper method checks that every option that is set is supported by a format: the quality
+   * by JPEG, the compression level by PNG and progressive mode by JPEG, PNG and GIF.
+   *
+   * @param extension the extension of the file, in lower case
+   * @param options   the settings of the encoder
+   * @throws IllegalArgumentException if an option is not supported by the format
+   */
+  private static void checkOptions(String extension, SaveOptions options)
+          throws IllegalArgumentException {
+    boolean jpeg = extension.equals("jpg") || extension.equals("jpeg");
+    if (options.getQuality() >= 0 && !jpeg) {
+      throw new IllegalArgumentException("Error: quality is only supported for JPEG files");
+    }
+    if (options.getCompression() >= 0 && !extension.equals("png")) {
+      throw new IllegalArgumentException("Error: compression is only supported for PNG files");
+    }
+    if (options.isProgressive() && !jpeg && !extension.equals("png")
+            && !extension.equals("gif")) {
+      throw new IllegalArgumentException("Error: progressive is only supported for JPEG, PNG and "
+              + "GIF files");
+    }
+  }
+
+  /**
+   * This helper method encodes an image into a file with the encoder that the current thread keeps
+   * for the format, looking one up the first time the format is written or when the kept encoder
+   * cannot encode the image. The file is truncated before it is written and closed afterwards, and
+   * the encoder is reset so that it can be used again.
+   *
+   * @param output    the image to encode
+   * @param extension the extension of the file, in lower case
+   * @param filename  the path of the file
+   * @param options   the settings of the encoder
+   * @throws IOException if the file cannot be written or the format is not supported
+   */
+  private static void write(BufferedImage output, String extension, String filename,
+                            SaveOptions options) throws IOException {
+    ImageTypeSpecifier type = ImageTypeSpecifier.createFromRenderedImage(output);
+    Map<String, ImageWriter> writers = WRITERS.get();
+    ImageWriter writer = writers.get(extension);
+    if (writer == null || !writer.getOriginatingProvider().canEncodeImage(type)) {
+      Iterator<ImageWriter> found = ImageIO.getImageWriters(type, extension);
+      if (!found.hasNext()) {
+        throw new IOException("Error: unsupported image format");
+      }
+      if (writer != null) {
+        writer.dispose();
+      }
+      writer = found.next();
+      writers.put(extension, writer);
+    }
+    try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+         ImageOutputStream out = new FileImageOutputStream(file)) {
+      file.setLength(0);
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(output, null, null), writeParam(writer, options));
+    } finally {
+      writer.reset();
+    }
+  }
+
+  /**
+   * This helper method turns the settings of the encoder into the parameters of a writer.
+   *
+   * @param writer  the writer that encodes the image
+   * @param options the settings of the encoder
+   * @return the parameters, or null to keep every default of the writer
+   */
+  private static ImageWriteParam writeParam(ImageWriter writer, SaveOptions options) {
+    if (options.getQuality() < 0 && options.getCompression() < 0 && !options.isProgressive()) {
+      return null;
+    }
+    ImageWriteParam param = writer.getDefaultWriteParam();
+    if (options.getQuality() >= 0 || options.getCompression() >= 0) {
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      if (param.getCompressionType() == null) {
+        param.setCompressionType(param.getCompressionTypes()[0]);
+      }
+    }
+    if (options.getQuality() >= 0) {
+      param.setCompressionQuality(options.getQuality() / 100f);
+    }
+    if (options.getCompression() >= 0) {
+      // the PNG writer uses the deflate level (1 - quality) * 9, rounded down
+      param.setCompressionQuality(Math.max(0f, 1f - (options.getCompression() + 0.5f) / 9));
+    }
+    if (options.isProgressive()) {
+      param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+    }
+    return param;
+  }
+
+  /**
+   * This helper method creates an image whose raster wraps an array of 8-bit samples, one per
+   * pixel, without copying it.
+   *
+   * @param data   the samples, row by row
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param model  the color model that turns a sample into a color
+   * @return the image backed by the array
+   */
+  private static BufferedImage wrapBytes(byte[] data, int width, int height, ColorModel model) {
+    WritableRaster raster = Raster.createInterleavedRaster(new DataBufferByte(data, data.length),
+            width, height, width, 1, new int[]{0}, null);
+    return new BufferedImage(model, raster, false, null);
+  }
+
+  /**
+   * This helper method creates a 24-bit color image whose raster wraps an array of packed colors
+   * (0xRRGGBB) without copying it.
+   *
+   * @param colors the colors, row by row
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return the image backed by the array
+   */
+  private static BufferedImage wrapColors(int[] colors, int width, int height) {
+    DirectColorModel model = new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+    WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(colors, colors.length),
+            width, height, width, model.getMasks(), null);
+    return new BufferedImage(model, raster, false, null);
+  }
+
+  /**
+   * This helper method copies the colors of an image into one array of packed colors, row by row.
+   * Generated images are copied a row at a time, and the rows are copied in parallel.
+   *
+   * @param image the image to copy
+   * @return the packed colors (0xRRGGBB) of the image
+   */
+  private static int[] packColors(Image image) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int[] colors = new int[width * height];
+    IntStream.range(0, height).parallel().forEach(i -> {
+      if (image instanceof GeneratedImage) {
+        int[] row = new int[width];
+        ((GeneratedImage) image).getRGBRow(i, row);
+        System.arraycopy(row, 0, colors, i * width, width);
+        return;
+      }
+      for (int j = 0; j < width; j++) {
+        colors[i * width + j] = image.getRGB(i, j);
+      }
+    });
+    return colors;
+  }
+
+  /**
+   * Write a binary image as a raw PBM (P4) file. Each row is written straight from the words of
+   * the image, eight pixels per byte, with a set bit for a black pixel as PBM requires.
+   *
+   * @param image the image to write
+   * @param out   the stream to write to, which is not closed
+   * @throws IOException if the stream cannot be written to
+   */
+  public static void writePbm(BinaryImage image, OutputStream out) throws IOException {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    out.write(("P4\n" + width + " " + height + "\n").getBytes(StandardCharsets.US_ASCII));
+    byte[] row = new byte[(width + 7) / 8];
+    for (int i = 0; i < height; i++) {
+      packRow(image, i, row);
+      for (int k = 0; k < row.length; k++) {
+        row[k] = (byte) ~row[k];
+      }
+      out.write(row);
+    }
+  }
+
+  /**
+   * Write a binary image as a 1-bit greyscale PNG file. Each row is packed straight from the
+   * words of the image, eight pixels per byte, and deflated as it is written.
+   *
+   * @param image the image to write
+   * @param out   the stream to write to, which is not closed
+   * @throws IOException if the stream cannot be written to
+   */
+  public static void writeBinaryPng(BinaryImage image, OutputStream out) throws IOException {
+    writeBinaryPng(image, out, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * This helper method writes a binary image as a 1-bit greyscale PNG file with the given deflate
+   * level.
+   *
+   * @param image the image to write
+   * @param out   the stream to write to, which is not closed
+   * @param level the deflate level from 0 to 9, or -1 for the default
+   * @throws IOException if the stream cannot be written to
+   */
+  private static void writeBinaryPng(BinaryImage image, OutputStream out, int level)
+          throws IOException {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    byte[] bits = new byte[(width + 7) / 8];
+    byte[] row = new byte[1 + bits.length];
+    try (PngWriter png = new PngWriter(out, width, height, 1, 0, level)) {
+      for (int i = 0; i < height; i++) {
+        packRow(image, i, bits);
+        System.arraycopy(bits, 0, row, 1, bits.length);
+        png.writeRow(row);
+      }
+      png.finish();
+    }
+  }
+
+  /**
+   * Write a generated image as a 24-bit color PNG file. Rows are computed one at a time and
+   * deflated as they are computed, and the compressed data is written in image data chunks of at
+   * most 64 KiB, so the memory used does not depend on the size of the image.
+   *
+   * @param image the image to write
+   * @param out   the stream to write to, which is not closed
+   * @throws IOException if the stream cannot be written to
+   */
+  public static void writeGeneratedPng(GeneratedImage image, OutputStream out)
+          throws IOException {
+    writeGeneratedPng(image, out, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * This helper method writes a generated image as a 24-bit color PNG file with the given deflate
+   * level.
+   *
+   * @param image the image to write
+   * @param out   the stream to write to, which is not closed
+   * @param level the deflate level from 0 to 9, or -1 for the default
+   * @throws IOException if the stream cannot be written to
+   */
+  private static void writeGeneratedPng(GeneratedImage image, OutputStream out, int level)
+          throws IOException {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int[] colors = new int[width];
+    byte[] row = new byte[1 + 3 * width];
+    try (PngWriter png = new PngWriter(out, width, height, 8, 2, level)) {
+      for (int i = 0; i < height; i++) {
+        image.getRGBRow(i, colors);
+        for (int j = 0; j < width; j++) {
+          row[1 + 3 * j] = (byte) (colors[j] >> 16);
+          row[2 + 3 * j] = (byte) (colors[j] >> 8);
+          row[3 + 3 * j] = (byte) colors[j];
+        }
+        png.writeRow(row);
+      }
+      png.finish();
+    }
+  }
+
+  /**
+   * This helper method packs one row of a binary image into bytes, eight pixels per byte with the
+   * leftmost pixel in the most significant bit and a set bit for a white pixel.
+   *
+   * @param image the image to read
+   * @param row   the row to pack
+   * @param bytes the bytes to fill, one for every eight pixels of the row
+   */
+  static void packRow(BinaryImage image, int row, byte[] bytes) {
+    long[] words = image.getWords();
+    int start = row * image.getWordsPerRow();
+    for (int k = 0; k < bytes.length; k++) {
+      bytes[k] = (byte) (words[start + (k >>> 3)] >>> (56 - 8 * (k & 7)));
+    }
+  }
+
+  /**
+   * Get a buffered image from an image, for display, without converting it to a 3D array. Indexed
+   * images are wrapped with their palette, and all other images are packed into one array of
+   * colors. Greyscale images are packed as well, since the grey color space of Java is linear and
+   * would be shown lighter than the saved file.
+   *
+   * @param image the image to convert
+   * @return a buffered image with the pixels of the image
+   */
+  public static BufferedImage getBufferedImage(Image image) {
+    if (image instanceof IndexedImage) {
+      return bufferedImage(image, true);
+    }
+    return wrapColors(packColors(image), image.getImageWidth(), image.getImageHeight());
+  }
+
+  /**
+   * Read a small copy of an image file for display, decoded directly at a reduced size. Only every
+   * so many rows and columns are read, so that neither side is larger than the given size; the
+   * file is read at full size if it already fits. ImageIO formats are subsampled by the decoder,
+   * and Netpbm and imgraw files are read one band of rows at a time.
+   *
+   * @param filename the path of the file.
+   * @param size     the largest width and height of the copy, in pixels.
+   * @return the reduced image as a tiled image, or the whole image if it fits.
+   * @throws IOException              if the file cannot be read or is not in a supported format
+   * @throws IllegalArgumentException if the size is less than one.
+   */
+  public static Image readPreview(String filename, int size)
+          throws IOException, IllegalArgumentException {
+    if (size < 1) {
+      throw new IllegalArgumentException("Error: a preview needs a positive size");
+    }
+    if (Netpbm.isNetpbm(filename) || ImgRaw.isImgRaw(filename)) {
+      try (BandReader bands = readBands(filename)) {
+        int step = (Math.max(bands.getWidth(), bands.getHeight()) + size - 1) / size;
+        if (step <= 1) {
+          return bands.next(bands.getHeight());
+        }
+        int width = (bands.getWidth() + step - 1) / step;
+        int height = (bands.getHeight() + step - 1) / step;
+        IOException[] failure = new IOException[1];
+        TiledImage preview = TiledImageImpl.fromRows(width, height, (row, i) -> {
+          if (failure[0] != null) {
+            return;
+          }
+          try {
+            Image band = bands.next(step);
+            for (int j = 0; j < width; j++) {
+              row[j] = band.getRGB(0, j * step);
+            }
+          } catch (IOException e) {
+            failure[0] = e;
+          }
+        });
+        if (failure[0] != null) {
+          throw failure[0];
+        }
+        return preview;
+      }
+    }
+    try (ImageInputStream in = new FileImageInputStream(new File(filename))) {
+      ImageReader reader = reader(in);
+      try {
+        int step = (Math.max(reader.getWidth(0), reader.getHeight(0)) + size - 1) / size;
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (step > 1) {
+          param.setSourceSubsampling(step, step, 0, 0);
+        }
+        BufferedImage input = reader.read(0, param);
+        return TiledImageImpl.fromRows(input.getWidth(), input.getHeight(),
+                (row, i) -> readRow(input, i, row));
+      } finally {
+        reader.dispose();
       }
     }
-    String extension = filename.substring(filename.indexOf(".") + 1);
-    ImageIO.write(output, extension, new File(filename));
   }
 
   /**
@@ -117,17 +865,229 @@ public class ImageUtil {
    * @throws IOException if the file cannot be written to the provided path
    */
   public static BufferedImage getBufferedImage(int[][][] rgb) throws IOException {
-    BufferedImage output = new BufferedImage(rgb[0].length, rgb.length, BufferedImage.TYPE_INT_RGB);
-    for (int i = 0; i < rgb.length; i++) {
-      for (int j = 0; j < rgb[0].length; j++) {
+    int width = rgb[0].length;
+    int height = rgb.length;
+    int[] colors = new int[width * height];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
         int r = rgb[i][j][0];
         int g = rgb[i][j][1];
         int b = rgb[i][j][2];
-        int color = (r << 16) + (g << 8) + b;
-        output.setRGB(j, i, color);
+        colors[i * width + j] = (r << 16) + (g << 8) + b;
+      }
+    }
+    return wrapColors(colors, width, height);
+  }
+
+  /**
+   * This class reads an image one band of rows at a time by decoding only the region of each band.
+   * The file stays open until the reader is closed.
+   */
+  private static final class RegionBands implements BandReader {
+
+    /**
+     * The stream of the file.
+     */
+    private final ImageInputStream in;
+
+    /**
+     * The decoder of the file.
+     */
+    private final ImageReader reader;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The row that the next band starts at.
+     */
+    private int nextRow;
+
+    /**
+     * This constructor opens a file and reads the size of its image.
+     *
+     * @param filename the path of the file.
+     * @throws IOException if the file cannot be read or is not in a supported format
+     */
+    RegionBands(String filename) throws IOException {
+      this.in = new FileImageInputStream(new File(filename));
+      try {
+        this.reader = reader(in);
+        this.width = reader.getWidth(0);
+        this.height = reader.getHeight(0);
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+    }
+
+    /**
+     * This method gets the width of the image.
+     *
+     * @return the width of the image in pixels.
+     */
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    /**
+     * This method gets the height of the image.
+     *
+     * @return the height of the image in pixels.
+     */
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    /**
+     * This method decodes the region of the next band of rows.
+     *
+     * @param rows the number of rows to read, which is cut to the rows that are left.
+     * @return the rows as a tiled image, the same as readImageFile gives for the whole file.
+     * @throws IOException if the file cannot be decoded.
+     */
+    @Override
+    public Image next(int rows) throws IOException {
+      int count = Math.min(rows, height - nextRow);
+      ImageReadParam param = reader.getDefaultReadParam();
+      param.setSourceRegion(new Rectangle(0, nextRow, width, count));
+      BufferedImage band = reader.read(0, param);
+      nextRow += count;
+      return TiledImageImpl.fromRows(width, count, (row, i) -> readRow(band, i, row));
+    }
+
+    /**
+     * This method releases the decoder and closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+      reader.dispose();
+      in.close();
+    }
+  }
+
+  /**
+   * This class writes a PNG file one band of rows at a time. Binary images are written with one
+   * bit per pixel, greyscale images with a single 8-bit grey channel and all other images as
+   * 24-bit color, the same as writeImage.
+   */
+  private static final class PngBands implements BandWriter {
+
+    /**
+     * The path of the file.
+     */
+    private final String filename;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The deflate level from 0 to 9, or -1 for the default.
+     */
+    private final int level;
+
+    /**
+     * The stream of the file, or null before the first band.
+     */
+    private OutputStream out;
+
+    /**
+     * The encoder of the file, or null before the first band.
+     */
+    private PngWriter png;
+
+    /**
+     * One row of the file, starting with its filter type.
+     */
+    private byte[] row;
+
+    /**
+     * This constructor sets up a writer without creating the file yet.
+     *
+     * @param filename the path of the file.
+     * @param width    the width of the image.
+     * @param height   the height of the image.
+     * @param level    the deflate level from 0 to 9, or -1 for the default.
+     */
+    PngBands(String filename, int width, int height, int level) {
+      this.filename = filename;
+      this.width = width;
+      this.height = height;
+      this.level = level;
+    }
+
+    /**
+     * This method encodes the next band of rows, creating the file and writing its header at the
+     * first band.
+     *
+     * @param band the rows that follow the rows of the previous band.
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void write(Image band) throws IOException {
+      if (png == null) {
+        int bitDepth = band instanceof BinaryImage ? 1 : 8;
+        int colorType = band instanceof GreyscaleImage ? 0 : 2;
+        out = new BufferedOutputStream(new FileOutputStream(filename));
+        png = new PngWriter(out, width, height, bitDepth, colorType, level);
+        row = new byte[1 + (bitDepth == 1 ? (width + 7) / 8 : colorType == 0 ? width : 3 * width)];
+      }
+      byte[] bits = band instanceof BinaryImage ? new byte[row.length - 1] : null;
+      byte[] grey = bits == null && band instanceof GreyscaleImage
+              ? ((GreyscaleImage) band).getGreyValues() : null;
+      for (int i = 0; i < band.getImageHeight(); i++) {
+        if (bits != null) {
+          packRow((BinaryImage) band, i, bits);
+          System.arraycopy(bits, 0, row, 1, bits.length);
+        } else if (grey != null) {
+          System.arraycopy(grey, i * width, row, 1, width);
+        } else {
+          for (int j = 0; j < width; j++) {
+            int color = band.getRGB(i, j);
+            row[1 + 3 * j] = (byte) (color >> 16);
+            row[2 + 3 * j] = (byte) (color >> 8);
+            row[3 + 3 * j] = (byte) color;
+          }
+        }
+        png.writeRow(row);
+      }
+    }
+
+    /**
+     * This method writes the end of the file and closes it.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+      if (png == null) {
+        return;
+      }
+      try {
+        png.finish();
+      } finally {
+        png.close();
+        out.close();
       }
     }
-    return output;
   }
 
-}
\ No newline at end of file
+}
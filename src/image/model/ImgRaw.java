@@ -0,0 +1,364 @@
+package image.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * This class reads and writes imgraw files, an uncompressed format for keeping images between the
+ * steps of a long script or between programs on the same machine. A file starts with a header of
+ * 24 bytes, in big-endian order: the six characters "IMGRAW", a version byte, a layout byte, the
+ * width, the height and the number of channels as 4-byte integers, and a CRC-32 checksum of the
+ * header before it and of the raster. The raster follows the header with one unsigned byte per
+ * channel, the channels of each pixel next to each other and the pixels stored row by row; grey
+ * images have one channel and all other images have three. Files are mapped into memory and read
+ * as mapped images without decoding or copying any pixels, and are written from one buffer.
+ */
+public final class ImgRaw {
+
+  /**
+   * The number of bytes of the header, which is where the raster starts.
+   */
+  static final int HEADER_SIZE = 24;
+
+  /**
+   * The characters that every imgraw file starts with.
+   */
+  private static final byte[] MAGIC = "IMGRAW".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * The version of the format that is written and read.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The layout of a raster that stores the channels of each pixel next to each other, row by row.
+   * It is the only layout so far.
+   */
+  private static final int INTERLEAVED = 0;
+
+  /**
+   * The position in the header of the checksum, which covers the bytes before it.
+   */
+  private static final int CHECKSUM = 20;
+
+  /**
+   * This class only holds static methods and cannot be instantiated.
+   */
+  private ImgRaw() {
+  }
+
+  /**
+   * This method checks whether a file is an imgraw file, from its extension.
+   *
+   * @param filename the path of the file.
+   * @return true if the file name ends with ".imgraw".
+   */
+  public static boolean isImgRaw(String filename) {
+    return Paths.get(filename).getFileName().toString().toLowerCase(Locale.ROOT)
+            .endsWith(".imgraw");
+  }
+
+  /**
+   * This method maps an imgraw file into a mapped image. The checksum is checked against the
+   * mapped raster, which is read once but not copied.
+   *
+   * @param filename the path of the file.
+   * @return an image backed by the mapping of the file.
+   * @throws IOException if the file cannot be read, is not a valid imgraw file or does not match
+   *                     its checksum.
+   */
+  public static MappedImage read(String filename) throws IOException {
+    try (BandReader bands = readBands(filename)) {
+      return (MappedImage) bands.next(bands.getHeight());
+    }
+  }
+
+  /**
+   * This method maps an imgraw file to be read one band of rows at a time. Each band is a mapped
+   * image over its rows, and the checksum is checked once the last row has been read.
+   *
+   * @param filename the path of the file.
+   * @return a reader of the bands of the image.
+   * @throws IOException if the file cannot be read or its header is not valid.
+   */
+  static BandReader readBands(String filename) throws IOException {
+    return new MappedBands(map(filename));
+  }
+
+  /**
+   * This method reads the width and height of an imgraw file from its header.
+   *
+   * @param filename the path of the file.
+   * @return the width and the height of the image.
+   * @throws IOException if the file cannot be read or is not a valid imgraw file.
+   */
+  public static int[] readSize(String filename) throws IOException {
+    int[] header = readHeader(map(filename));
+    return new int[]{header[0], header[1]};
+  }
+
+  /**
+   * This method writes an image as an imgraw file. Greyscale, binary and grey mapped images are
+   * written with one channel and all other images with three. The header and raster are put into
+   * one direct buffer and handed to the channel of a new file next to the given one, which then
+   * replaces the given file, so that readers never see a file that is half written and images
+   * still mapped from the old file keep their pixels.
+   *
+   * @param image    the image to write.
+   * @param filename the path of the file, ending with ".imgraw".
+   * @throws IOException              if the file cannot be written.
+   * @throws IllegalArgumentException if the image is too large for a file that can be mapped.
+   */
+  public static void write(Image image, String filename)
+          throws IOException, IllegalArgumentException {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int channels = image instanceof GreyscaleImage || image instanceof BinaryImage
+            || (image instanceof MappedImage && ((MappedImage) image).getChannels() == 1) ? 1 : 3;
+    long size = HEADER_SIZE + (long) width * height * channels;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Error: image is too large for an imgraw file");
+    }
+    ByteBuffer data = ByteBuffer.allocateDirect((int) size);
+    data.put(MAGIC).put((byte) VERSION).put((byte) INTERLEAVED).putInt(width).putInt(height)
+            .putInt(channels).putInt(0);
+    putRaster(image, channels, data);
+    data.flip();
+    CRC32 checksum = new CRC32();
+    ByteBuffer header = data.duplicate();
+    header.limit(CHECKSUM);
+    checksum.update(header);
+    ByteBuffer raster = data.duplicate();
+    raster.position(HEADER_SIZE);
+    checksum.update(raster);
+    data.putInt(CHECKSUM, (int) checksum.getValue());
+    Path target = Paths.get(filename).toAbsolutePath();
+    Path temporary = target.resolveSibling(target.getFileName() + "."
+            + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.WRITE)) {
+        while (data.hasRemaining()) {
+          channel.write(data);
+        }
+      }
+      try {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * This helper method puts the raster of an image into a buffer. The raster of a mapped image
+   * with the same number of channels and the grey values of a greyscale image are copied in bulk;
+   * other images are copied one row at a time.
+   *
+   * @param image    the image to copy.
+   * @param channels the number of channels to write, which is 1 or 3.
+   * @param data     the buffer to put the raster into.
+   */
+  private static void putRaster(Image image, int channels, ByteBuffer data) {
+    if (image instanceof MappedImage && ((MappedImage) image).getChannels() == channels) {
+      data.put(((MappedImage) image).getRaster());
+      return;
+    }
+    if (image instanceof GreyscaleImage) {
+      data.put(((GreyscaleImage) image).getGreyValues());
+      return;
+    }
+    int width = image.getImageWidth();
+    byte[] row = new byte[width * channels];
+    for (int i = 0; i < image.getImageHeight(); i++) {
+      for (int j = 0; j < width; j++) {
+        int color = image.getRGB(i, j);
+        if (channels == 1) {
+          row[j] = (byte) color;
+        } else {
+          row[3 * j] = (byte) (color >> 16);
+          row[3 * j + 1] = (byte) (color >> 8);
+          row[3 * j + 2] = (byte) color;
+        }
+      }
+      data.put(row);
+    }
+  }
+
+  /**
+   * This helper method maps a whole file into memory.
+   *
+   * @param filename the path of the file.
+   * @return a read-only buffer over the contents of the file.
+   * @throws IOException if the file cannot be read or is too large to map.
+   */
+  private static ByteBuffer map(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Error: file is too large");
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  /**
+   * This helper method reads the header of an imgraw file and checks that the file holds the
+   * whole raster.
+   *
+   * @param data the contents of the file.
+   * @return the width, the height, the number of channels and the checksum of the image.
+   * @throws IOException if the header is not valid or the file is not as long as it says.
+   */
+  private static int[] readHeader(ByteBuffer data) throws IOException {
+    if (data.remaining() < HEADER_SIZE) {
+      throw new IOException("Error: not an imgraw file");
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (data.get(i) != MAGIC[i]) {
+        throw new IOException("Error: not an imgraw file");
+      }
+    }
+    if (data.get(MAGIC.length) != VERSION) {
+      throw new IOException("Error: unsupported imgraw version " + data.get(MAGIC.length));
+    }
+    if (data.get(MAGIC.length + 1) != INTERLEAVED) {
+      throw new IOException("Error: unsupported imgraw layout " + data.get(MAGIC.length + 1));
+    }
+    int width = data.getInt(8);
+    int height = data.getInt(12);
+    int channels = data.getInt(16);
+    if (width < 1 || height < 1 || (channels != 1 && channels != 3)) {
+      throw new IOException("Error: invalid imgraw header");
+    }
+    if (data.remaining() != HEADER_SIZE + (long) width * height * channels) {
+      throw new IOException("Error: imgraw file does not match its size");
+    }
+    return new int[]{width, height, channels, data.getInt(CHECKSUM)};
+  }
+
+  /**
+   * This class reads the bands of a mapped imgraw file as mapped images over their rows, and
+   * checks the checksum of the file as the rows go by.
+   */
+  private static final class MappedBands implements BandReader {
+
+    /**
+     * The contents of the file.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The number of channels of each pixel.
+     */
+    private final int channels;
+
+    /**
+     * The checksum stored in the header.
+     */
+    private final int expected;
+
+    /**
+     * The checksum of the header and of the rows read so far.
+     */
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * The row that the next band starts at.
+     */
+    private int nextRow;
+
+    /**
+     * This constructor reads the header of a mapped file.
+     *
+     * @param data the contents of the file.
+     * @throws IOException if the header is not valid.
+     */
+    MappedBands(ByteBuffer data) throws IOException {
+      int[] header = readHeader(data);
+      this.data = data;
+      this.width = header[0];
+      this.height = header[1];
+      this.channels = header[2];
+      this.expected = header[3];
+      ByteBuffer checked = data.duplicate();
+      checked.limit(CHECKSUM);
+      checksum.update(checked);
+    }
+
+    /**
+     * This method gets the width of the image.
+     *
+     * @return the width of the image in pixels.
+     */
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    /**
+     * This method gets the height of the image.
+     *
+     * @return the height of the image in pixels.
+     */
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    /**
+     * This method maps the next band of rows, without copying them.
+     *
+     * @param rows the number of rows to read, which is cut to the rows that are left.
+     * @return a mapped image over the rows of the band.
+     * @throws IOException if the band is the last one and the file does not match its checksum.
+     */
+    @Override
+    public Image next(int rows) throws IOException {
+      int count = Math.min(rows, height - nextRow);
+      int rowBytes = width * channels;
+      ByteBuffer band = data.duplicate();
+      band.limit(HEADER_SIZE + (nextRow + count) * rowBytes);
+      band.position(HEADER_SIZE + nextRow * rowBytes);
+      checksum.update(band.duplicate());
+      nextRow += count;
+      if (nextRow == height && (int) checksum.getValue() != expected) {
+        throw new IOException("Error: imgraw file does not match its checksum");
+      }
+      return new MappedImage(band, width, count, channels);
+    }
+
+    /**
+     * This method does nothing, since the mapping is released once it is no longer used.
+     */
+    @Override
+    public void close() {
+      // A mapped buffer cannot be unmapped explicitly.
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+package image.model;
+
+/**
+ * This interface represents a paletted image. Each pixel stores the index of its color in a
+ * palette of at most 256 colors, so the image takes one byte per pixel and can be written as an
+ * indexed file. It still supports every method of the image interface, which returns the palette
+ * color of each pixel.
+ */
+public interface IndexedImage extends Image {
+
+  /**
+   * This method gets the palette index of a single pixel of this image.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the palette index of the pixel, between 0 and the palette size minus one.
+   */
+  int getIndex(int row, int column);
+
+  /**
+   * This method gets the palette indices of this image as one unsigned byte per pixel, stored row
+   * by row. The returned array is the one backing this image and must not be modified.
+   *
+   * @return the palette indices of this image.
+   */
+  byte[] getIndices();
+
+  /**
+   * This method gets the palette of this image, with every color packed into one integer
+   * (0xRRGGBB). The returned array is the one backing this image and must not be modified.
+   *
+   * @return the palette of this image.
+   */
+  int[] getPalette();
+
+}
@@ -0,0 +1,145 @@
+package image.model;
+
+/**
+ * This class represents the implementation of the indexed image interface. It stores one unsigned
+ * byte per pixel, row by row, that points into a palette of packed colors. The three-channel
+ * integer array is only built when it is asked for.
+ */
+public class IndexedImageImpl implements IndexedImage {
+
+  /**
+   * The palette indices for this image, one unsigned byte per pixel stored row by row.
+   */
+  private final byte[] indices;
+
+  /**
+   * The palette for this image, with every color packed into one integer (0xRRGGBB).
+   */
+  private final int[] palette;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * This method constructs an IndexedImageImpl object from the given palette indices and palette.
+   * The arrays are used directly, so they must not be modified after the image is created.
+   *
+   * @param indices the palette indices of the image, one unsigned byte per pixel stored row by row.
+   * @param palette the palette of the image, with every color packed into one integer (0xRRGGBB).
+   * @param width   the width of the image.
+   * @param height  the height of the image.
+   * @throws IllegalArgumentException if the number of indices does not match the given width and
+   *                                  height, or if the palette is empty or has more than 256
+   *                                  colors.
+   */
+  public IndexedImageImpl(byte[] indices, int[] palette, int width, int height)
+          throws IllegalArgumentException {
+    if (width < 1 || height < 1 || indices.length != width * height) {
+      throw new IllegalArgumentException("Error: palette indices do not match the image size");
+    }
+    if (palette.length < 1 || palette.length > 256) {
+      throw new IllegalArgumentException("Error: a palette must have between 1 and 256 colors");
+    }
+    this.indices = indices;
+    this.palette = palette;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is built from the palette
+   * each time it is called.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int color = getRGB(i, j);
+        image[i][j][0] = (color >> 16) & 0xFF;
+        image[i][j][1] = (color >> 8) & 0xFF;
+        image[i][j][2] = color & 0xFF;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image from the palette, packed into one
+   * integer (0xRRGGBB).
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    return this.palette[getIndex(row, column)];
+  }
+
+  /**
+   * This method gets the palette index of a single pixel of this image.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the palette index of the pixel, between 0 and the palette size minus one.
+   */
+  @Override
+  public int getIndex(int row, int column) {
+    return this.indices[row * this.width + column] & 0xFF;
+  }
+
+  /**
+   * This method gets the palette indices of this image as one unsigned byte per pixel, stored row
+   * by row. The returned array is the one backing this image and must not be modified.
+   *
+   * @return the palette indices of this image.
+   */
+  @Override
+  public byte[] getIndices() {
+    return this.indices;
+  }
+
+  /**
+   * This method gets the palette of this image, with every color packed into one integer
+   * (0xRRGGBB). The returned array is the one backing this image and must not be modified.
+   *
+   * @return the palette of this image.
+   */
+  @Override
+  public int[] getPalette() {
+    return this.palette;
+  }
+
+}
@@ -0,0 +1,138 @@
+package image.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents an image whose pixels stay in a byte buffer, usually the memory mapping of
+ * an imgraw file, instead of being copied onto the heap. The buffer holds one unsigned byte per
+ * channel, with the channels of each pixel next to each other and the pixels stored row by row. An
+ * image with one channel is grey; an image with three channels holds red, green and blue.
+ */
+public class MappedImage implements Image {
+
+  /**
+   * The pixels of this image, from the first channel of the first pixel to the last channel of
+   * the last pixel.
+   */
+  private final ByteBuffer raster;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * The number of channels of each pixel, which is 1 or 3.
+   */
+  private final int channels;
+
+  /**
+   * This method constructs a MappedImage object over the given buffer. The buffer is used
+   * directly, so its contents must not change while the image is used.
+   *
+   * @param raster   the pixels of the image, starting at the position of the buffer.
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @param channels the number of channels of each pixel, which is 1 or 3.
+   * @throws IllegalArgumentException if the buffer does not hold the pixels of an image of the
+   *                                  given size.
+   */
+  MappedImage(ByteBuffer raster, int width, int height, int channels)
+          throws IllegalArgumentException {
+    if (width < 1 || height < 1 || (channels != 1 && channels != 3)
+            || raster.remaining() != (long) width * height * channels) {
+      throw new IllegalArgumentException("Error: raster does not match the image size");
+    }
+    this.raster = raster.slice();
+    this.width = width;
+    this.height = height;
+    this.channels = channels;
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is built from the buffer
+   * each time it is called.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int color = getRGB(i, j);
+        image[i][j][0] = (color >> 16) & 0xFF;
+        image[i][j][1] = (color >> 8) & 0xFF;
+        image[i][j][2] = color & 0xFF;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * red, green and blue channels stored in 8 bits each (0xRRGGBB). The grey value of a grey image
+   * is repeated in all three channels.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    int index = (row * this.width + column) * this.channels;
+    if (this.channels == 1) {
+      int value = this.raster.get(index) & 0xFF;
+      return (value << 16) | (value << 8) | value;
+    }
+    return (this.raster.get(index) & 0xFF) << 16 | (this.raster.get(index + 1) & 0xFF) << 8
+            | (this.raster.get(index + 2) & 0xFF);
+  }
+
+  /**
+   * This method gets the number of channels of each pixel of this image.
+   *
+   * @return 1 for a grey image and 3 for a color image.
+   */
+  int getChannels() {
+    return this.channels;
+  }
+
+  /**
+   * This method gets a read-only view of the pixels of this image, from the first channel of the
+   * first pixel to the last channel of the last pixel.
+   *
+   * @return the pixels of this image.
+   */
+  ByteBuffer getRaster() {
+    return this.raster.asReadOnlyBuffer();
+  }
+
+}
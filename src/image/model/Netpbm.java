@@ -0,0 +1,654 @@
+package image.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * This class reads and writes Netpbm files without going through ImageIO. It reads all six
+ * formats: plain (P1, P2, P3) and raw (P4, P5, P6) bitmaps, greymaps and pixmaps, with samples of
+ * up to 16 bits that are scaled to 8 bits. Files are mapped into memory and decoded straight from
+ * the mapping, bitmaps into binary images, greymaps into greyscale images and pixmaps into tiled
+ * images. It writes the raw formats, one row at a time through a direct buffer: ".pbm" files hold
+ * binary images, ".pgm" files hold greyscale images, ".ppm" files hold any image in color, and
+ * ".pnm" files take the smallest of the three that can hold the image.
+ */
+public final class Netpbm {
+
+  /**
+   * The size in bytes of the buffer that rows are written through.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * This class only holds static methods and cannot be instantiated.
+   */
+  private Netpbm() {
+  }
+
+  /**
+   * This method checks whether a file is a Netpbm file, from its extension.
+   *
+   * @param filename the path of the file.
+   * @return true if the file name ends with ".pbm", ".pgm", ".ppm" or ".pnm".
+   */
+  public static boolean isNetpbm(String filename) {
+    String name = Paths.get(filename).getFileName().toString().toLowerCase(Locale.ROOT);
+    return name.endsWith(".pbm") || name.endsWith(".pgm") || name.endsWith(".ppm")
+            || name.endsWith(".pnm");
+  }
+
+  /**
+   * This method reads a Netpbm file.
+   *
+   * @param filename the path of the file.
+   * @return a binary image for a bitmap, a greyscale image for a greymap and a tiled image for a
+   *         pixmap.
+   * @throws IOException if the file cannot be read or is not a valid Netpbm file.
+   */
+  public static Image read(String filename) throws IOException {
+    try (BandReader bands = readBands(filename)) {
+      return bands.next(bands.getHeight());
+    }
+  }
+
+  /**
+   * This method opens a Netpbm file to be read one band of rows at a time. Each band is decoded
+   * from the mapped file as it is asked for.
+   *
+   * @param filename the path of the file.
+   * @return a reader of the bands of the image.
+   * @throws IOException if the file cannot be read or its header is not valid.
+   */
+  static BandReader readBands(String filename) throws IOException {
+    return new MappedBands(map(filename));
+  }
+
+  /**
+   * This helper method reads the samples of a plain or raw greymap or pixmap.
+   *
+   * @param data     the contents of the file, positioned after the header.
+   * @param format   the format of the file (2, 3, 5 or 6).
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @param maxValue the largest sample value.
+   * @param bytes    the number of bytes of a raw sample.
+   * @param scale    the 8-bit value of every sample value.
+   * @return a greyscale image for a greymap and a tiled image for a pixmap.
+   * @throws IOException           if a raw file is truncated.
+   * @throws IllegalStateException if a sample is missing or larger than the largest value.
+   */
+  private static Image readMap(ByteBuffer data, int format, int width, int height, int maxValue,
+                               int bytes, int[] scale) throws IOException, IllegalStateException {
+    if (format == 2 || format == 5) {
+      int count = width * height;
+      if (format == 5) {
+        checkLength(data, (long) count * bytes);
+      }
+      byte[] grey = new byte[count];
+      if (format == 5 && maxValue == 255) {
+        data.get(grey);
+      } else {
+        for (int i = 0; i < count; i++) {
+          grey[i] = (byte) sample(data, format, bytes, maxValue, scale);
+        }
+      }
+      return new GreyscaleImageImpl(grey, width, height);
+    }
+    if (format == 6) {
+      checkLength(data, (long) width * height * 3 * bytes);
+    }
+    byte[] raw = new byte[width * 3];
+    return TiledImageImpl.fromRows(width, height, (row, i) -> {
+      if (format == 6 && bytes == 1) {
+        data.get(raw);
+        for (int j = 0; j < width; j++) {
+          row[j] = scale[raw[3 * j] & 0xFF] << 16 | scale[raw[3 * j + 1] & 0xFF] << 8
+                  | scale[raw[3 * j + 2] & 0xFF];
+        }
+        return;
+      }
+      for (int j = 0; j < width; j++) {
+        int red = sample(data, format, bytes, maxValue, scale);
+        int green = sample(data, format, bytes, maxValue, scale);
+        int blue = sample(data, format, bytes, maxValue, scale);
+        row[j] = red << 16 | green << 8 | blue;
+      }
+    });
+  }
+
+  /**
+   * This method reads the width and height of a Netpbm file from its header.
+   *
+   * @param filename the path of the file.
+   * @return the width and the height of the image.
+   * @throws IOException if the file cannot be read or is not a valid Netpbm file.
+   */
+  public static int[] readSize(String filename) throws IOException {
+    int[] header = readHeader(map(filename));
+    return new int[]{header[1], header[2]};
+  }
+
+  /**
+   * This method writes an image as a raw Netpbm file, in the format given by the extension of the
+   * file.
+   *
+   * @param image    the image to write.
+   * @param filename the path of the file, ending with ".pbm", ".pgm", ".ppm" or ".pnm".
+   * @throws IOException              if the file cannot be written.
+   * @throws IllegalArgumentException if the image cannot be held by the format of the file.
+   */
+  public static void write(Image image, String filename)
+          throws IOException, IllegalArgumentException {
+    try (BandWriter out = writeBands(filename, image.getImageWidth(), image.getImageHeight())) {
+      out.write(image);
+    }
+  }
+
+  /**
+   * This method opens a raw Netpbm file to be written one band of rows at a time. The format is
+   * chosen from the first band the same way as in write, and the file is created then.
+   *
+   * @param filename the path of the file, ending with ".pbm", ".pgm", ".ppm" or ".pnm".
+   * @param width    the width of the image.
+   * @param height   the height of the image.
+   * @return a writer of the bands of the image, which should be closed to finish the file.
+   */
+  static BandWriter writeBands(String filename, int width, int height) {
+    return new ChannelBands(filename, width, height);
+  }
+
+  /**
+   * This helper method maps a whole file into memory.
+   *
+   * @param filename the path of the file.
+   * @return a read-only buffer over the contents of the file.
+   * @throws IOException if the file cannot be read or is too large to map.
+   */
+  private static ByteBuffer map(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Error: file is too large");
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  /**
+   * This helper method reads the header of a Netpbm file and leaves the buffer at the first
+   * sample.
+   *
+   * @param data the contents of the file.
+   * @return the format (1 to 6), the width, the height and the largest sample value, which is 1
+   *         for bitmaps.
+   * @throws IOException if the header is not valid.
+   */
+  private static int[] readHeader(ByteBuffer data) throws IOException {
+    if (data.remaining() < 2 || data.get() != 'P') {
+      throw new IOException("Error: not a Netpbm file");
+    }
+    int format = data.get() - '0';
+    if (format < 1 || format > 6) {
+      throw new IOException("Error: not a Netpbm file");
+    }
+    int width = readNumber(data);
+    int height = readNumber(data);
+    int maxValue = format == 1 || format == 4 ? 1 : readNumber(data);
+    if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE / 3
+            || maxValue < 1 || maxValue > 65535) {
+      throw new IOException("Error: invalid Netpbm header");
+    }
+    if (format >= 4 && (!data.hasRemaining() || !Character.isWhitespace(data.get()))) {
+      throw new IOException("Error: invalid Netpbm header");
+    }
+    return new int[]{format, width, height, maxValue};
+  }
+
+  /**
+   * This helper method reads a decimal number, skipping the whitespace and comments before it.
+   *
+   * @param data the contents of the file.
+   * @return the number.
+   * @throws IOException if there is no number or it is too large.
+   */
+  private static int readNumber(ByteBuffer data) throws IOException {
+    skipWhitespace(data);
+    long value = 0;
+    int digits = 0;
+    while (data.hasRemaining()) {
+      byte next = data.get(data.position());
+      if (next < '0' || next > '9') {
+        break;
+      }
+      data.get();
+      value = value * 10 + (next - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw new IOException("Error: invalid Netpbm header");
+      }
+      digits++;
+    }
+    if (digits == 0) {
+      throw new IOException("Error: invalid Netpbm header");
+    }
+    return (int) value;
+  }
+
+  /**
+   * This helper method skips whitespace and comments, which run from a '#' to the end of the line.
+   *
+   * @param data the contents of the file.
+   */
+  private static void skipWhitespace(ByteBuffer data) {
+    while (data.hasRemaining()) {
+      byte next = data.get(data.position());
+      if (next == '#') {
+        while (data.hasRemaining() && data.get() != '\n') {
+          // skip the comment
+        }
+      } else if (Character.isWhitespace(next)) {
+        data.get();
+      } else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * This helper method checks that the file holds at least the given number of bytes after the
+   * header.
+   *
+   * @param data   the contents of the file, positioned after the header.
+   * @param length the number of bytes needed.
+   * @throws IOException if the file is shorter.
+   */
+  private static void checkLength(ByteBuffer data, long length) throws IOException {
+    if (data.remaining() < length) {
+      throw new IOException("Error: Netpbm file is truncated");
+    }
+  }
+
+  /**
+   * This helper method reads one sample of a greymap or pixmap and scales it to 8 bits. Since it is
+   * called while the rows of an image are built, a bad sample is reported with an unchecked
+   * exception that the caller turns into an IOException.
+   *
+   * @param data     the contents of the file.
+   * @param format   the format of the file (2, 3, 5 or 6).
+   * @param bytes    the number of bytes of a raw sample.
+   * @param maxValue the largest sample value.
+   * @param scale    the 8-bit value of every sample value.
+   * @return the scaled sample.
+   * @throws IllegalStateException if the sample is missing or larger than the largest value.
+   */
+  private static int sample(ByteBuffer data, int format, int bytes, int maxValue, int[] scale)
+          throws IllegalStateException {
+    int value;
+    if (format <= 3) {
+      try {
+        value = readNumber(data);
+      } catch (IOException e) {
+        throw new IllegalStateException("Error: Netpbm file is truncated");
+      }
+    } else if (bytes == 1) {
+      value = data.get() & 0xFF;
+    } else {
+      value = data.getShort() & 0xFFFF;
+    }
+    if (value > maxValue) {
+      throw new IllegalStateException("Error: Netpbm sample is larger than the largest value");
+    }
+    return scale[value];
+  }
+
+  /**
+   * This helper method reads a plain or raw bitmap into a binary image. In a bitmap a set bit or a
+   * 1 is a black pixel, the opposite of a binary image.
+   *
+   * @param data   the contents of the file, positioned after the header.
+   * @param format the format of the file (1 or 4).
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the binary image.
+   * @throws IOException if the file is truncated or holds something other than bits.
+   */
+  private static BinaryImage readBitmap(ByteBuffer data, int format, int width, int height)
+          throws IOException {
+    int wordsPerRow = BinaryImageImpl.wordsPerRow(width);
+    long[] words = new long[wordsPerRow * height];
+    if (format == 4) {
+      int rowBytes = (width + 7) / 8;
+      checkLength(data, (long) rowBytes * height);
+      for (int i = 0; i < height; i++) {
+        for (int k = 0; k < rowBytes; k++) {
+          words[i * wordsPerRow + (k >>> 3)] |= (~data.get() & 0xFFL) << (56 - 8 * (k & 7));
+        }
+        if ((width & 63) != 0) {
+          words[(i + 1) * wordsPerRow - 1] &= -1L << (64 - (width & 63));
+        }
+      }
+      return new BinaryImageImpl(words, width, height);
+    }
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        skipWhitespace(data);
+        if (!data.hasRemaining()) {
+          throw new IOException("Error: Netpbm file is truncated");
+        }
+        byte bit = data.get();
+        if (bit != '0' && bit != '1') {
+          throw new IOException("Error: invalid Netpbm bitmap");
+        }
+        if (bit == '0') {
+          words[i * wordsPerRow + (j >>> 6)] |= 1L << (63 - (j & 63));
+        }
+      }
+    }
+    return new BinaryImageImpl(words, width, height);
+  }
+
+  /**
+   * This helper method packs one row of a binary image into the bytes of a raw bitmap, eight
+   * pixels per byte with the leftmost pixel in the most significant bit and a set bit for a black
+   * pixel.
+   *
+   * @param image the image to read.
+   * @param row   the row to pack.
+   * @param bytes the bytes to fill, one for every eight pixels of the row.
+   */
+  private static void packBits(BinaryImage image, int row, byte[] bytes) {
+    long[] words = image.getWords();
+    int start = row * image.getWordsPerRow();
+    for (int k = 0; k < bytes.length; k++) {
+      bytes[k] = (byte) ~(words[start + (k >>> 3)] >>> (56 - 8 * (k & 7)));
+    }
+  }
+
+  /**
+   * This helper method copies the packed colors (0xRRGGBB) of one row of an image.
+   *
+   * @param image  the image to read.
+   * @param row    the row to copy.
+   * @param colors the array that receives the colors, as long as the width of the image.
+   */
+  private static void readColors(Image image, int row, int[] colors) {
+    if (image instanceof GeneratedImage) {
+      ((GeneratedImage) image).getRGBRow(row, colors);
+      return;
+    }
+    for (int j = 0; j < colors.length; j++) {
+      colors[j] = image.getRGB(row, j);
+    }
+  }
+
+  /**
+   * This helper method writes everything in a buffer to a channel and empties the buffer.
+   *
+   * @param channel the channel to write to.
+   * @param buffer  the buffer, with its position at the end of the data.
+   * @throws IOException if the channel cannot be written to.
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * This class reads a mapped Netpbm file one band of rows at a time. The samples are read in
+   * order from the mapping, so plain files can be read in bands as well as raw files.
+   */
+  private static final class MappedBands implements BandReader {
+
+    /**
+     * The contents of the file, positioned at the first sample of the next band.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The format of the file (1 to 6).
+     */
+    private final int format;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The largest sample value.
+     */
+    private final int maxValue;
+
+    /**
+     * The 8-bit value of every sample value, or null for a bitmap.
+     */
+    private final int[] scale;
+
+    /**
+     * The row that the next band starts at.
+     */
+    private int nextRow;
+
+    /**
+     * This constructor reads the header of a mapped file.
+     *
+     * @param data the contents of the file.
+     * @throws IOException if the header is not valid.
+     */
+    MappedBands(ByteBuffer data) throws IOException {
+      int[] header = readHeader(data);
+      this.data = data;
+      this.format = header[0];
+      this.width = header[1];
+      this.height = header[2];
+      this.maxValue = header[3];
+      if (format == 1 || format == 4) {
+        this.scale = null;
+      } else {
+        this.scale = new int[maxValue + 1];
+        for (int value = 0; value <= maxValue; value++) {
+          scale[value] = (value * 255 + maxValue / 2) / maxValue;
+        }
+      }
+    }
+
+    /**
+     * This method gets the width of the image.
+     *
+     * @return the width of the image in pixels.
+     */
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    /**
+     * This method gets the height of the image.
+     *
+     * @return the height of the image in pixels.
+     */
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    /**
+     * This method decodes the next band of rows.
+     *
+     * @param rows the number of rows to read, which is cut to the rows that are left.
+     * @return a binary image for a bitmap, a greyscale image for a greymap and a tiled image for a
+     *         pixmap.
+     * @throws IOException if the file is truncated or holds an invalid sample.
+     */
+    @Override
+    public Image next(int rows) throws IOException {
+      int count = Math.min(rows, height - nextRow);
+      nextRow += count;
+      if (scale == null) {
+        return readBitmap(data, format, width, count);
+      }
+      try {
+        return readMap(data, format, width, count, maxValue, maxValue > 255 ? 2 : 1, scale);
+      } catch (IllegalStateException e) {
+        throw new IOException(e.getMessage());
+      }
+    }
+
+    /**
+     * This method does nothing, since the mapping is released once it is no longer used.
+     */
+    @Override
+    public void close() {
+      // A mapped buffer cannot be unmapped explicitly.
+    }
+  }
+
+  /**
+   * This class writes a raw Netpbm file one band of rows at a time, through a direct buffer into
+   * the channel of the file.
+   */
+  private static final class ChannelBands implements BandWriter {
+
+    /**
+     * The path of the file.
+     */
+    private final String filename;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The format of the file (4, 5 or 6), or 0 before the first band.
+     */
+    private int format;
+
+    /**
+     * The channel of the file, or null before the first band.
+     */
+    private FileChannel channel;
+
+    /**
+     * The buffer that rows are written through.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * One row of the file.
+     */
+    private byte[] row;
+
+    /**
+     * This constructor sets up a writer without creating the file yet.
+     *
+     * @param filename the path of the file.
+     * @param width    the width of the image.
+     * @param height   the height of the image.
+     */
+    ChannelBands(String filename, int width, int height) {
+      this.filename = filename;
+      this.width = width;
+      this.height = height;
+    }
+
+    /**
+     * This method writes the next band of rows. At the first band the format is chosen from the
+     * kind of image and the extension of the file, and the file is created with its header.
+     *
+     * @param band the rows that follow the rows of the previous band.
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if the image cannot be held by the format of the file.
+     */
+    @Override
+    public void write(Image band) throws IOException, IllegalArgumentException {
+      if (channel == null) {
+        open(band);
+      }
+      int[] colors = new int[width];
+      byte[] grey = format == 5 ? ((GreyscaleImage) band).getGreyValues() : null;
+      for (int i = 0; i < band.getImageHeight(); i++) {
+        if (format == 4) {
+          packBits((BinaryImage) band, i, row);
+        } else if (format == 5) {
+          System.arraycopy(grey, i * width, row, 0, width);
+        } else {
+          readColors(band, i, colors);
+          for (int j = 0; j < width; j++) {
+            row[3 * j] = (byte) (colors[j] >> 16);
+            row[3 * j + 1] = (byte) (colors[j] >> 8);
+            row[3 * j + 2] = (byte) colors[j];
+          }
+        }
+        if (buffer.remaining() < row.length) {
+          flush(channel, buffer);
+        }
+        buffer.put(row);
+      }
+    }
+
+    /**
+     * This helper method chooses the format of the file and creates it with its header.
+     *
+     * @param band the first band of the image.
+     * @throws IOException              if the file cannot be created.
+     * @throws IllegalArgumentException if the image cannot be held by the format of the file.
+     */
+    private void open(Image band) throws IOException, IllegalArgumentException {
+      String name = filename.toLowerCase(Locale.ROOT);
+      boolean any = name.endsWith(".pnm");
+      if (band instanceof BinaryImage && (any || name.endsWith(".pbm"))) {
+        format = 4;
+      } else if (band instanceof GreyscaleImage && (any || name.endsWith(".pgm"))) {
+        format = 5;
+      } else if (any || name.endsWith(".ppm")) {
+        format = 6;
+      } else if (name.endsWith(".pbm")) {
+        throw new IllegalArgumentException("Error: only black and white images can be saved as "
+                + "PBM");
+      } else {
+        throw new IllegalArgumentException("Error: only greyscale images can be saved as PGM");
+      }
+      String header = "P" + format + "\n" + width + " " + height + "\n"
+              + (format == 4 ? "" : "255\n");
+      row = new byte[format == 4 ? (width + 7) / 8 : format == 5 ? width : 3 * width];
+      channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, row.length));
+      buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * This method writes the rows that are left in the buffer and closes the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+      if (channel == null) {
+        return;
+      }
+      try (FileChannel file = channel) {
+        flush(file, buffer);
+      }
+    }
+  }
+
+}
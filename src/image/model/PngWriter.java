@@ -0,0 +1,135 @@
+package image.model;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class writes a PNG file one row at a time. Rows are deflated as they are written and the
+ * compressed data is written in image data chunks of at most 64 KiB, so the memory used does not
+ * depend on the size of the image. Closing the writer releases the compressor but does not close
+ * the stream.
+ */
+final class PngWriter implements Closeable {
+
+  /**
+   * The stream that the file is written to.
+   */
+  private final OutputStream out;
+
+  /**
+   * The compressor of the image data.
+   */
+  private final Deflater deflater;
+
+  /**
+   * The compressed data that has not been written in a chunk yet.
+   */
+  private final byte[] chunk = new byte[1 << 16];
+
+  /**
+   * The number of bytes of the chunk that are used.
+   */
+  private int used;
+
+  /**
+   * This constructor writes the signature and header of a non-interlaced PNG file.
+   *
+   * @param out       the stream to write to.
+   * @param width     the width of the image.
+   * @param height    the height of the image.
+   * @param bitDepth  the number of bits of a sample.
+   * @param colorType the PNG color type, 0 for greyscale or 2 for color.
+   * @param level     the deflate level from 0 to 9, or -1 for the default.
+   * @throws IOException if the stream cannot be written to.
+   */
+  PngWriter(OutputStream out, int width, int height, int bitDepth, int colorType, int level)
+          throws IOException {
+    this.out = out;
+    out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+    ByteBuffer header = ByteBuffer.allocate(13);
+    header.putInt(width).putInt(height);
+    header.put((byte) bitDepth).put((byte) colorType).put((byte) 0).put((byte) 0).put((byte) 0);
+    writeChunk(out, "IHDR", header.array(), header.array().length);
+    this.deflater = new Deflater(level);
+  }
+
+  /**
+   * This method deflates one row of the image.
+   *
+   * @param row the filter type of the row (0 for none) followed by its samples.
+   * @throws IOException if the stream cannot be written to.
+   */
+  void writeRow(byte[] row) throws IOException {
+    deflater.setInput(row);
+    while (!deflater.needsInput()) {
+      deflate();
+    }
+  }
+
+  /**
+   * This method writes the rest of the image data and the end of the file.
+   *
+   * @throws IOException if the stream cannot be written to.
+   */
+  void finish() throws IOException {
+    deflater.finish();
+    while (!deflater.finished()) {
+      deflate();
+    }
+    if (used > 0) {
+      writeChunk(out, "IDAT", chunk, used);
+      used = 0;
+    }
+    writeChunk(out, "IEND", new byte[0], 0);
+  }
+
+  /**
+   * This method releases the compressor.
+   */
+  @Override
+  public void close() {
+    deflater.end();
+  }
+
+  /**
+   * This helper method compresses into the chunk and writes the chunk once it is full.
+   *
+   * @throws IOException if the stream cannot be written to.
+   */
+  private void deflate() throws IOException {
+    used += deflater.deflate(chunk, used, chunk.length - used);
+    if (used == chunk.length) {
+      writeChunk(out, "IDAT", chunk, used);
+      used = 0;
+    }
+  }
+
+  /**
+   * This helper method writes one PNG chunk, made of its length, type, data and checksum.
+   *
+   * @param out    the stream to write to.
+   * @param type   the four-letter type of the chunk.
+   * @param data   the data of the chunk.
+   * @param length the number of bytes of data.
+   * @throws IOException if the stream cannot be written to.
+   */
+  private static void writeChunk(OutputStream out, String type, byte[] data, int length)
+          throws IOException {
+    byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(name);
+    crc.update(data, 0, length);
+    DataOutputStream chunk = new DataOutputStream(out);
+    chunk.writeInt(length);
+    chunk.write(name);
+    chunk.write(data, 0, length);
+    chunk.writeInt((int) crc.getValue());
+  }
+
+}
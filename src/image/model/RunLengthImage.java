@@ -0,0 +1,33 @@
+package image.model;
+
+/**
+ * This interface represents an image stored as runs of constant color along each row, such as a
+ * rainbow, a checkerboard or a flag. Each row is kept as the column where each of its runs ends
+ * and the color of each run, so an image made of large areas of one color takes memory in
+ * proportion to its number of runs rather than its number of pixels. Consecutive rows that are
+ * identical share the same arrays, so two neighboring rows are identical exactly when their arrays
+ * are the same objects, which lets operations process each distinct row once.
+ */
+public interface RunLengthImage extends GeneratedImage {
+
+  /**
+   * This method gets the column after the last pixel of every run of one row, in increasing order.
+   * The last entry is the width of the image. The returned array is the one backing this image and
+   * must not be modified.
+   *
+   * @param row the row of the runs.
+   * @return the end of every run of the row.
+   */
+  int[] getRunEnds(int row);
+
+  /**
+   * This method gets the color of every run of one row, packed into one integer with the red,
+   * green and blue channels stored in 8 bits each (0xRRGGBB). The returned array is the one
+   * backing this image and must not be modified.
+   *
+   * @param row the row of the runs.
+   * @return the color of every run of the row.
+   */
+  int[] getRunColors(int row);
+
+}
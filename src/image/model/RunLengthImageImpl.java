@@ -0,0 +1,221 @@
+package image.model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the implementation of the run-length image interface. The runs of every
+ * row are kept in two arrays, and a row that is identical to the row above it keeps the arrays of
+ * that row instead of its own. The three-channel integer array is only built when it is asked for.
+ */
+public class RunLengthImageImpl implements RunLengthImage {
+
+  /**
+   * The column after the last pixel of every run, row by row.
+   */
+  private final int[][] runEnds;
+
+  /**
+   * The packed color of every run, row by row.
+   */
+  private final int[][] runColors;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * This method constructs a RunLengthImageImpl object from the runs of every row. The arrays are
+   * used directly, so they must not be modified after the image is created. Rows that are equal to
+   * the row above them are replaced by the arrays of that row.
+   *
+   * @param width     the width of the image.
+   * @param runEnds   the column after the last pixel of every run, row by row, in increasing order
+   *                  and ending with the width.
+   * @param runColors the packed color (0xRRGGBB) of every run, row by row.
+   * @throws IllegalArgumentException if the width or the number of rows is less than one, or if
+   *                                  the runs of a row do not cover the width exactly.
+   */
+  public RunLengthImageImpl(int width, int[][] runEnds, int[][] runColors)
+          throws IllegalArgumentException {
+    if (width < 1 || runEnds.length < 1 || runEnds.length != runColors.length) {
+      throw new IllegalArgumentException("Error: runs do not match the image size");
+    }
+    for (int i = 0; i < runEnds.length; i++) {
+      int[] ends = runEnds[i];
+      if (ends.length < 1 || ends.length != runColors[i].length
+              || ends[ends.length - 1] != width) {
+        throw new IllegalArgumentException("Error: runs do not match the image size");
+      }
+      for (int k = 0; k < ends.length; k++) {
+        if (ends[k] <= (k == 0 ? 0 : ends[k - 1])) {
+          throw new IllegalArgumentException("Error: runs must not be empty");
+        }
+      }
+      if (i > 0 && Arrays.equals(ends, runEnds[i - 1])
+              && Arrays.equals(runColors[i], runColors[i - 1])) {
+        runEnds[i] = runEnds[i - 1];
+        runColors[i] = runColors[i - 1];
+      }
+    }
+    this.runEnds = runEnds;
+    this.runColors = runColors;
+    this.width = width;
+    this.height = runEnds.length;
+  }
+
+  /**
+   * This method finds the runs of every row of the given image. Generated images are read one row
+   * at a time.
+   *
+   * @param image the image to encode.
+   * @return a run-length image with the same pixels as the given image.
+   */
+  public static RunLengthImage encode(Image image) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int[][] runEnds = new int[height][];
+    int[][] runColors = new int[height][];
+    int[] colors = new int[width];
+    int[] ends = new int[width];
+    int[] values = new int[width];
+    for (int i = 0; i < height; i++) {
+      if (image instanceof GeneratedImage) {
+        ((GeneratedImage) image).getRGBRow(i, colors);
+      } else {
+        for (int j = 0; j < width; j++) {
+          colors[j] = image.getRGB(i, j);
+        }
+      }
+      int runs = 0;
+      for (int j = 0; j < width; j++) {
+        if (runs > 0 && values[runs - 1] == colors[j]) {
+          ends[runs - 1] = j + 1;
+        } else {
+          ends[runs] = j + 1;
+          values[runs++] = colors[j];
+        }
+      }
+      runEnds[i] = Arrays.copyOf(ends, runs);
+      runColors[i] = Arrays.copyOf(values, runs);
+    }
+    return new RunLengthImageImpl(width, runEnds, runColors);
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is built from the runs
+   * each time it is called.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    for (int i = 0; i < this.height; i++) {
+      int[] ends = this.runEnds[i];
+      int[] colors = this.runColors[i];
+      int start = 0;
+      for (int k = 0; k < ends.length; k++) {
+        int red = (colors[k] >> 16) & 0xFF;
+        int green = (colors[k] >> 8) & 0xFF;
+        int blue = colors[k] & 0xFF;
+        for (int j = start; j < ends[k]; j++) {
+          image[i][j][0] = red;
+          image[i][j][1] = green;
+          image[i][j][2] = blue;
+        }
+        start = ends[k];
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * red, green and blue channels stored in 8 bits each (0xRRGGBB). The run of the pixel is found
+   * with a binary search.
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    if (column < 0 || column >= this.width) {
+      throw new IndexOutOfBoundsException("Error: column out of bounds");
+    }
+    int k = Arrays.binarySearch(this.runEnds[row], column + 1);
+    return this.runColors[row][k < 0 ? -k - 1 : k];
+  }
+
+  /**
+   * This method computes the colors of one row of this image, packed into one integer per pixel
+   * with the red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row to compute.
+   * @param colors the array to fill, with at least one entry per column of this image.
+   */
+  @Override
+  public void getRGBRow(int row, int[] colors) {
+    int[] ends = this.runEnds[row];
+    int start = 0;
+    for (int k = 0; k < ends.length; k++) {
+      Arrays.fill(colors, start, ends[k], this.runColors[row][k]);
+      start = ends[k];
+    }
+  }
+
+  /**
+   * This method gets the column after the last pixel of every run of one row, in increasing order.
+   * The last entry is the width of the image. The returned array is the one backing this image and
+   * must not be modified.
+   *
+   * @param row the row of the runs.
+   * @return the end of every run of the row.
+   */
+  @Override
+  public int[] getRunEnds(int row) {
+    return this.runEnds[row];
+  }
+
+  /**
+   * This method gets the color of every run of one row, packed into one integer with the red,
+   * green and blue channels stored in 8 bits each (0xRRGGBB). The returned array is the one
+   * backing this image and must not be modified.
+   *
+   * @param row the row of the runs.
+   * @return the color of every run of the row.
+   */
+  @Override
+  public int[] getRunColors(int row) {
+    return this.runColors[row];
+  }
+
+}
@@ -0,0 +1,129 @@
+package image.model;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class represents the encoder settings used when an image is saved. A save command can end
+ * with any of the options "quality=N" (JPEG quality from 0 to 100), "compression=N" (PNG deflate
+ * level from 0 to 9) and "progressive" (progressive JPEG or interlaced PNG or GIF), for example
+ * "save out.jpg quality=85". Settings that are not given keep the default of the encoder.
+ */
+public final class SaveOptions {
+
+  /**
+   * The settings that keep every default of the encoder.
+   */
+  public static final SaveOptions DEFAULTS = new SaveOptions(-1, -1, false);
+
+  /**
+   * The options at the end of the arguments of a save command.
+   */
+  private static final Pattern OPTIONS =
+          Pattern.compile("(\\s+(quality=\\S*|compression=\\S*|progressive))+$");
+
+  /**
+   * The JPEG quality from 0 to 100, or -1 for the default of the encoder.
+   */
+  private final int quality;
+
+  /**
+   * The PNG deflate level from 0 to 9, or -1 for the default of the encoder.
+   */
+  private final int compression;
+
+  /**
+   * Whether the image is written progressively.
+   */
+  private final boolean progressive;
+
+  /**
+   * This constructor creates encoder settings.
+   *
+   * @param quality     the JPEG quality from 0 to 100, or -1 for the default of the encoder.
+   * @param compression the PNG deflate level from 0 to 9, or -1 for the default of the encoder.
+   * @param progressive whether the image is written progressively.
+   * @throws IllegalArgumentException if the quality or the compression level is out of range.
+   */
+  public SaveOptions(int quality, int compression, boolean progressive)
+          throws IllegalArgumentException {
+    if (quality < -1 || quality > 100) {
+      throw new IllegalArgumentException("Error: quality must be between 0 and 100");
+    }
+    if (compression < -1 || compression > 9) {
+      throw new IllegalArgumentException("Error: compression must be between 0 and 9");
+    }
+    this.quality = quality;
+    this.compression = compression;
+    this.progressive = progressive;
+  }
+
+  /**
+   * This method reads the options at the end of the arguments of a save command.
+   *
+   * @param arguments everything after the word save, starting with the file name.
+   * @return the settings given by the options, with the defaults for those that are missing.
+   * @throws IllegalArgumentException if an option has a value that is not a number in range.
+   */
+  public static SaveOptions parse(String arguments) throws IllegalArgumentException {
+    Matcher matcher = OPTIONS.matcher(arguments);
+    if (!matcher.find()) {
+      return DEFAULTS;
+    }
+    int quality = -1;
+    int compression = -1;
+    boolean progressive = false;
+    for (String option : matcher.group().trim().split("\\s+")) {
+      try {
+        if (option.startsWith("quality=")) {
+          quality = Integer.parseInt(option.substring("quality=".length()));
+        } else if (option.startsWith("compression=")) {
+          compression = Integer.parseInt(option.substring("compression=".length()));
+        } else {
+          progressive = true;
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Error: invalid save option " + option);
+      }
+    }
+    return new SaveOptions(quality, compression, progressive);
+  }
+
+  /**
+   * This method removes the options from the end of the arguments of a save command.
+   *
+   * @param arguments everything after the word save, starting with the file name.
+   * @return the file name.
+   */
+  public static String filename(String arguments) {
+    return OPTIONS.matcher(arguments).replaceFirst("");
+  }
+
+  /**
+   * This method gets the JPEG quality.
+   *
+   * @return the quality from 0 to 100, or -1 for the default of the encoder.
+   */
+  public int getQuality() {
+    return this.quality;
+  }
+
+  /**
+   * This method gets the PNG deflate level.
+   *
+   * @return the level from 0 to 9, or -1 for the default of the encoder.
+   */
+  public int getCompression() {
+    return this.compression;
+  }
+
+  /**
+   * This method checks whether the image is written progressively.
+   *
+   * @return true for a progressive JPEG or an interlaced PNG or GIF.
+   */
+  public boolean isProgressive() {
+    return this.progressive;
+  }
+
+}
@@ -0,0 +1,496 @@
+package image.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import image.model.filter.DitherKernel;
+import image.model.filter.DitherStream;
+import image.model.filter.ImageFilterImpl;
+import image.model.transformation.ImageTransformationImpl;
+
+/**
+ * This class runs a chain of operations on an image file that is too large to be held in memory.
+ * The file is decoded one band of rows at a time, each band is pushed through the operations in
+ * order, and every save writes the rows it is given to its file before the next band is decoded,
+ * so only a few bands are held at once. The operations are the same as those of the image model
+ * and give the same pixels: blur and sharpen keep the rows that the filter reaches above and below
+ * each band, and dither carries the error it spreads into the rows below a band over to the next
+ * band. Saves are written as PNG or Netpbm files, which can be encoded one row at a time.
+ */
+public final class StreamingPipeline {
+
+  /**
+   * The path of the image file that is read.
+   */
+  private final String filename;
+
+  /**
+   * The number of rows that are decoded at a time.
+   */
+  private final int bandHeight;
+
+  /**
+   * The operations and saves, in the order that the rows go through them.
+   */
+  private final List<Stage> stages = new ArrayList<>();
+
+  /**
+   * This constructor creates a pipeline with no operations.
+   *
+   * @param filename   the path of the image file to read.
+   * @param bandHeight the number of rows that are decoded at a time.
+   * @throws IllegalArgumentException if the band height is less than one.
+   */
+  public StreamingPipeline(String filename, int bandHeight) throws IllegalArgumentException {
+    if (bandHeight < 1) {
+      throw new IllegalArgumentException("Error: a band needs at least one row");
+    }
+    this.filename = filename;
+    this.bandHeight = bandHeight;
+  }
+
+  /**
+   * This method checks whether an image can be saved by a pipeline, which is the case for Netpbm
+   * files and for PNG files that are not interlaced.
+   *
+   * @param filename the path of the file.
+   * @param options  the settings of the encoder.
+   * @return true if the file can be written one band at a time.
+   */
+  public static boolean canSave(String filename, SaveOptions options) {
+    return ImageUtil.canWriteBands(filename, options);
+  }
+
+  /**
+   * This method adds the greyscale transformation to the end of the pipeline.
+   */
+  public void toGreyscale() {
+    stages.add(new Transform(ImageModelImpl.GREYSCALE));
+  }
+
+  /**
+   * This method adds the sepia transformation to the end of the pipeline.
+   */
+  public void toSepia() {
+    stages.add(new Transform(ImageModelImpl.SEPIA));
+  }
+
+  /**
+   * This method adds the blur filter to the end of the pipeline.
+   *
+   * @param linearLight whether the filter should be applied in linear light.
+   */
+  public void blur(boolean linearLight) {
+    stages.add(new Convolution(ImageModelImpl.BLUR, linearLight));
+  }
+
+  /**
+   * This method adds the sharpen filter to the end of the pipeline.
+   *
+   * @param linearLight whether the filter should be applied in linear light.
+   */
+  public void sharpen(boolean linearLight) {
+    stages.add(new Convolution(ImageModelImpl.SHARPEN, linearLight));
+  }
+
+  /**
+   * This method adds an error diffusion dither to the end of the pipeline. The rows are converted
+   * to greyscale first, the same as in the image model.
+   *
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   */
+  public void dither(DitherKernel kernel, boolean serpentine) {
+    stages.add(new Dither(kernel, serpentine));
+  }
+
+  /**
+   * This method adds a save to the end of the pipeline, which writes the rows that reach it.
+   *
+   * @param filename the path of the file to write.
+   * @param options  the settings of the encoder.
+   * @throws IllegalArgumentException if the file cannot be written one band at a time.
+   */
+  public void save(String filename, SaveOptions options) throws IllegalArgumentException {
+    if (!canSave(filename, options)) {
+      throw new IllegalArgumentException("Error: " + filename + " cannot be saved in bands");
+    }
+    stages.add(new Save(filename, options));
+  }
+
+  /**
+   * This method reads the image file and pushes every band through the pipeline. A save that
+   * cannot write its file is left out from then on and its error is returned, the same as a failed
+   * save of the image model leaves the image as it was. A save that throws an
+   * IllegalArgumentException stops the rows from reaching it and everything after it, while the
+   * saves before it are still finished, and the exception is thrown at the end.
+   *
+   * @return the errors of the saves that could not write their files, in the order of the saves.
+   * @throws IOException              if the image file cannot be read.
+   * @throws IllegalArgumentException if a save does not support the image or its options.
+   */
+  public List<IOException> run() throws IOException, IllegalArgumentException {
+    List<IOException> failures = new ArrayList<>();
+    IllegalArgumentException stopped = null;
+    int reached = stages.size();
+    try (BandReader source = ImageUtil.readBands(filename)) {
+      int width = source.getWidth();
+      int height = source.getHeight();
+      for (int row = 0; row < height && reached > 0; row += bandHeight) {
+        boolean last = row + bandHeight >= height;
+        Image band = source.next(bandHeight);
+        for (int i = 0; i < reached && band != null; i++) {
+          try {
+            band = stages.get(i).push(band, last, width, height, failures);
+          } catch (IllegalArgumentException e) {
+            stopped = e;
+            reached = i;
+          }
+        }
+      }
+    } finally {
+      for (Stage stage : stages) {
+        stage.close(failures);
+      }
+    }
+    if (stopped != null) {
+      throw stopped;
+    }
+    return failures;
+  }
+
+  /**
+   * This interface represents one step of a pipeline, which is given the bands of the image in
+   * order.
+   */
+  private interface Stage {
+
+    /**
+     * This method gives the step the next band of rows.
+     *
+     * @param band     the rows that follow the rows of the previous band.
+     * @param last     whether the band holds the last row of the image.
+     * @param width    the width of the image.
+     * @param height   the height of the image.
+     * @param failures the errors of the saves that could not write their files.
+     * @return the rows that are ready for the next step, or null if none are ready yet. Every row
+     *         is ready after the last band.
+     * @throws IllegalArgumentException if a save does not support the image or its options.
+     */
+    Image push(Image band, boolean last, int width, int height, List<IOException> failures)
+            throws IllegalArgumentException;
+
+    /**
+     * This method finishes the step once no more bands are coming.
+     *
+     * @param failures the errors of the saves that could not write their files.
+     */
+    default void close(List<IOException> failures) {
+      // Only saves have anything to finish.
+    }
+  }
+
+  /**
+   * This class transforms the color of every pixel of a band by a matrix.
+   */
+  private static final class Transform implements Stage {
+
+    /**
+     * The matrix that is applied to every pixel.
+     */
+    private final double[][] matrix;
+
+    /**
+     * This constructor creates a transformation.
+     *
+     * @param matrix the matrix that is applied to every pixel.
+     */
+    Transform(double[][] matrix) {
+      this.matrix = matrix;
+    }
+
+    /**
+     * This method transforms a band.
+     *
+     * @return the transformed band.
+     */
+    @Override
+    public Image push(Image band, boolean last, int width, int height,
+                      List<IOException> failures) {
+      return new ImageTransformationImpl().applyTransformation(band, matrix);
+    }
+  }
+
+  /**
+   * This class applies a filter to the bands of an image. It keeps the rows that the filter reaches
+   * above the rows it has not given out yet, and it holds back the rows whose neighbors below have
+   * not arrived, so that rows are only counted as black past the true edges of the image.
+   */
+  private static final class Convolution implements Stage {
+
+    /**
+     * The filter that is applied.
+     */
+    private final double[][] filter;
+
+    /**
+     * Whether the filter is applied in linear light.
+     */
+    private final boolean linearLight;
+
+    /**
+     * The number of rows that the filter reaches above and below a pixel.
+     */
+    private final int reach;
+
+    /**
+     * The last rows that were given out, as many as the filter reaches, or null at the top.
+     */
+    private Image above;
+
+    /**
+     * The rows that were given to this step and not given out yet, or null.
+     */
+    private Image pending;
+
+    /**
+     * This constructor creates a filter step.
+     *
+     * @param filter      the filter that is applied.
+     * @param linearLight whether the filter is applied in linear light.
+     */
+    Convolution(double[][] filter, boolean linearLight) {
+      this.filter = filter;
+      this.linearLight = linearLight;
+      this.reach = filter.length / 2;
+    }
+
+    /**
+     * This method filters every row whose neighbors have all arrived.
+     *
+     * @return the filtered rows, or null if no row is ready yet.
+     */
+    @Override
+    public Image push(Image band, boolean last, int width, int height,
+                      List<IOException> failures) {
+      Image window = stack(width, above, pending, band);
+      int top = above == null ? 0 : above.getImageHeight();
+      int rows = window.getImageHeight();
+      int end = last ? rows : rows - reach;
+      if (end <= top) {
+        pending = slice(window, top, rows);
+        return null;
+      }
+      Image filtered = linearLight ? new ImageFilterImpl().applyLinearFilter(window, filter)
+              : new ImageFilterImpl().applyFilter(window, filter);
+      above = slice(window, Math.max(0, end - reach), end);
+      pending = end < rows ? slice(window, end, rows) : null;
+      return slice(filtered, top, end);
+    }
+  }
+
+  /**
+   * This class converts the bands of an image to greyscale and dithers them by error diffusion.
+   */
+  private static final class Dither implements Stage {
+
+    /**
+     * The kernel that the error of each pixel is spread with.
+     */
+    private final DitherKernel kernel;
+
+    /**
+     * Whether every other row is scanned from right to left.
+     */
+    private final boolean serpentine;
+
+    /**
+     * The ditherer that carries the error between bands, or null before the first band.
+     */
+    private DitherStream stream;
+
+    /**
+     * This constructor creates a dither step.
+     *
+     * @param kernel     the kernel that the error of each pixel is spread with.
+     * @param serpentine whether every other row is scanned from right to left.
+     */
+    Dither(DitherKernel kernel, boolean serpentine) {
+      this.kernel = kernel;
+      this.serpentine = serpentine;
+    }
+
+    /**
+     * This method dithers a band.
+     *
+     * @return the dithered band as a binary image.
+     */
+    @Override
+    public Image push(Image band, boolean last, int width, int height,
+                      List<IOException> failures) {
+      if (stream == null) {
+        stream = new DitherStream(kernel, serpentine, width);
+      }
+      return stream.next(new ImageTransformationImpl().applyTransformation(band,
+              ImageModelImpl.GREYSCALE));
+    }
+  }
+
+  /**
+   * This class writes the bands of an image to a file and passes them on unchanged.
+   */
+  private static final class Save implements Stage {
+
+    /**
+     * The path of the file.
+     */
+    private final String filename;
+
+    /**
+     * The settings of the encoder.
+     */
+    private final SaveOptions options;
+
+    /**
+     * The writer of the file, or null before the first band.
+     */
+    private BandWriter writer;
+
+    /**
+     * Whether the file could not be written.
+     */
+    private boolean failed;
+
+    /**
+     * This constructor creates a save step.
+     *
+     * @param filename the path of the file.
+     * @param options  the settings of the encoder.
+     */
+    Save(String filename, SaveOptions options) {
+      this.filename = filename;
+      this.options = options;
+    }
+
+    /**
+     * This method writes a band, unless the file has failed to be written.
+     *
+     * @return the band.
+     * @throws IllegalArgumentException if the format does not support the image or the options.
+     */
+    @Override
+    public Image push(Image band, boolean last, int width, int height,
+                      List<IOException> failures) throws IllegalArgumentException {
+      if (failed) {
+        return band;
+      }
+      try {
+        if (writer == null) {
+          writer = ImageUtil.writeBands(filename, width, height, options);
+        }
+        writer.write(band);
+      } catch (IOException e) {
+        failures.add(e);
+        failed = true;
+      }
+      return band;
+    }
+
+    /**
+     * This method finishes the file and drops it from the shared decode cache.
+     *
+     * @param failures the errors of the saves that could not write their files.
+     */
+    @Override
+    public void close(List<IOException> failures) {
+      if (writer == null) {
+        return;
+      }
+      try {
+        writer.close();
+      } catch (IOException e) {
+        if (!failed) {
+          failures.add(e);
+        }
+      } finally {
+        DecodeCache.getShared().invalidate(filename);
+      }
+    }
+  }
+
+  /**
+   * This helper method puts bands of rows one below the other. Greyscale bands are joined into a
+   * greyscale image and all other bands into a tiled image.
+   *
+   * @param width the width of the bands.
+   * @param parts the bands, from top to bottom, any of which may be null.
+   * @return the joined rows.
+   */
+  private static Image stack(int width, Image... parts) {
+    List<Image> bands = new ArrayList<>();
+    boolean grey = true;
+    int height = 0;
+    for (Image part : parts) {
+      if (part != null) {
+        bands.add(part);
+        grey &= part instanceof GreyscaleImage;
+        height += part.getImageHeight();
+      }
+    }
+    if (bands.size() == 1) {
+      return bands.get(0);
+    }
+    if (grey) {
+      byte[] values = new byte[width * height];
+      int offset = 0;
+      for (Image band : bands) {
+        byte[] bandValues = ((GreyscaleImage) band).getGreyValues();
+        System.arraycopy(bandValues, 0, values, offset, bandValues.length);
+        offset += bandValues.length;
+      }
+      return new GreyscaleImageImpl(values, width, height);
+    }
+    Image[] rowBands = new Image[height];
+    int[] rowOffsets = new int[height];
+    int row = 0;
+    for (Image band : bands) {
+      for (int i = 0; i < band.getImageHeight(); i++, row++) {
+        rowBands[row] = band;
+        rowOffsets[row] = i;
+      }
+    }
+    return TiledImageImpl.fromRows(width, height, (colors, i) -> {
+      for (int j = 0; j < width; j++) {
+        colors[j] = rowBands[i].getRGB(rowOffsets[i], j);
+      }
+    });
+  }
+
+  /**
+   * This helper method copies some of the rows of an image. Greyscale rows stay greyscale and all
+   * other rows become a tiled image.
+   *
+   * @param image the image to copy from.
+   * @param from  the first row to copy.
+   * @param to    the row after the last row to copy, greater than the first.
+   * @return the rows.
+   */
+  private static Image slice(Image image, int from, int to) {
+    int width = image.getImageWidth();
+    if (from == 0 && to == image.getImageHeight()) {
+      return image;
+    }
+    if (image instanceof GreyscaleImage) {
+      return new GreyscaleImageImpl(Arrays.copyOfRange(((GreyscaleImage) image).getGreyValues(),
+              from * width, to * width), width, to - from);
+    }
+    return TiledImageImpl.fromRows(width, to - from, (colors, i) -> {
+      for (int j = 0; j < width; j++) {
+        colors[j] = image.getRGB(from + i, j);
+      }
+    });
+  }
+
+}
@@ -0,0 +1,53 @@
+package image.model;
+
+/**
+ * This interface represents an image split into square tiles, where a tile whose pixels all have
+ * the same color is kept as that one color instead of an array of pixels. Images with large areas
+ * of one color, such as scanned documents, take much less memory this way, and operations can
+ * process a uniform tile once instead of once per pixel. Tiles are numbered row by row, and the
+ * tiles on the right and bottom edges may be cut short by the edges of the image.
+ */
+public interface TiledImage extends Image {
+
+  /**
+   * This method gets the width and height in pixels of a whole tile.
+   *
+   * @return the size of a tile.
+   */
+  int getTileSize();
+
+  /**
+   * This method gets the number of tiles across this image.
+   *
+   * @return the number of tiles in each row of tiles.
+   */
+  int getTilesAcross();
+
+  /**
+   * This method gets the number of tiles down this image.
+   *
+   * @return the number of tiles in each column of tiles.
+   */
+  int getTilesDown();
+
+  /**
+   * This method checks whether every pixel of a tile has the same color.
+   *
+   * @param tileRow    the row of the tile.
+   * @param tileColumn the column of the tile.
+   * @return true if the tile is kept as a single color.
+   */
+  boolean isUniform(int tileRow, int tileColumn);
+
+  /**
+   * This method gets the color of a uniform tile, packed into one integer with the red, green and
+   * blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param tileRow    the row of the tile.
+   * @param tileColumn the column of the tile.
+   * @return the color of every pixel of the tile.
+   * @throws IllegalStateException if the tile is not uniform.
+   */
+  int getUniformColor(int tileRow, int tileColumn) throws IllegalStateException;
+
+}
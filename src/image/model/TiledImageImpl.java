@@ -0,0 +1,285 @@
+package image.model;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * This class represents the implementation of the tiled image interface. Tiles are 64 pixels
+ * square. A tile that is not uniform keeps its packed colors (0xRRGGBB) in an array of 64 by 64
+ * entries, row by row, and a uniform tile keeps only its color. Tiles are checked for a single
+ * color when the image is created, so the check costs one pass over the pixels. The three-channel
+ * integer array is only built when it is asked for.
+ */
+public class TiledImageImpl implements TiledImage {
+
+  /**
+   * The width and height in pixels of a whole tile.
+   */
+  public static final int TILE_SIZE = 64;
+
+  /**
+   * The number of bits to shift a position by to find its tile.
+   */
+  private static final int TILE_SHIFT = 6;
+
+  /**
+   * The packed colors of every tile that is not uniform, tile by tile, or null for a uniform tile.
+   */
+  private final int[][] tilePixels;
+
+  /**
+   * The color of every uniform tile, tile by tile.
+   */
+  private final int[] tileColors;
+
+  /**
+   * The number of tiles across this image.
+   */
+  private final int tilesAcross;
+
+  /**
+   * The integer value width for this image.
+   */
+  private final int width;
+
+  /**
+   * The integer value height for this image.
+   */
+  private final int height;
+
+  /**
+   * This method constructs a TiledImageImpl object from its tiles. The arrays are used directly,
+   * so they must not be modified after the image is created. Every tile given as pixels whose
+   * pixels within the image all have the same color is replaced by that color.
+   *
+   * @param width      the width of the image.
+   * @param height     the height of the image.
+   * @param tilePixels the packed colors of every tile, tile by tile, each in an array of
+   *                   TILE_SIZE by TILE_SIZE entries, or null for a uniform tile.
+   * @param tileColors the color of every uniform tile, tile by tile; the entries of the other
+   *                   tiles are ignored.
+   * @throws IllegalArgumentException if the width or height is less than one, or if the tiles do
+   *                                  not match the size of the image.
+   */
+  public TiledImageImpl(int width, int height, int[][] tilePixels, int[] tileColors)
+          throws IllegalArgumentException {
+    int tilesAcross = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+    int tilesDown = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+    if (width < 1 || height < 1 || tilePixels.length != tilesAcross * tilesDown
+            || tileColors.length != tilePixels.length) {
+      throw new IllegalArgumentException("Error: tiles do not match the image size");
+    }
+    this.tilePixels = tilePixels;
+    this.tileColors = tileColors;
+    this.tilesAcross = tilesAcross;
+    this.width = width;
+    this.height = height;
+    for (int tile = 0; tile < tilePixels.length; tile++) {
+      int[] pixels = tilePixels[tile];
+      if (pixels == null) {
+        continue;
+      }
+      if (pixels.length != TILE_SIZE * TILE_SIZE) {
+        throw new IllegalArgumentException("Error: tiles do not match the image size");
+      }
+      int rows = Math.min(TILE_SIZE, height - (tile / tilesAcross << TILE_SHIFT));
+      int columns = Math.min(TILE_SIZE, width - (tile % tilesAcross << TILE_SHIFT));
+      boolean uniform = true;
+      for (int i = 0; i < rows && uniform; i++) {
+        for (int j = 0; j < columns; j++) {
+          if (pixels[(i << TILE_SHIFT) + j] != pixels[0]) {
+            uniform = false;
+            break;
+          }
+        }
+      }
+      if (uniform) {
+        tileColors[tile] = pixels[0];
+        tilePixels[tile] = null;
+      }
+    }
+  }
+
+  /**
+   * This method splits the given image into tiles, keeping every tile of a single color as that
+   * color.
+   *
+   * @param image the image to split.
+   * @return a tiled image with the same pixels as the given image.
+   */
+  public static TiledImage of(Image image) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int tilesAcross = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+    int tilesDown = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+    int[][] tilePixels = new int[tilesAcross * tilesDown][];
+    for (int tile = 0; tile < tilePixels.length; tile++) {
+      int top = tile / tilesAcross << TILE_SHIFT;
+      int left = tile % tilesAcross << TILE_SHIFT;
+      int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+      for (int i = 0; i < TILE_SIZE && top + i < height; i++) {
+        for (int j = 0; j < TILE_SIZE && left + j < width; j++) {
+          pixels[(i << TILE_SHIFT) + j] = image.getRGB(top + i, left + j);
+        }
+      }
+      tilePixels[tile] = pixels;
+    }
+    return new TiledImageImpl(width, height, tilePixels, new int[tilePixels.length]);
+  }
+
+  /**
+   * This method builds a tiled image one row at a time, for readers that produce rows of packed
+   * colors. Each row is copied into the tiles it crosses as soon as it is filled.
+   *
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @param rows   fills the given array with the packed colors (0xRRGGBB) of the given row. It is
+   *               called once for every row, from top to bottom.
+   * @return a tiled image with the pixels of the rows.
+   * @throws IllegalArgumentException if the width or height is less than one.
+   */
+  public static TiledImage fromRows(int width, int height, ObjIntConsumer<int[]> rows)
+          throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Error: tiles do not match the image size");
+    }
+    int across = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+    int[][] tilePixels = new int[across * ((height + TILE_SIZE - 1) >> TILE_SHIFT)][];
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      rows.accept(row, i);
+      for (int tileColumn = 0; tileColumn < across; tileColumn++) {
+        int tile = (i >> TILE_SHIFT) * across + tileColumn;
+        if (tilePixels[tile] == null) {
+          tilePixels[tile] = new int[TILE_SIZE * TILE_SIZE];
+        }
+        int left = tileColumn << TILE_SHIFT;
+        System.arraycopy(row, left, tilePixels[tile], (i & (TILE_SIZE - 1)) << TILE_SHIFT,
+                Math.min(TILE_SIZE, width - left));
+      }
+    }
+    return new TiledImageImpl(width, height, tilePixels, new int[tilePixels.length]);
+  }
+
+  /**
+   * This method gets the integer array value for this image. The array is built from the tiles
+   * each time it is called.
+   *
+   * @return the integer array value for this image in the following format: [[[a,b,c],[e,f,g]],
+   *         [[h,i,j],[k,l,m]]].
+   */
+  @Override
+  public int[][][] getImage() {
+    int[][][] image = new int[this.height][this.width][3];
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int color = getRGB(i, j);
+        image[i][j][0] = (color >> 16) & 0xFF;
+        image[i][j][1] = (color >> 8) & 0xFF;
+        image[i][j][2] = color & 0xFF;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * This method gets the integer value for this image's width (how many pixels wide the image is).
+   *
+   * @return the integer value width of this image.
+   */
+  @Override
+  public int getImageWidth() {
+    return this.width;
+  }
+
+  /**
+   * This method gets the integer value for this image's height (how many pixels tall the image
+   * is).
+   *
+   * @return the integer value height of this image.
+   */
+  @Override
+  public int getImageHeight() {
+    return this.height;
+  }
+
+  /**
+   * This method gets the color of a single pixel of this image, packed into one integer with the
+   * red, green and blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the pixel.
+   */
+  @Override
+  public int getRGB(int row, int column) {
+    if (row < 0 || row >= this.height || column < 0 || column >= this.width) {
+      throw new IndexOutOfBoundsException("Error: pixel out of bounds");
+    }
+    int tile = (row >> TILE_SHIFT) * this.tilesAcross + (column >> TILE_SHIFT);
+    int[] pixels = this.tilePixels[tile];
+    if (pixels == null) {
+      return this.tileColors[tile];
+    }
+    return pixels[((row & (TILE_SIZE - 1)) << TILE_SHIFT) + (column & (TILE_SIZE - 1))];
+  }
+
+  /**
+   * This method gets the width and height in pixels of a whole tile.
+   *
+   * @return the size of a tile.
+   */
+  @Override
+  public int getTileSize() {
+    return TILE_SIZE;
+  }
+
+  /**
+   * This method gets the number of tiles across this image.
+   *
+   * @return the number of tiles in each row of tiles.
+   */
+  @Override
+  public int getTilesAcross() {
+    return this.tilesAcross;
+  }
+
+  /**
+   * This method gets the number of tiles down this image.
+   *
+   * @return the number of tiles in each column of tiles.
+   */
+  @Override
+  public int getTilesDown() {
+    return this.tilePixels.length / this.tilesAcross;
+  }
+
+  /**
+   * This method checks whether every pixel of a tile has the same color.
+   *
+   * @param tileRow    the row of the tile.
+   * @param tileColumn the column of the tile.
+   * @return true if the tile is kept as a single color.
+   */
+  @Override
+  public boolean isUniform(int tileRow, int tileColumn) {
+    return this.tilePixels[tileRow * this.tilesAcross + tileColumn] == null;
+  }
+
+  /**
+   * This method gets the color of a uniform tile, packed into one integer with the red, green and
+   * blue channels stored in 8 bits each (0xRRGGBB).
+   *
+   * @param tileRow    the row of the tile.
+   * @param tileColumn the column of the tile.
+   * @return the color of every pixel of the tile.
+   * @throws IllegalStateException if the tile is not uniform.
+   */
+  @Override
+  public int getUniformColor(int tileRow, int tileColumn) throws IllegalStateException {
+    if (!isUniform(tileRow, tileColumn)) {
+      throw new IllegalStateException("Error: tile is not uniform");
+    }
+    return this.tileColors[tileRow * this.tilesAcross + tileColumn];
+  }
+
+}
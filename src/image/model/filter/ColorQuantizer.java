@@ -0,0 +1,104 @@
+package image.model.filter;
+
+import java.util.Arrays;
+
+import image.model.Image;
+import image.model.IndexedImage;
+import image.model.IndexedImageImpl;
+
+/**
+ * This class reduces an image to an adaptive palette. The palette is built with median cut, and
+ * every pixel is mapped to its palette color through a palette search with a nearest-color cache.
+ * The difference between a pixel and its palette color can be spread over its neighbors with the
+ * Floyd-Steinberg kernel, channel by channel, which hides the banding of a small palette. The
+ * result is written into a new indexed image, so the given image is never changed.
+ */
+class ColorQuantizer {
+
+  /**
+   * The largest number of colors in the palette.
+   */
+  private final int colors;
+
+  /**
+   * Whether the error of each pixel is spread over its neighbors.
+   */
+  private final boolean dither;
+
+  /**
+   * This constructor creates a quantizer for the given number of colors.
+   *
+   * @param colors the largest number of colors in the palette.
+   * @param dither whether the error of each pixel is spread over its neighbors.
+   * @throws IllegalArgumentException if the number of colors is not between 1 and 256.
+   */
+  ColorQuantizer(int colors, boolean dither) throws IllegalArgumentException {
+    if (colors < 1 || colors > 256) {
+      throw new IllegalArgumentException("Error: the number of colors must be between 1 and 256");
+    }
+    this.colors = colors;
+    this.dither = dither;
+  }
+
+  /**
+   * This method quantizes the given image.
+   *
+   * @param image the image to quantize.
+   * @return a new indexed image with at most the given number of colors.
+   */
+  IndexedImage apply(Image image) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int[] palette = MedianCut.palette(image, colors);
+    PaletteSearch search = new PaletteSearch(palette);
+    byte[] indices = new byte[width * height];
+    if (!dither) {
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          int color = image.getRGB(i, j);
+          indices[i * width + j] = (byte) search.lookup((color >> 16) & 0xFF,
+                  (color >> 8) & 0xFF, color & 0xFF);
+        }
+      }
+      return new IndexedImageImpl(indices, palette, width, height);
+    }
+
+    DitherKernel kernel = DitherKernel.FLOYD_STEINBERG;
+    int rows = kernel.getRows();
+    int reach = kernel.getReach();
+    int divisor = kernel.getDivisor();
+    int[][] errors = new int[rows][3 * (width + 2 * reach)];
+    int[] pixel = new int[3];
+    for (int i = 0; i < height; i++) {
+      int[] current = errors[i % rows];
+      for (int j = 0; j < width; j++) {
+        int color = image.getRGB(i, j);
+        for (int channel = 0; channel < 3; channel++) {
+          int value = ((color >> (16 - 8 * channel)) & 0xFF)
+                  + current[3 * (j + reach) + channel];
+          pixel[channel] = Math.max(0, Math.min(255, value));
+        }
+        int index = search.lookup(pixel[0], pixel[1], pixel[2]);
+        indices[i * width + j] = (byte) index;
+        for (int channel = 0; channel < 3; channel++) {
+          int error = pixel[channel] - ((palette[index] >> (16 - 8 * channel)) & 0xFF);
+          if (error == 0) {
+            continue;
+          }
+          for (int row = 0; row < rows; row++) {
+            for (int offset = -reach; offset <= reach; offset++) {
+              int weight = kernel.getWeight(row, offset);
+              if (weight != 0) {
+                errors[(i + row) % rows][3 * (j + reach + offset) + channel]
+                        += ErrorDiffusion.diffuse(weight * error, divisor);
+              }
+            }
+          }
+        }
+      }
+      Arrays.fill(current, 0);
+    }
+    return new IndexedImageImpl(indices, palette, width, height);
+  }
+
+}
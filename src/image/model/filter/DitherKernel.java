@@ -0,0 +1,127 @@
+package image.model.filter;
+
+/**
+ * This enum represents the error diffusion kernels that the dither filter can use. Each kernel
+ * lists the weights that the quantization error of a pixel is spread over, starting with the row of
+ * the pixel itself. The pixel sits in the middle column of the first row, and every weight is
+ * divided by the kernel's divisor.
+ */
+public enum DitherKernel {
+
+  /**
+   * The Floyd-Steinberg kernel, which spreads the error over four neighbors.
+   */
+  FLOYD_STEINBERG(16, new int[][]{
+          {0, 0, 7},
+          {3, 5, 1}}),
+
+  /**
+   * The Atkinson kernel, which spreads three quarters of the error over six neighbors.
+   */
+  ATKINSON(8, new int[][]{
+          {0, 0, 0, 1, 1},
+          {0, 1, 1, 1, 0},
+          {0, 0, 1, 0, 0}}),
+
+  /**
+   * The Jarvis, Judice and Ninke kernel, which spreads the error over twelve neighbors.
+   */
+  JARVIS_JUDICE_NINKE(48, new int[][]{
+          {0, 0, 0, 7, 5},
+          {3, 5, 7, 5, 3},
+          {1, 3, 5, 3, 1}}),
+
+  /**
+   * The Stucki kernel, which spreads the error over twelve neighbors.
+   */
+  STUCKI(42, new int[][]{
+          {0, 0, 0, 8, 4},
+          {2, 4, 8, 4, 2},
+          {1, 2, 4, 2, 1}}),
+
+  /**
+   * The Sierra kernel, which spreads the error over ten neighbors.
+   */
+  SIERRA(32, new int[][]{
+          {0, 0, 0, 5, 3},
+          {2, 4, 5, 4, 2},
+          {0, 2, 3, 2, 0}});
+
+  /**
+   * The value that every weight of this kernel is divided by.
+   */
+  private final int divisor;
+
+  /**
+   * The weights of this kernel, with the current pixel in the middle of the first row.
+   */
+  private final int[][] weights;
+
+  /**
+   * This constructor creates a kernel with the given divisor and weights.
+   *
+   * @param divisor the value that every weight is divided by.
+   * @param weights the weights, with the current pixel in the middle of the first row.
+   */
+  DitherKernel(int divisor, int[][] weights) {
+    this.divisor = divisor;
+    this.weights = weights;
+  }
+
+  /**
+   * This method gets the value that every weight of this kernel is divided by.
+   *
+   * @return the divisor of this kernel.
+   */
+  public int getDivisor() {
+    return divisor;
+  }
+
+  /**
+   * This method gets the number of rows, including the current one, that this kernel spreads error
+   * over.
+   *
+   * @return the number of rows of this kernel.
+   */
+  public int getRows() {
+    return weights.length;
+  }
+
+  /**
+   * This method gets how many columns this kernel reaches to either side of the current pixel.
+   *
+   * @return the reach of this kernel to the left and to the right.
+   */
+  public int getReach() {
+    return weights[0].length / 2;
+  }
+
+  /**
+   * This method gets a weight of this kernel.
+   *
+   * @param row    the row of the weight, where 0 is the row of the current pixel.
+   * @param offset the column of the weight relative to the current pixel.
+   * @return the weight at the given position.
+   */
+  public int getWeight(int row, int offset) {
+    return weights[row][offset + getReach()];
+  }
+
+  /**
+   * This method finds the kernel with the given name. Names are written in lower case with words
+   * separated by dashes, for example "floyd-steinberg" or "jarvis-judice-ninke".
+   *
+   * @param name the name of the kernel.
+   * @return the kernel with the given name.
+   * @throws IllegalArgumentException if there is no kernel with the given name.
+   */
+  public static DitherKernel fromName(String name) throws IllegalArgumentException {
+    for (DitherKernel kernel : values()) {
+      if (kernel.name().replace('_', '-').equalsIgnoreCase(name)) {
+        return kernel;
+      }
+    }
+    throw new IllegalArgumentException("Error: unknown dither kernel " + name);
+  }
+
+}
@@ -0,0 +1,54 @@
+package image.model.filter;
+
+import image.model.BinaryImage;
+import image.model.Image;
+
+/**
+ * This class dithers an image by error diffusion one band of rows at a time, for images that are
+ * never held in memory as a whole. The error that the rows of a band spread into the rows below
+ * it is kept until the next band arrives, so the bands together are dithered exactly as the whole
+ * image would be.
+ */
+public final class DitherStream {
+
+  /**
+   * The ditherer that spreads the error.
+   */
+  private final ErrorDiffusion diffusion;
+
+  /**
+   * The rolling error buffers, one per kernel row.
+   */
+  private final int[][] errors;
+
+  /**
+   * The row of the image that the next band starts at.
+   */
+  private int nextRow;
+
+  /**
+   * This constructor creates a dither stream for an image of the given width.
+   *
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param width      the width of the image.
+   */
+  public DitherStream(DitherKernel kernel, boolean serpentine, int width) {
+    this.diffusion = new ErrorDiffusion(kernel, serpentine);
+    this.errors = new int[kernel.getRows()][width + 2 * kernel.getReach()];
+  }
+
+  /**
+   * This method dithers the next band of the image. The band should be grey already, as for the
+   * dither filter.
+   *
+   * @param band the rows that follow the rows of the previous band.
+   * @return a new binary image with the dithered rows of the band.
+   */
+  public BinaryImage next(Image band) {
+    BinaryImage result = this.diffusion.apply(band, this.nextRow, this.errors);
+    this.nextRow += band.getImageHeight();
+    return result;
+  }
+
+}
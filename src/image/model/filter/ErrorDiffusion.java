@@ -0,0 +1,304 @@
+package image.model.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import image.model.BinaryImage;
+import image.model.BinaryImageImpl;
+import image.model.GreyscaleImage;
+import image.model.Image;
+
+/**
+ * This class dithers an image to black and white by error diffusion. The quantization error of
+ * each pixel is spread over its unvisited neighbors using the weights of a dither kernel. Pending
+ * error is kept in one rolling row buffer per kernel row, padded on both sides so that error
+ * spread past the edge of the image falls into the padding instead of needing a bounds check. The
+ * result is written into a new binary image, so the given image is never changed.
+ */
+class ErrorDiffusion {
+
+  /**
+   * How many columns a row finishes between updates of its progress counter in the parallel
+   * wavefront. It must be a power of two.
+   */
+  private static final int PROGRESS_STEP = 8;
+
+  /**
+   * How many times a row checks the progress of the row above it before its thread parks until
+   * that row makes progress, so that waiting rows do not starve the rows they wait on when there
+   * are more threads than processors.
+   */
+  private static final int SPIN_LIMIT = 100;
+
+  /**
+   * The kernel that error is spread with.
+   */
+  private final DitherKernel kernel;
+
+  /**
+   * Whether every other row is scanned from right to left.
+   */
+  private final boolean serpentine;
+
+  /**
+   * The row offsets of the non-zero weights of the kernel.
+   */
+  private final int[] rowOffsets;
+
+  /**
+   * The column offsets of the non-zero weights of the kernel.
+   */
+  private final int[] columnOffsets;
+
+  /**
+   * The non-zero weights of the kernel.
+   */
+  private final int[] weights;
+
+  /**
+   * This constructor creates an error diffusion ditherer with the given kernel.
+   *
+   * @param kernel     the kernel that error is spread with.
+   * @param serpentine whether every other row is scanned from right to left, with the kernel
+   *                   mirrored.
+   */
+  ErrorDiffusion(DitherKernel kernel, boolean serpentine) {
+    this.kernel = kernel;
+    this.serpentine = serpentine;
+    int count = 0;
+    for (int i = 0; i < kernel.getRows(); i++) {
+      for (int j = -kernel.getReach(); j <= kernel.getReach(); j++) {
+        if (kernel.getWeight(i, j) != 0) {
+          count++;
+        }
+      }
+    }
+    this.rowOffsets = new int[count];
+    this.columnOffsets = new int[count];
+    this.weights = new int[count];
+    count = 0;
+    for (int i = 0; i < kernel.getRows(); i++) {
+      for (int j = -kernel.getReach(); j <= kernel.getReach(); j++) {
+        if (kernel.getWeight(i, j) != 0) {
+          this.rowOffsets[count] = i;
+          this.columnOffsets[count] = j;
+          this.weights[count] = kernel.getWeight(i, j);
+          count++;
+        }
+      }
+    }
+  }
+
+  /**
+   * This method dithers the given image. Greyscale images are read directly; for other images the
+   * red channel is used, as the image is expected to be grey already.
+   *
+   * @param image the image to dither.
+   * @return a new binary image that only contains black and white pixels.
+   */
+  BinaryImage apply(Image image) {
+    int[][] errors = new int[kernel.getRows()][image.getImageWidth() + 2 * kernel.getReach()];
+    return apply(image, 0, errors);
+  }
+
+  /**
+   * This method dithers the rows of a band of an image, continuing from the rows above it. The
+   * pending error of the rows below the band is left in the given buffers, so dithering the bands
+   * of an image one after the other with the same buffers gives the same result as dithering the
+   * whole image.
+   *
+   * @param band     the rows to dither.
+   * @param firstRow the row of the image that the first row of the band is.
+   * @param errors   the rolling error buffers, one per kernel row, each as long as the width of the
+   *                 image plus twice the reach of the kernel.
+   * @return a new binary image with the dithered rows of the band.
+   */
+  BinaryImage apply(Image band, int firstRow, int[][] errors) {
+    int width = band.getImageWidth();
+    int height = band.getImageHeight();
+    int rows = kernel.getRows();
+    int reach = kernel.getReach();
+    int divisor = kernel.getDivisor();
+    byte[] grey = null;
+    if (band instanceof GreyscaleImage) {
+      grey = ((GreyscaleImage) band).getGreyValues();
+    }
+    int wordsPerRow = BinaryImageImpl.wordsPerRow(width);
+    long[] output = new long[wordsPerRow * height];
+    for (int bandRow = 0; bandRow < height; bandRow++) {
+      int row = firstRow + bandRow;
+      int[] current = errors[row % rows];
+      boolean reverse = serpentine && row % 2 == 1;
+      int step = reverse ? -1 : 1;
+      int column = reverse ? width - 1 : 0;
+      for (int i = 0; i < width; i++, column += step) {
+        int index = bandRow * width + column;
+        int source;
+        if (grey != null) {
+          source = grey[index] & 0xFF;
+        } else {
+          source = (band.getRGB(bandRow, column) >> 16) & 0xFF;
+        }
+        int oldColor = source + current[column + reach];
+        int newColor = oldColor < 128 ? 0 : 255;
+        int error = oldColor - newColor;
+        if (newColor != 0) {
+          output[bandRow * wordsPerRow + (column >>> 6)] |= Long.MIN_VALUE >>> (column & 63);
+        }
+        if (error != 0) {
+          for (int k = 0; k < weights.length; k++) {
+            errors[(row + rowOffsets[k]) % rows][column + reach + step * columnOffsets[k]]
+                    += diffuse(weights[k] * error, divisor);
+          }
+        }
+      }
+      Arrays.fill(current, 0);
+    }
+    return new BinaryImageImpl(output, width, height);
+  }
+
+  /**
+   * This method dithers the given image with several threads and gives exactly the same result as
+   * apply. Rows are handed out to the threads in turn and run as a skewed wavefront: a row may
+   * process a column once the row above it has finished every column that spreads error into that
+   * pixel, which is two columns ahead for Floyd-Steinberg. Each row publishes how far it has come
+   * in a lock-free progress counter that the row below waits on. Only Floyd-Steinberg, which
+   * spreads error over a single row below and one pixel to the right, can run this way without two
+   * rows writing the same buffer; for other kernels, and for serpentine scanning, the image is
+   * dithered by apply instead.
+   *
+   * @param image   the image to dither.
+   * @param threads the number of threads to use.
+   * @return a new binary image that only contains black and white pixels.
+   */
+  BinaryImage applyParallel(Image image, int threads) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    threads = Math.min(threads, height);
+    if (serpentine || kernel != DitherKernel.FLOYD_STEINBERG || threads < 2) {
+      return apply(image);
+    }
+    int reach = kernel.getReach();
+    int divisor = kernel.getDivisor();
+    int lag = reach + 1;
+    byte[] grey = null;
+    if (image instanceof GreyscaleImage) {
+      grey = ((GreyscaleImage) image).getGreyValues();
+    }
+    byte[] source = grey;
+    int wordsPerRow = BinaryImageImpl.wordsPerRow(width);
+    long[] output = new long[wordsPerRow * height];
+    int[][] below = new int[threads + 1][width + 2 * reach];
+    AtomicIntegerArray progress = new AtomicIntegerArray(height);
+    AtomicReferenceArray<Thread> waiting = new AtomicReferenceArray<>(height);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int worker = 0; worker < threads; worker++) {
+        int first = worker;
+        int step = threads;
+        workers.add(executor.submit(() -> {
+          for (int row = first; row < height; row += step) {
+            int[] current = below[row % below.length];
+            int[] next = below[(row + 1) % below.length];
+            Arrays.fill(next, 0);
+            int ready = row == 0 ? width : 0;
+            int carry = 0;
+            for (int column = 0; column < width; column++) {
+              int needed = Math.min(width, column + lag);
+              int spins = 0;
+              while (ready < needed) {
+                ready = progress.get(row - 1);
+                if (ready < needed && ++spins >= SPIN_LIMIT) {
+                  waiting.set(row - 1, Thread.currentThread());
+                  ready = progress.get(row - 1);
+                  if (ready < needed) {
+                    LockSupport.park(this);
+                  }
+                }
+              }
+              int index = row * width + column;
+              int value;
+              if (source != null) {
+                value = source[index] & 0xFF;
+              } else {
+                value = (image.getRGB(row, column) >> 16) & 0xFF;
+              }
+              int oldColor = value + current[column + reach] + carry;
+              int newColor = oldColor < 128 ? 0 : 255;
+              int error = oldColor - newColor;
+              if (newColor != 0) {
+                output[row * wordsPerRow + (column >>> 6)] |= Long.MIN_VALUE >>> (column & 63);
+              }
+              carry = 0;
+              if (error != 0) {
+                for (int k = 0; k < weights.length; k++) {
+                  int share = diffuse(weights[k] * error, divisor);
+                  if (rowOffsets[k] == 0) {
+                    carry += share;
+                  } else {
+                    next[column + reach + columnOffsets[k]] += share;
+                  }
+                }
+              }
+              if ((column & (PROGRESS_STEP - 1)) == PROGRESS_STEP - 1) {
+                publish(progress, waiting, row, column + 1);
+              }
+            }
+            publish(progress, waiting, row, width);
+          }
+        }));
+      }
+      for (Future<?> future : workers) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Error: dither was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Error: could not dither image", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return new BinaryImageImpl(output, width, height);
+  }
+
+  /**
+   * This helper method publishes how many columns of a row are finished and wakes up the thread
+   * of the row below if it has stopped spinning and parked.
+   *
+   * @param progress the number of finished columns of every row.
+   * @param waiting  the thread parked on every row, if any.
+   * @param row      the row that has made progress.
+   * @param columns  the number of finished columns of the row.
+   */
+  private static void publish(AtomicIntegerArray progress, AtomicReferenceArray<Thread> waiting,
+                              int row, int columns) {
+    progress.set(row, columns);
+    Thread waiter = waiting.get(row);
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  /**
+   * This helper method computes the share of the error that one neighbor receives, rounded to the
+   * nearest integer with halves rounded up.
+   *
+   * @param weightedError the error multiplied by the weight of the neighbor.
+   * @param divisor       the divisor of the kernel.
+   * @return the rounded share of the error.
+   */
+  static int diffuse(int weightedError, int divisor) {
+    return Math.floorDiv(2 * weightedError + divisor, 2 * divisor);
+  }
+
+}
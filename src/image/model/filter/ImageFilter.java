@@ -1,5 +1,7 @@
 package image.model.filter;
 
+import java.util.Random;
+
 import image.model.Image;
 
 /**
@@ -25,6 +27,19 @@ public interface ImageFilter {
    */
   Image applyFilter(Image image, double[][] filter);
 
+  /**
+   * This method applies a blur or a sharpen filter to a given image in linear light. Each channel
+   * is decoded from sRGB through a lookup table, the filter is applied to the linear values, and
+   * the result is encoded back to sRGB through a second lookup table. This keeps edges from
+   * darkening the way they do when the filter is applied to the sRGB values directly.
+   *
+   * @param image  the image that the filter will be applied to.
+   * @param filter the filter that is applied to the image (e.g. blur or sharpen).
+   * @return a new image object that includes an array of pixels that represent the blurred or
+   *         sharpened image formatted as [[[a,b,c],[e,f,g]],[[h,i,j],[k,l,m]]].
+   */
+  Image applyLinearFilter(Image image, double[][] filter);
+
   /**
    * This method uses a dither effect on an image. Dither takes an image and creates a dot pattern
    * using black and white pixels. It does this by first converting the image to greyscale, and then
@@ -35,6 +50,74 @@ public interface ImageFilter {
    */
   Image applyDitherFilter(Image image);
 
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel. The error
+   * between each grey pixel and the closest of black or white is spread over the pixel's unvisited
+   * neighbors using the weights of the kernel. With serpentine scanning every other row is
+   * processed from right to left with the kernel mirrored, which reduces directional artifacts.
+   *
+   * @param image      the image that the dither filter will be applied to.
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @return the new image produced by this dither filter.
+   */
+  Image applyDitherFilter(Image image, DitherKernel kernel, boolean serpentine);
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel, optionally
+   * on several threads. The parallel mode runs rows as a skewed wavefront and gives exactly the
+   * same result as the serial one. It is used for Floyd-Steinberg without serpentine scanning;
+   * other settings are always dithered serially.
+   *
+   * @param image      the image that the dither filter will be applied to.
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param parallel   whether rows should be dithered on several threads.
+   * @return the new image produced by this dither filter.
+   */
+  Image applyDitherFilter(Image image, DitherKernel kernel, boolean serpentine, boolean parallel);
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel on the
+   * given number of threads. Several threads give exactly the same result as one. They are used
+   * for Floyd-Steinberg without serpentine scanning; other settings are always dithered serially.
+   *
+   * @param image      the image that the dither filter will be applied to.
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param threads    the number of threads to dither rows on.
+   * @return the new image produced by this dither filter.
+   * @throws IllegalArgumentException if the number of threads is less than one.
+   */
+  Image applyDitherFilter(Image image, DitherKernel kernel, boolean serpentine, int threads)
+          throws IllegalArgumentException;
+
+  /**
+   * This method uses an ordered dither effect on an image. Each grey pixel is compared against the
+   * threshold at its position in the given map, which is tiled over the image, and becomes white if
+   * it is at or above the threshold and black otherwise. Since pixels do not depend on each other,
+   * the image is processed in parallel.
+   *
+   * @param image the image that the dither filter will be applied to.
+   * @param map   the threshold map that is tiled over the image.
+   * @return the new image produced by this dither filter.
+   */
+  Image applyOrderedDitherFilter(Image image, ThresholdMap map);
+
+  /**
+   * This method reduces an image to an adaptive palette of at most the given number of colors. The
+   * palette is built with median cut, and every pixel is mapped to its nearest palette color,
+   * optionally spreading the difference over its neighbors with the Floyd-Steinberg kernel.
+   *
+   * @param image  the image that will be quantized.
+   * @param colors the largest number of colors in the palette.
+   * @param dither whether the error of each pixel is spread over its neighbors.
+   * @return a new indexed image with at most the given number of colors.
+   * @throws IllegalArgumentException if the number of colors is not between 1 and 256.
+   */
+  Image applyQuantizeFilter(Image image, int colors, boolean dither)
+          throws IllegalArgumentException;
+
   /**
    * This method uses a mosaic effect on an existing image to create a new image. It uses a seed
    * value to select a number of random pixels in an image, and then performs a "closest-neighbor"
@@ -50,4 +133,65 @@ public interface ImageFilter {
    */
   Image applyMosaicFilter(Image image, final int seeds) throws IllegalArgumentException;
 
+  /**
+   * This method uses a mosaic effect on an existing image, finding the nearest seed of every pixel
+   * with the given method. The grid method compares each pixel with the seeds around it, while the
+   * exact and jump flood methods compute the tiles of the whole image at once, at a cost that does
+   * not depend on the number of seeds.
+   *
+   * @param seeds  the number of tiles the image will use to create the mosaic.
+   * @param method the way the nearest seed of every pixel is found.
+   * @return a new image with the mosaic effect applied.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds
+   *                                  or if the number of seeds is less than one.
+   */
+  Image applyMosaicFilter(Image image, final int seeds, MosaicMethod method)
+          throws IllegalArgumentException;
+
+  /**
+   * This method uses a mosaic effect on an existing image, picking the seeds with the given random
+   * number generator. No pixel is picked as a seed twice, and the same generator state always gives
+   * the same mosaic.
+   *
+   * @param seeds  the number of tiles the image will use to create the mosaic.
+   * @param method the way the nearest seed of every pixel is found.
+   * @param random the random number generator that picks the seeds.
+   * @return a new image with the mosaic effect applied.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds
+   *                                  or if the number of seeds is less than one.
+   */
+  Image applyMosaicFilter(Image image, final int seeds, MosaicMethod method, Random random)
+          throws IllegalArgumentException;
+
+  /**
+   * This method splits an existing image into superpixels with SLIC and paints every superpixel
+   * with the average color of its pixels. Superpixels are grown from a regular grid of centers by
+   * a k-means clustering over color and position, where each center only claims pixels within a
+   * window of twice the grid spacing.
+   *
+   * @param superpixels the number of superpixels that is asked for.
+   * @param compactness how strongly the distance in pixels counts against the color difference.
+   * @param iterations  the largest number of iterations of the clustering.
+   * @return a new image with the superpixel effect applied.
+   * @throws IllegalArgumentException if the number of superpixels or iterations is less than one,
+   *                                  if the compactness is negative, or if the image has fewer
+   *                                  pixels than the number of superpixels.
+   */
+  Image applySuperpixelFilter(Image image, int superpixels, int compactness, int iterations)
+          throws IllegalArgumentException;
+
+  /**
+   * This method paints an adaptive mosaic of the image. The image is split into quadrants while
+   * the variance of the colors of a block is at least the threshold, and every block that is not
+   * split is painted with the average color of its pixels.
+   *
+   * @param threshold the variance at which a block is split, averaged over the three channels.
+   * @param minSize   the smallest width or height of a block.
+   * @return a new image with the adaptive mosaic effect applied.
+   * @throws IllegalArgumentException if the threshold is negative or the smallest size is less
+   *                                  than one.
+   */
+  Image applyQuadMosaicFilter(Image image, int threshold, int minSize)
+          throws IllegalArgumentException;
+
 }
@@ -1,12 +1,15 @@
 package image.model.filter;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Random;
+import java.util.Set;
 
+import image.model.GreyscaleImage;
+import image.model.GreyscaleImageImpl;
 import image.model.Image;
 import image.model.ImageImpl;
+import image.model.RunLengthImage;
+import image.model.TiledImage;
 
 /**
  * This class represents the implementation of the image filter interface. It is used to apply a
@@ -22,6 +25,9 @@ public class ImageFilterImpl implements ImageFilter {
    * an part of an image and creates a matrix of its neighboring values. It then multiples each item
    * in the matrix with the corresponding value in the filter matrix. The new pixel is created from
    * the sum of this operation. This method creates a new image from the operation performed.
+   * Run-length images are filtered run by run and stay run-length images. Tiled images stay tiled
+   * images, and a uniform tile surrounded by tiles of its color is filtered once for the whole
+   * tile.
    *
    * @param image  the image that the filter will be applied to.
    * @param filter the filter that is applied to the image (e.g. blur or sharpen).
@@ -38,18 +44,120 @@ public class ImageFilterImpl implements ImageFilter {
     if (filter.length != filter[0].length) {
       throw new IllegalArgumentException("Error: given filter must have equal width and height");
     }
+    if (image instanceof GreyscaleImage) {
+      return applyGreyscaleFilter((GreyscaleImage) image, filter);
+    }
+    if (image instanceof RunLengthImage) {
+      return RunLengthConvolution.apply((RunLengthImage) image, filter);
+    }
+    if (image instanceof TiledImage) {
+      return TiledConvolution.apply((TiledImage) image, filter);
+    }
     int width = image.getImageWidth();
     int height = image.getImageHeight();
+    int[][][] pixels = image.getImage();
     int[][][] newImage = new int[height][width][3];
     for (int row = 0; row < height; row++) {
       for (int column = 0; column < width; column++) {
-        newImage[row][column] = createNewPixel(getKernel(row, column, image.getImage(),
+        newImage[row][column] = createNewPixel(getKernel(row, column, pixels,
                 filter.length), filter);
       }
     }
     return new ImageImpl(clamp(newImage));
   }
 
+  /**
+   * This helper method applies a blur or a sharpen filter to a greyscale image. It works on the
+   * single grey channel only and gives the same result as filtering each of the three identical
+   * channels, with every product rounded before it is summed and pixels outside of the image
+   * counted as black.
+   *
+   * @param image  the greyscale image that the filter will be applied to.
+   * @param filter the filter that is applied to the image.
+   * @return a new greyscale image with the filter applied.
+   */
+  private Image applyGreyscaleFilter(GreyscaleImage image, double[][] filter) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    byte[] grey = image.getGreyValues();
+    byte[] newGrey = new byte[grey.length];
+    int bounds = filter.length / 2;
+    for (int row = 0; row < height; row++) {
+      for (int column = 0; column < width; column++) {
+        int value = 0;
+        for (int i = Math.max(0, bounds - row); i < filter.length
+                && row - bounds + i < height; i++) {
+          int offset = (row - bounds + i) * width + column - bounds;
+          for (int j = Math.max(0, bounds - column); j < filter.length
+                  && column - bounds + j < width; j++) {
+            value += (int) Math.round((grey[offset + j] & 0xFF) * filter[i][j]);
+          }
+        }
+        newGrey[row * width + column] = (byte) Math.max(0, Math.min(255, value));
+      }
+    }
+    return new GreyscaleImageImpl(newGrey, width, height);
+  }
+
+  /**
+   * This method applies a blur or a sharpen filter to a given image in linear light. Each channel
+   * is decoded from sRGB through a lookup table, the filter is applied to the linear values, and
+   * the result is encoded back to sRGB through a second lookup table. Pixels outside of the image
+   * count as black, the same as in applyFilter.
+   *
+   * @param image  the image that the filter will be applied to.
+   * @param filter the filter that is applied to the image (e.g. blur or sharpen).
+   * @return a new image object that includes an array of pixels that represent the blurred or
+   *         sharpened image formatted as [[[a,b,c],[e,f,g]],[[h,i,j],[k,l,m]]].
+   * @throws IllegalArgumentException if the given filter does not have odd dimensions and/or the
+   *                                  given filter does not have equal width and height.
+   */
+  @Override
+  public Image applyLinearFilter(Image image, double[][] filter) throws IllegalArgumentException {
+    if (filter.length % 2 == 0) {
+      throw new IllegalArgumentException("Error: given filter must have odd dimensions");
+    }
+    if (filter.length != filter[0].length) {
+      throw new IllegalArgumentException("Error: given filter must have equal width and height");
+    }
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int[][][] pixels = image.getImage();
+    float[][][] linear = new float[height][width][3];
+    for (int row = 0; row < height; row++) {
+      for (int column = 0; column < width; column++) {
+        for (int k = 0; k < 3; k++) {
+          linear[row][column][k] = SrgbTransfer.toLinear(pixels[row][column][k]);
+        }
+      }
+    }
+    int bounds = filter.length / 2;
+    int[][][] newImage = new int[height][width][3];
+    for (int row = 0; row < height; row++) {
+      for (int column = 0; column < width; column++) {
+        float red = 0;
+        float green = 0;
+        float blue = 0;
+        for (int i = Math.max(0, bounds - row); i < filter.length
+                && row - bounds + i < height; i++) {
+          float[][] linearRow = linear[row - bounds + i];
+          for (int j = Math.max(0, bounds - column); j < filter.length
+                  && column - bounds + j < width; j++) {
+            float[] pixel = linearRow[column - bounds + j];
+            float weight = (float) filter[i][j];
+            red += pixel[0] * weight;
+            green += pixel[1] * weight;
+            blue += pixel[2] * weight;
+          }
+        }
+        newImage[row][column][0] = SrgbTransfer.toSrgb(red);
+        newImage[row][column][1] = SrgbTransfer.toSrgb(green);
+        newImage[row][column][2] = SrgbTransfer.toSrgb(blue);
+      }
+    }
+    return new ImageImpl(newImage);
+  }
+
   /**
    * This helper method creates a new pixel by applying a filter matrix to a pixel matrix. It does
    * this by multiplying each pixel in the given kernel matrix by its corresponding value in the
@@ -130,7 +238,8 @@ public class ImageFilterImpl implements ImageFilter {
    * value to select a number of random pixels in an image, and then performs a "closest-neighbor"
    * algorithm on the entire image. The pixels that are closest to the randomized seeds take on the
    * color values of that seed. The result that is produced is a collection of colored tiles made up
-   * from the randomized seed colors.
+   * from the randomized seed colors. The nearest seed of each pixel is found through a uniform grid
+   * over the seeds, so only the seeds around the pixel are compared.
    *
    * @param seeds the number of tiles the image will use to create the mosaic.
    * @return a new image with the mosaic effect applied.
@@ -138,8 +247,45 @@ public class ImageFilterImpl implements ImageFilter {
    *                                  or if the number of seeds is less than one. The algorithm
    *                                  cannot proceed if there are more seeds than available pixels.
    */
+  @Override
   public Image applyMosaicFilter(Image image, final int seeds) throws IllegalArgumentException {
-    int[][][] imageDeepCopy = image.getImage();
+    return applyMosaicFilter(image, seeds, MosaicMethod.GRID);
+  }
+
+  /**
+   * This method uses a mosaic effect on an existing image, finding the nearest seed of every pixel
+   * with the given method. The seeds are picked with a new random number generator, so every call
+   * gives a different mosaic.
+   *
+   * @param seeds  the number of tiles the image will use to create the mosaic.
+   * @param method the way the nearest seed of every pixel is found.
+   * @return a new image with the mosaic effect applied.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds
+   *                                  or if the number of seeds is less than one.
+   */
+  @Override
+  public Image applyMosaicFilter(Image image, final int seeds, MosaicMethod method)
+          throws IllegalArgumentException {
+    return applyMosaicFilter(image, seeds, method, new Random());
+  }
+
+  /**
+   * This method uses a mosaic effect on an existing image, picking the seeds with the given random
+   * number generator. The nearest seed of every pixel is first stored in one label map. The colors
+   * of every tile are then summed over bands of rows on the fork-join pool, and every tile is
+   * painted with its average color, row by row in parallel. The sums are exact, so the same
+   * generator state always gives the same mosaic however the work is split.
+   *
+   * @param seeds  the number of tiles the image will use to create the mosaic.
+   * @param method the way the nearest seed of every pixel is found.
+   * @param random the random number generator that picks the seeds.
+   * @return a new image with the mosaic effect applied.
+   * @throws IllegalArgumentException if the area of the image is smaller than the number of seeds
+   *                                  or if the number of seeds is less than one.
+   */
+  @Override
+  public Image applyMosaicFilter(Image image, final int seeds, MosaicMethod method, Random random)
+          throws IllegalArgumentException {
     int height = image.getImageHeight();
     int width = image.getImageWidth();
     if (seeds > width * height || seeds < 1) {
@@ -147,134 +293,186 @@ public class ImageFilterImpl implements ImageFilter {
     } else if (seeds == width * height) {
       return image;
     }
-    int[][][] newMosaic = new int[height][width][3];
-    List<PixelImpl> centroids = getCentroids(image, seeds);
-    for (int row = 0; row < height; row++) {
-      for (int column = 0; column < width; column++) {
-        ArrayList<Double> distances = new ArrayList<>();
-        for (int i = 0; i < seeds; i++) {
-          distances.add(euclideanCalculator(column, row, centroids.get(i)));
-        }
-        int min = distances.indexOf(Collections.min(distances));
-        centroids.get(min).giveNewColor(imageDeepCopy[row][column]);
-      }
+    int[] centroids = getCentroids(width * height, seeds, random);
+    int[] seedX = new int[seeds];
+    int[] seedY = new int[seeds];
+    for (int i = 0; i < seeds; i++) {
+      seedX[i] = centroids[i] % width;
+      seedY[i] = centroids[i] / width;
     }
-    for (int row = 0; row < height; row++) {
-      for (int column = 0; column < width; column++) {
-        ArrayList<Double> distances = new ArrayList<>();
-        for (int i = 0; i < seeds; i++) {
-          distances.add(euclideanCalculator(column, row, centroids.get(i)));
-        }
-        int min = distances.indexOf(Collections.min(distances));
-        newMosaic[row][column] = centroids.get(min).getAverageColor();
-      }
+    int[] labels = method.label(seedX, seedY, width, height);
+    return TileSums.paint(image, labels, seeds);
+  }
+
+  /**
+   * This method splits an existing image into superpixels with SLIC and paints every superpixel
+   * with the average color of its pixels. Every iteration labels the rows of the image in
+   * parallel, and the centers are moved with the same tile sums as the mosaic filter. The
+   * iterations stop early once no center moves.
+   *
+   * @param superpixels the number of superpixels that is asked for.
+   * @param compactness how strongly the distance in pixels counts against the color difference.
+   * @param iterations  the largest number of iterations of the clustering.
+   * @return a new image with the superpixel effect applied.
+   * @throws IllegalArgumentException if the number of superpixels or iterations is less than one,
+   *                                  if the compactness is negative, or if the image has fewer
+   *                                  pixels than the number of superpixels.
+   */
+  @Override
+  public Image applySuperpixelFilter(Image image, int superpixels, int compactness,
+                                     int iterations) throws IllegalArgumentException {
+    int[] labels = new Superpixels(superpixels, compactness, iterations).label(image);
+    int tiles = 0;
+    for (int label : labels) {
+      tiles = Math.max(tiles, label + 1);
     }
-    return new ImageImpl(newMosaic);
+    return TileSums.paint(image, labels, tiles);
   }
 
   /**
-   * This helper method calculates the Euclidean distance between a given data pixel and given
-   * centroid. It is used in calculating the distance from each pixel to each seed in the mosaic
-   * method above.
+   * This method paints an adaptive mosaic of the image. The image is split into quadrants while
+   * the variance of the colors of a block is at least the threshold, and every block that is not
+   * split is painted with the average color of its pixels. Integral images of the colors and of
+   * their squares give the variance of any block in constant time, and the blocks are split on the
+   * fork-join pool.
    *
-   * @param column   the given pixel column.
-   * @param row      the given pixel row.
-   * @param centroid the given centroid pixel.
-   * @return a double value of the distance between the two given pixels.
+   * @param threshold the variance at which a block is split, averaged over the three channels.
+   * @param minSize   the smallest width or height of a block.
+   * @return a new image with the adaptive mosaic effect applied.
+   * @throws IllegalArgumentException if the threshold is negative or the smallest size is less
+   *                                  than one.
    */
-  private double euclideanCalculator(int column, int row, PixelImpl centroid) {
-    double x = Math.pow(column - centroid.getX(), 2);
-    double y = Math.pow(row - centroid.getY(), 2);
-    return Math.sqrt(x + y);
+  @Override
+  public Image applyQuadMosaicFilter(Image image, int threshold, int minSize)
+          throws IllegalArgumentException {
+    return QuadMosaic.paint(image, threshold, minSize);
   }
 
   /**
-   * This method selects random centroids from the given pixels and adds them to an ArrayList of
-   * centroids. It is used in selecting the seeds for the mosaic method above.
+   * This method selects distinct random centroids among the pixels of an image with Floyd's
+   * sampling algorithm. Every pixel is equally likely to be picked and no pixel is picked twice,
+   * and it only draws one random number per centroid, however close the number of centroids gets
+   * to the number of pixels. Centroids are kept in the order they were picked, so the same
+   * generator state always gives the same centroids in the same order.
    *
-   * @param seeds an integer number of centroids.
-   * @return a list of randomly selected centroids.
+   * @param pixels the number of pixels in the image.
+   * @param seeds  an integer number of centroids.
+   * @param random the random number generator that picks the centroids.
+   * @return the pixel indices of the centroids, counted row by row.
    */
-  private List<PixelImpl> getCentroids(Image image, final int seeds) {
-    List<PixelImpl> centroids = new ArrayList<>();
-    Random rand = new Random();
-    int randX = rand.nextInt(image.getImageWidth());
-    int randY = rand.nextInt(image.getImageHeight());
-    PixelImpl randomPixel = new PixelImpl(randX, randY, image.getImage()[randY][randX]);
-    centroids.add(randomPixel);
-    while (centroids.size() != seeds) {
-      randX = rand.nextInt(image.getImageWidth());
-      randY = rand.nextInt(image.getImageHeight());
-      randomPixel = new PixelImpl(randX, randY, image.getImage()[randY][randX]);
-      for (PixelImpl p : centroids) {
-        if (!(randomPixel.getX() == p.getX() && randomPixel.getY() == p.getY())) {
-          centroids.add(randomPixel);
-          break;
-        }
+  private int[] getCentroids(int pixels, final int seeds, Random random) {
+    Set<Integer> picked = new LinkedHashSet<>();
+    for (int j = pixels - seeds; j < pixels; j++) {
+      int candidate = random.nextInt(j + 1);
+      if (!picked.add(candidate)) {
+        picked.add(j);
       }
     }
+    int[] centroids = new int[seeds];
+    int i = 0;
+    for (int centroid : picked) {
+      centroids[i++] = centroid;
+    }
     return centroids;
   }
 
   /**
    * This method uses a dither effect on an image. Dither takes an image and creates a dot pattern
-   * using black and white pixels. It does this by first converting the image to greyscale, and then
-   * iterating of the image and changing pixels to greyscale values.
+   * using black and white pixels. It does this by spreading the difference between each grey pixel
+   * and the closest of black or white over its neighbors with the Floyd-Steinberg kernel.
    *
    * @param image the image that the dither filter will be applied to.
    * @return the new image produced by this dither filter.
    */
+  @Override
   public Image applyDitherFilter(Image image) {
-    int width = image.getImageWidth();
-    int height = image.getImageHeight();
-    int[][][] newImage = image.getImage();
-    for (int row = 0; row < height; row++) {
-      for (int column = 0; column < width; column++) {
-        int oldColor = newImage[row][column][0];
-        int newColor = colorHelper(oldColor);
-        int error = oldColor - newColor;
-        newImage[row][column] = new int[]{newColor, newColor, newColor};
-        try {
-          int errorOne = newImage[row][column + 1][0] + (int) Math.round(0.4375 * error);
-          newImage[row][column + 1] = new int[]{errorOne, errorOne, errorOne};
-        } catch (ArrayIndexOutOfBoundsException ignored) {
-          // No comment necessary.
-        }
-        try {
-          int errorTwo = newImage[row + 1][column - 1][0] + (int) Math.round(0.1875 * error);
-          newImage[row + 1][column - 1] = new int[]{errorTwo, errorTwo, errorTwo};
-        } catch (ArrayIndexOutOfBoundsException ignored) {
-          // No comment necessary.
-        }
-        try {
-          int errorThree = (int) Math.round(0.3125 * error) + newImage[row + 1][column][0];
-          newImage[row + 1][column] = new int[]{errorThree, errorThree, errorThree};
-        } catch (ArrayIndexOutOfBoundsException ignored) {
-          // No comment necessary.
-        }
-        try {
-          int errorFour = (int) Math.round(0.0625 * error) + newImage[row + 1][column + 1][0];
-          newImage[row + 1][column + 1] = new int[]{errorFour, errorFour, errorFour};
-        } catch (ArrayIndexOutOfBoundsException ignored) {
-          // No comment necessary.
-        }
-      }
-    }
-    return new ImageImpl(newImage);
+    return applyDitherFilter(image, DitherKernel.FLOYD_STEINBERG, false);
+  }
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel. The error
+   * of each pixel is kept in rolling row buffers and the result is written to a new image, so the
+   * given image is not changed.
+   *
+   * @param image      the image that the dither filter will be applied to.
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @return the new image produced by this dither filter.
+   */
+  @Override
+  public Image applyDitherFilter(Image image, DitherKernel kernel, boolean serpentine) {
+    return applyDitherFilter(image, kernel, serpentine, false);
+  }
+
+  /**
+   * This method uses a dither effect on an image with the given error diffusion kernel, optionally
+   * on one thread per available processor. The parallel mode runs rows as a skewed wavefront, where
+   * a row may process a pixel once the row above it is two pixels further along, and gives exactly
+   * the same result as the serial one.
+   *
+   * @param image      the image that the dither filter will be applied to.
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param parallel   whether rows should be dithered on several threads.
+   * @return the new image produced by this dither filter.
+   */
+  @Override
+  public Image applyDitherFilter(Image image, DitherKernel kernel, boolean serpentine,
+                                 boolean parallel) {
+    return applyDitherFilter(image, kernel, serpentine,
+            parallel ? Runtime.getRuntime().availableProcessors() : 1);
   }
 
   /**
-   * This method is a helper method for the dither method. It checks to see if a color is closer to
-   * the minimum or maximum color value (0-255) and gets the closest value.
+   * This method uses a dither effect on an image with the given error diffusion kernel on the
+   * given number of threads. More than one thread runs rows as a skewed wavefront and gives exactly
+   * the same result as a single thread.
    *
-   * @param color the integer value for a color.
-   * @return the closest value to the color, minimum or maximum integer value.
+   * @param image      the image that the dither filter will be applied to.
+   * @param kernel     the kernel that the error of each pixel is spread with.
+   * @param serpentine whether every other row is scanned from right to left.
+   * @param threads    the number of threads to dither rows on.
+   * @return the new image produced by this dither filter.
+   * @throws IllegalArgumentException if the number of threads is less than one.
    */
-  private int colorHelper(int color) {
-    if (255 - color > color) {
-      return 0;
+  @Override
+  public Image applyDitherFilter(Image image, DitherKernel kernel, boolean serpentine,
+                                 int threads) throws IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Error: number of threads must be at least 1");
     }
-    return 255;
+    return new ErrorDiffusion(kernel, serpentine).applyParallel(image, threads);
+  }
+
+  /**
+   * This method uses an ordered dither effect on an image. Each grey pixel is compared against the
+   * threshold at its position in the given map, which is tiled over the image. Bands of rows are
+   * processed in parallel.
+   *
+   * @param image the image that the dither filter will be applied to.
+   * @param map   the threshold map that is tiled over the image.
+   * @return the new image produced by this dither filter.
+   */
+  @Override
+  public Image applyOrderedDitherFilter(Image image, ThresholdMap map) {
+    return new OrderedDither(map).apply(image);
+  }
+
+  /**
+   * This method reduces an image to an adaptive palette of at most the given number of colors. The
+   * palette is built with median cut, and every pixel is mapped to its nearest palette color,
+   * optionally spreading the difference over its neighbors with the Floyd-Steinberg kernel.
+   *
+   * @param image  the image that will be quantized.
+   * @param colors the largest number of colors in the palette.
+   * @param dither whether the error of each pixel is spread over its neighbors.
+   * @return a new indexed image with at most the given number of colors.
+   * @throws IllegalArgumentException if the number of colors is not between 1 and 256.
+   */
+  @Override
+  public Image applyQuantizeFilter(Image image, int colors, boolean dither)
+          throws IllegalArgumentException {
+    return new ColorQuantizer(colors, dither).apply(image);
   }
 
 }
@@ -0,0 +1,189 @@
+package image.model.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import image.model.Image;
+
+/**
+ * This class builds an adaptive palette for an image with the median-cut algorithm. The colors of
+ * the image are first counted in a histogram with 5 bits per channel, which also keeps the exact
+ * channel sums of each cell. The occupied cells are then split into boxes: the box with the widest
+ * channel range is sorted along that channel and cut where half of its pixels fall on each side,
+ * until there are as many boxes as palette colors or no box can be split any more. Each palette
+ * color is the average of the pixels in its box.
+ */
+class MedianCut {
+
+  /**
+   * The number of bits kept per channel in the histogram.
+   */
+  private static final int BITS = 5;
+
+  /**
+   * The number of cells in the histogram.
+   */
+  private static final int CELLS = 1 << (3 * BITS);
+
+  /**
+   * This class only holds static methods and cannot be instantiated.
+   */
+  private MedianCut() {
+  }
+
+  /**
+   * This method builds a palette of at most the given number of colors for the given image.
+   *
+   * @param image  the image to build a palette for.
+   * @param colors the largest number of colors in the palette.
+   * @return the palette, with every color packed into one integer (0xRRGGBB).
+   */
+  static int[] palette(Image image, int colors) {
+    int[] counts = new int[CELLS];
+    long[] sums = new long[3 * CELLS];
+    for (int i = 0; i < image.getImageHeight(); i++) {
+      for (int j = 0; j < image.getImageWidth(); j++) {
+        int color = image.getRGB(i, j);
+        int cell = cell(color);
+        counts[cell]++;
+        sums[3 * cell] += (color >> 16) & 0xFF;
+        sums[3 * cell + 1] += (color >> 8) & 0xFF;
+        sums[3 * cell + 2] += color & 0xFF;
+      }
+    }
+    int occupied = 0;
+    for (int count : counts) {
+      if (count > 0) {
+        occupied++;
+      }
+    }
+    int[] cells = new int[occupied];
+    occupied = 0;
+    for (int cell = 0; cell < CELLS; cell++) {
+      if (counts[cell] > 0) {
+        cells[occupied++] = cell;
+      }
+    }
+
+    List<int[]> boxes = new ArrayList<>();
+    boxes.add(new int[]{0, cells.length});
+    while (boxes.size() < colors) {
+      int widest = -1;
+      int widestChannel = 0;
+      int widestRange = -1;
+      for (int b = 0; b < boxes.size(); b++) {
+        int[] box = boxes.get(b);
+        if (box[1] - box[0] < 2) {
+          continue;
+        }
+        for (int channel = 0; channel < 3; channel++) {
+          int min = Integer.MAX_VALUE;
+          int max = Integer.MIN_VALUE;
+          for (int i = box[0]; i < box[1]; i++) {
+            int value = component(cells[i], channel);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+          }
+          if (max - min > widestRange) {
+            widest = b;
+            widestChannel = channel;
+            widestRange = max - min;
+          }
+        }
+      }
+      if (widest < 0) {
+        break;
+      }
+      int[] box = boxes.get(widest);
+      int split = split(cells, counts, box[0], box[1], widestChannel);
+      boxes.set(widest, new int[]{box[0], split});
+      boxes.add(new int[]{split, box[1]});
+    }
+
+    int[] palette = new int[boxes.size()];
+    for (int b = 0; b < boxes.size(); b++) {
+      int[] box = boxes.get(b);
+      long count = 0;
+      long red = 0;
+      long green = 0;
+      long blue = 0;
+      for (int i = box[0]; i < box[1]; i++) {
+        count += counts[cells[i]];
+        red += sums[3 * cells[i]];
+        green += sums[3 * cells[i] + 1];
+        blue += sums[3 * cells[i] + 2];
+      }
+      palette[b] = (average(red, count) << 16) | (average(green, count) << 8)
+              | average(blue, count);
+    }
+    return palette;
+  }
+
+  /**
+   * This helper method sorts the cells of a box along one channel and finds where to cut it, so
+   * that half of the pixels of the box fall on each side.
+   *
+   * @param cells   the occupied histogram cells.
+   * @param counts  the number of pixels in each histogram cell.
+   * @param start   the first cell of the box.
+   * @param end     one past the last cell of the box.
+   * @param channel the channel to cut along.
+   * @return the first cell of the second half, strictly between start and end.
+   */
+  private static int split(int[] cells, int[] counts, int start, int end, int channel) {
+    for (int i = start; i < end; i++) {
+      cells[i] |= component(cells[i], channel) << (3 * BITS);
+    }
+    Arrays.sort(cells, start, end);
+    long total = 0;
+    for (int i = start; i < end; i++) {
+      cells[i] &= CELLS - 1;
+      total += counts[cells[i]];
+    }
+    long seen = 0;
+    for (int i = start; i < end - 1; i++) {
+      seen += counts[cells[i]];
+      if (2 * seen >= total) {
+        return i + 1;
+      }
+    }
+    return end - 1;
+  }
+
+  /**
+   * This helper method finds the histogram cell of a packed color.
+   *
+   * @param color the packed color (0xRRGGBB).
+   * @return the histogram cell of the color.
+   */
+  static int cell(int color) {
+    int red = (color >> (24 - BITS)) & ((1 << BITS) - 1);
+    int green = (color >> (16 - BITS)) & ((1 << BITS) - 1);
+    int blue = (color >> (8 - BITS)) & ((1 << BITS) - 1);
+    return (red << (2 * BITS)) | (green << BITS) | blue;
+  }
+
+  /**
+   * This helper method gets one channel of a histogram cell.
+   *
+   * @param cell    the histogram cell.
+   * @param channel the channel, where 0 is red, 1 is green and 2 is blue.
+   * @return the value of the channel, with 5 bits.
+   */
+  private static int component(int cell, int channel) {
+    return (cell >> ((2 - channel) * BITS)) & ((1 << BITS) - 1);
+  }
+
+  /**
+   * This helper method computes a channel average rounded to the nearest integer.
+   *
+   * @param sum   the sum of the channel.
+   * @param count the number of pixels summed.
+   * @return the rounded average.
+   */
+  private static int average(long sum, long count) {
+    return (int) ((2 * sum + count) / (2 * count));
+  }
+
+}
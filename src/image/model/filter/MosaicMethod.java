@@ -0,0 +1,66 @@
+package image.model.filter;
+
+/**
+ * This enum represents the ways the mosaic filter can find the nearest seed of every pixel. The
+ * grid method looks each pixel up in a uniform grid over the seeds. The exact method computes the
+ * whole map at once with a Euclidean feature transform, and the jump flood method approximates it
+ * by passing seeds between pixels at halving distances; the cost of these two does not depend on
+ * the number of seeds.
+ */
+public enum MosaicMethod {
+
+  /**
+   * Looks up each pixel in a uniform grid over the seeds. Pixels that are equally close to several
+   * seeds take the first of them.
+   */
+  GRID,
+
+  /**
+   * Computes the exact nearest seed of every pixel with a separable Euclidean feature transform.
+   */
+  EXACT,
+
+  /**
+   * Approximates the nearest seed of every pixel with jump flooding. A few pixels near the border
+   * between two tiles may take the second nearest seed.
+   */
+  JUMP_FLOOD;
+
+  /**
+   * This method finds the nearest seed of every pixel of an image.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the index of the nearest seed of every pixel, stored row by row.
+   */
+  int[] label(int[] seedX, int[] seedY, int width, int height) {
+    switch (this) {
+      case EXACT:
+        return VoronoiLabels.featureTransform(seedX, seedY, width, height);
+      case JUMP_FLOOD:
+        return VoronoiLabels.jumpFlood(seedX, seedY, width, height);
+      default:
+        return VoronoiLabels.grid(seedX, seedY, width, height);
+    }
+  }
+
+  /**
+   * This method finds the method with the given name. Names are written in lower case with words
+   * separated by dashes, for example "grid" or "jump-flood".
+   *
+   * @param name the name of the method.
+   * @return the method with the given name.
+   * @throws IllegalArgumentException if there is no method with the given name.
+   */
+  public static MosaicMethod fromName(String name) throws IllegalArgumentException {
+    for (MosaicMethod method : values()) {
+      if (method.name().replace('_', '-').equalsIgnoreCase(name)) {
+        return method;
+      }
+    }
+    throw new IllegalArgumentException("Error: unknown mosaic method " + name);
+  }
+
+}
@@ -0,0 +1,136 @@
+package image.model.filter;
+
+/**
+ * This class finds the nearest seed to a pixel with a uniform grid over the image. The grid cells
+ * are sized so that each holds about one seed, and the seeds of each cell are kept in one shared
+ * array in the order of their index. A search looks at the cell of the pixel and then at rings of
+ * cells around it, and stops as soon as no cell in the next ring can hold a closer seed, so a
+ * lookup only visits a few seeds whatever the number of seeds. Distances are compared as squared
+ * integers, and when several seeds are equally close the one with the lowest index is returned,
+ * which is the seed a linear scan over all seeds would pick.
+ */
+class NearestSeedGrid {
+
+  /**
+   * The column of every seed.
+   */
+  private final int[] seedX;
+
+  /**
+   * The row of every seed.
+   */
+  private final int[] seedY;
+
+  /**
+   * The width and height in pixels of one grid cell.
+   */
+  private final int cellSize;
+
+  /**
+   * The number of grid cells across the image.
+   */
+  private final int columns;
+
+  /**
+   * The number of grid cells down the image.
+   */
+  private final int rows;
+
+  /**
+   * Where the seeds of each cell start in the cell seed array, with one extra entry at the end.
+   */
+  private final int[] cellStart;
+
+  /**
+   * The seed indices of every cell, cell by cell, in increasing order within a cell.
+   */
+  private final int[] cellSeeds;
+
+  /**
+   * This constructor builds the grid over the given seeds.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   */
+  NearestSeedGrid(int[] seedX, int[] seedY, int width, int height) {
+    int count = seedX.length;
+    this.seedX = seedX;
+    this.seedY = seedY;
+    this.cellSize = Math.max(1, (int) Math.sqrt((double) width * height / count));
+    this.columns = (width + cellSize - 1) / cellSize;
+    this.rows = (height + cellSize - 1) / cellSize;
+    this.cellStart = new int[columns * rows + 1];
+    for (int i = 0; i < count; i++) {
+      cellStart[cell(seedX[i], seedY[i]) + 1]++;
+    }
+    for (int c = 0; c < columns * rows; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    this.cellSeeds = new int[count];
+    int[] next = new int[columns * rows];
+    for (int i = 0; i < count; i++) {
+      int c = cell(seedX[i], seedY[i]);
+      cellSeeds[cellStart[c] + next[c]++] = i;
+    }
+  }
+
+  /**
+   * This helper method finds the grid cell of a pixel.
+   *
+   * @param x the column of the pixel.
+   * @param y the row of the pixel.
+   * @return the index of the grid cell.
+   */
+  private int cell(int x, int y) {
+    return (y / cellSize) * columns + x / cellSize;
+  }
+
+  /**
+   * This method finds the seed nearest to the given pixel.
+   *
+   * @param x the column of the pixel.
+   * @param y the row of the pixel.
+   * @return the index of the nearest seed, the lowest one if several are equally close.
+   */
+  int nearest(int x, int y) {
+    int cellX = x / cellSize;
+    int cellY = y / cellSize;
+    long bestDistance = Long.MAX_VALUE;
+    int best = -1;
+    int maxRing = Math.max(columns, rows);
+    for (int ring = 0; ring <= maxRing; ring++) {
+      for (int cy = cellY - ring; cy <= cellY + ring; cy++) {
+        if (cy < 0 || cy >= rows) {
+          continue;
+        }
+        boolean edge = cy == cellY - ring || cy == cellY + ring;
+        int step = edge ? 1 : 2 * ring;
+        for (int cx = cellX - ring; cx <= cellX + ring; cx += step) {
+          if (cx < 0 || cx >= columns) {
+            continue;
+          }
+          int c = cy * columns + cx;
+          for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+            int seed = cellSeeds[k];
+            long dx = x - seedX[seed];
+            long dy = y - seedY[seed];
+            long distance = dx * dx + dy * dy;
+            if (distance < bestDistance || (distance == bestDistance && seed < best)) {
+              bestDistance = distance;
+              best = seed;
+            }
+          }
+        }
+      }
+      // every pixel of a cell in the next ring is at least this far away along one axis
+      long reach = (long) ring * cellSize + 1;
+      if (best >= 0 && reach * reach > bestDistance) {
+        break;
+      }
+    }
+    return best;
+  }
+
+}
@@ -0,0 +1,73 @@
+package image.model.filter;
+
+import java.util.stream.IntStream;
+
+import image.model.BinaryImage;
+import image.model.BinaryImageImpl;
+import image.model.GreyscaleImage;
+import image.model.Image;
+
+/**
+ * This class dithers an image to black and white by comparing each pixel against a threshold map
+ * tiled over the image. No pixel depends on any other, so the image is split into bands of rows
+ * that are processed in parallel.
+ */
+class OrderedDither {
+
+  /**
+   * The number of rows in each band that is processed as one parallel task.
+   */
+  private static final int BAND_HEIGHT = 64;
+
+  /**
+   * The threshold map that is tiled over the image.
+   */
+  private final ThresholdMap map;
+
+  /**
+   * This constructor creates an ordered ditherer with the given threshold map.
+   *
+   * @param map the threshold map that is tiled over the image.
+   */
+  OrderedDither(ThresholdMap map) {
+    this.map = map;
+  }
+
+  /**
+   * This method dithers the given image. Greyscale images are read directly; for other images the
+   * red channel is used, as the image is expected to be grey already.
+   *
+   * @param image the image to dither.
+   * @return a new binary image that only contains black and white pixels.
+   */
+  BinaryImage apply(Image image) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int size = map.getSize();
+    int[] thresholds = map.getThresholds();
+    byte[] grey = image instanceof GreyscaleImage ? ((GreyscaleImage) image).getGreyValues() : null;
+    int wordsPerRow = BinaryImageImpl.wordsPerRow(width);
+    long[] output = new long[wordsPerRow * height];
+    int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+    IntStream.range(0, bands).parallel().forEach(band -> {
+      int end = Math.min(height, (band + 1) * BAND_HEIGHT);
+      for (int row = band * BAND_HEIGHT; row < end; row++) {
+        int mapRow = (row % size) * size;
+        for (int column = 0; column < width; column++) {
+          int index = row * width + column;
+          int value;
+          if (grey != null) {
+            value = grey[index] & 0xFF;
+          } else {
+            value = (image.getRGB(row, column) >> 16) & 0xFF;
+          }
+          if (value >= thresholds[mapRow + column % size]) {
+            output[row * wordsPerRow + (column >>> 6)] |= Long.MIN_VALUE >>> (column & 63);
+          }
+        }
+      }
+    });
+    return new BinaryImageImpl(output, width, height);
+  }
+
+}
@@ -0,0 +1,174 @@
+package image.model.filter;
+
+import java.util.Arrays;
+
+/**
+ * This class finds the nearest palette color to a given color. The palette is kept in a balanced
+ * k-d tree, stored implicitly in one array, so a search only visits the few colors whose region
+ * can hold a closer match. Results are remembered in a 32x32x32 cache indexed by the top 5 bits of
+ * each channel, so every cell of the color cube is searched at most once; a cell is answered with
+ * the palette color nearest to its center.
+ */
+class PaletteSearch {
+
+  /**
+   * The value that marks a cache entry that has not been searched yet.
+   */
+  private static final int UNKNOWN = -1;
+
+  /**
+   * The red, green and blue channels of the palette colors, three entries per color.
+   */
+  private final int[] channels;
+
+  /**
+   * The palette indices in tree order. The root of the range from lo to hi is at the middle of the
+   * range, its left subtree is the lower half and its right subtree is the upper half.
+   */
+  private final int[] tree;
+
+  /**
+   * The channel that each tree node splits on, stored at the position of the node.
+   */
+  private final int[] axes;
+
+  /**
+   * The nearest palette index for every cell of the color cube, or UNKNOWN.
+   */
+  private final int[] cache;
+
+  /**
+   * This constructor builds the k-d tree for the given palette.
+   *
+   * @param palette the palette, with every color packed into one integer (0xRRGGBB).
+   */
+  PaletteSearch(int[] palette) {
+    this.channels = new int[3 * palette.length];
+    this.tree = new int[palette.length];
+    this.axes = new int[palette.length];
+    for (int i = 0; i < palette.length; i++) {
+      this.channels[3 * i] = (palette[i] >> 16) & 0xFF;
+      this.channels[3 * i + 1] = (palette[i] >> 8) & 0xFF;
+      this.channels[3 * i + 2] = palette[i] & 0xFF;
+      this.tree[i] = i;
+    }
+    build(0, palette.length);
+    this.cache = new int[32 * 32 * 32];
+    Arrays.fill(this.cache, UNKNOWN);
+  }
+
+  /**
+   * This helper method builds the subtree over a range of the tree array. The range is sorted
+   * along the channel with the widest spread and split at its middle.
+   *
+   * @param lo the first position of the range.
+   * @param hi one past the last position of the range.
+   */
+  private void build(int lo, int hi) {
+    if (hi - lo < 1) {
+      return;
+    }
+    int axis = 0;
+    int widest = -1;
+    for (int channel = 0; channel < 3; channel++) {
+      int min = 255;
+      int max = 0;
+      for (int i = lo; i < hi; i++) {
+        min = Math.min(min, channels[3 * tree[i] + channel]);
+        max = Math.max(max, channels[3 * tree[i] + channel]);
+      }
+      if (max - min > widest) {
+        widest = max - min;
+        axis = channel;
+      }
+    }
+    for (int i = lo; i < hi; i++) {
+      tree[i] |= channels[3 * tree[i] + axis] << 8;
+    }
+    Arrays.sort(tree, lo, hi);
+    for (int i = lo; i < hi; i++) {
+      tree[i] &= 0xFF;
+    }
+    int mid = (lo + hi) >>> 1;
+    axes[mid] = axis;
+    build(lo, mid);
+    build(mid + 1, hi);
+  }
+
+  /**
+   * This method finds the palette color for a color through the cache. The first color that falls
+   * into a cell of the color cube is searched for at the center of the cell, and every later color
+   * in the cell gets the same answer.
+   *
+   * @param red   the red channel of the color.
+   * @param green the green channel of the color.
+   * @param blue  the blue channel of the color.
+   * @return the index of the palette color.
+   */
+  int lookup(int red, int green, int blue) {
+    int cell = MedianCut.cell((red << 16) | (green << 8) | blue);
+    int index = cache[cell];
+    if (index == UNKNOWN) {
+      index = nearest((red & ~7) | 4, (green & ~7) | 4, (blue & ~7) | 4);
+      cache[cell] = index;
+    }
+    return index;
+  }
+
+  /**
+   * This method finds the palette color with the smallest squared distance to a color. If several
+   * palette colors are equally close, the one with the lowest index is returned.
+   *
+   * @param red   the red channel of the color.
+   * @param green the green channel of the color.
+   * @param blue  the blue channel of the color.
+   * @return the index of the nearest palette color.
+   */
+  int nearest(int red, int green, int blue) {
+    int[] best = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+    search(0, tree.length, red, green, blue, best);
+    return best[1];
+  }
+
+  /**
+   * This helper method searches a subtree for a closer palette color. The far side of a node is
+   * only visited if the splitting plane is no farther away than the best match so far.
+   *
+   * @param lo    the first position of the subtree.
+   * @param hi    one past the last position of the subtree.
+   * @param red   the red channel of the color.
+   * @param green the green channel of the color.
+   * @param blue  the blue channel of the color.
+   * @param best  the best squared distance and palette index found so far, updated in place.
+   */
+  private void search(int lo, int hi, int red, int green, int blue, int[] best) {
+    if (hi - lo < 1) {
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    int index = tree[mid];
+    int dr = red - channels[3 * index];
+    int dg = green - channels[3 * index + 1];
+    int db = blue - channels[3 * index + 2];
+    int distance = dr * dr + dg * dg + db * db;
+    if (distance < best[0] || (distance == best[0] && index < best[1])) {
+      best[0] = distance;
+      best[1] = index;
+    }
+    int axis = axes[mid];
+    int value = axis == 0 ? red : axis == 1 ? green : blue;
+    int delta = value - channels[3 * index + axis];
+    if (delta < 0) {
+      search(lo, mid, red, green, blue, best);
+      if (delta * delta <= best[0]) {
+        search(mid + 1, hi, red, green, blue, best);
+      }
+    } else {
+      search(mid + 1, hi, red, green, blue, best);
+      if (delta * delta <= best[0]) {
+        search(lo, mid, red, green, blue, best);
+      }
+    }
+  }
+
+}
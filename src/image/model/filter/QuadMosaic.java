@@ -0,0 +1,234 @@
+package image.model.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+import image.model.Image;
+import image.model.ImageImpl;
+
+/**
+ * This class paints an adaptive mosaic of an image. A block is split into quadrants while the
+ * variance of its colors is at least the threshold, and every block that is not split is painted
+ * with the average color of its pixels, so busy parts of the image get small tiles and flat parts
+ * get large ones. The sums and the sums of squares of the colors are kept in integral images that
+ * are built once, so the variance of any block is found with a few lookups whatever its size.
+ * Blocks are split on the fork-join pool, and every block paints its own pixels.
+ */
+class QuadMosaic extends RecursiveAction {
+
+  /**
+   * The serialization version of this task, since recursive actions are serializable.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The smallest number of pixels of a block whose quadrants are given to other tasks. Smaller
+   * blocks are split within the task that holds them.
+   */
+  private static final int FORK_AREA = 4096;
+
+  /**
+   * The integral images of the red, green and blue channels, then of the sum of their squares.
+   * Each has one more row and column than the image, and an entry holds the sum over all pixels
+   * above and to the left of it.
+   */
+  private final long[][] integrals;
+
+  /**
+   * The width of the image plus one, which is the row length of the integral images.
+   */
+  private final int stride;
+
+  /**
+   * The variance at which a block is split.
+   */
+  private final double threshold;
+
+  /**
+   * The smallest width or height of a block.
+   */
+  private final int minSize;
+
+  /**
+   * The pixels of the mosaic, which every block paints.
+   */
+  private final int[][][] painted;
+
+  /**
+   * The first column of this block.
+   */
+  private final int left;
+
+  /**
+   * The first row of this block.
+   */
+  private final int top;
+
+  /**
+   * One past the last column of this block.
+   */
+  private final int right;
+
+  /**
+   * One past the last row of this block.
+   */
+  private final int bottom;
+
+  /**
+   * This constructor creates a task that paints the given block.
+   *
+   * @param integrals the integral images of the channels and of the sum of their squares.
+   * @param stride    the row length of the integral images.
+   * @param threshold the variance at which a block is split.
+   * @param minSize   the smallest width or height of a block.
+   * @param painted   the pixels of the mosaic.
+   * @param left      the first column of this block.
+   * @param top       the first row of this block.
+   * @param right     one past the last column of this block.
+   * @param bottom    one past the last row of this block.
+   */
+  private QuadMosaic(long[][] integrals, int stride, double threshold, int minSize,
+                     int[][][] painted, int left, int top, int right, int bottom) {
+    this.integrals = integrals;
+    this.stride = stride;
+    this.threshold = threshold;
+    this.minSize = minSize;
+    this.painted = painted;
+    this.left = left;
+    this.top = top;
+    this.right = right;
+    this.bottom = bottom;
+  }
+
+  /**
+   * This method paints the adaptive mosaic of the given image.
+   *
+   * @param image     the image to paint.
+   * @param threshold the variance at which a block is split. The variance of a block is the
+   *                  average over the three channels of the variance of the channel.
+   * @param minSize   the smallest width or height of a block. A block is only split along a side
+   *                  that is at least twice this long.
+   * @return a new image where every block has the average color of its pixels.
+   * @throws IllegalArgumentException if the threshold is negative or the smallest size is less
+   *                                  than one.
+   */
+  static Image paint(Image image, int threshold, int minSize) throws IllegalArgumentException {
+    if (threshold < 0 || minSize < 1) {
+      throw new IllegalArgumentException("Error: quadmosaic needs a threshold of at least 0 and "
+              + "a smallest size of at least 1");
+    }
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int stride = width + 1;
+    long[][] integrals = new long[4][stride * (height + 1)];
+    IntStream.range(0, height).parallel().forEach(row -> {
+      long[] sums = new long[4];
+      int base = (row + 1) * stride;
+      for (int column = 0; column < width; column++) {
+        int color = image.getRGB(row, column);
+        int red = (color >> 16) & 0xFF;
+        int green = (color >> 8) & 0xFF;
+        int blue = color & 0xFF;
+        sums[0] += red;
+        sums[1] += green;
+        sums[2] += blue;
+        sums[3] += red * red + green * green + blue * blue;
+        for (int k = 0; k < 4; k++) {
+          integrals[k][base + column + 1] = sums[k];
+        }
+      }
+    });
+    IntStream.range(0, 4).parallel().forEach(k -> {
+      long[] integral = integrals[k];
+      for (int index = 2 * stride; index < integral.length; index++) {
+        integral[index] += integral[index - stride];
+      }
+    });
+    int[][][] painted = new int[height][width][3];
+    ForkJoinPool.commonPool().invoke(new QuadMosaic(integrals, stride, threshold, minSize,
+            painted, 0, 0, width, height));
+    return new ImageImpl(painted);
+  }
+
+  /**
+   * This method splits this block if its colors vary too much, and paints it with its average
+   * color otherwise.
+   */
+  @Override
+  protected void compute() {
+    int width = right - left;
+    int height = bottom - top;
+    long count = (long) width * height;
+    long[] sums = new long[4];
+    for (int k = 0; k < 4; k++) {
+      long[] integral = integrals[k];
+      sums[k] = integral[bottom * stride + right] - integral[top * stride + right]
+              - integral[bottom * stride + left] + integral[top * stride + left];
+    }
+    boolean splitColumns = width >= 2 * minSize;
+    boolean splitRows = height >= 2 * minSize;
+    if ((splitColumns || splitRows) && variance(sums, count) >= threshold) {
+      int middleColumn = splitColumns ? (left + right) >>> 1 : right;
+      int middleRow = splitRows ? (top + bottom) >>> 1 : bottom;
+      List<QuadMosaic> quadrants = new ArrayList<>();
+      quadrants.add(block(left, top, middleColumn, middleRow));
+      if (splitColumns) {
+        quadrants.add(block(middleColumn, top, right, middleRow));
+      }
+      if (splitRows) {
+        quadrants.add(block(left, middleRow, middleColumn, bottom));
+      }
+      if (splitColumns && splitRows) {
+        quadrants.add(block(middleColumn, middleRow, right, bottom));
+      }
+      if (count >= FORK_AREA) {
+        invokeAll(quadrants);
+      } else {
+        for (QuadMosaic quadrant : quadrants) {
+          quadrant.compute();
+        }
+      }
+      return;
+    }
+    int[] average = new int[3];
+    for (int channel = 0; channel < 3; channel++) {
+      average[channel] = (int) (sums[channel] / count);
+    }
+    for (int row = top; row < bottom; row++) {
+      for (int column = left; column < right; column++) {
+        System.arraycopy(average, 0, painted[row][column], 0, 3);
+      }
+    }
+  }
+
+  /**
+   * This helper method creates the task of a part of this block.
+   *
+   * @param left   the first column of the part.
+   * @param top    the first row of the part.
+   * @param right  one past the last column of the part.
+   * @param bottom one past the last row of the part.
+   * @return the task that paints the part.
+   */
+  private QuadMosaic block(int left, int top, int right, int bottom) {
+    return new QuadMosaic(integrals, stride, threshold, minSize, painted, left, top, right,
+            bottom);
+  }
+
+  /**
+   * This helper method computes the variance of the colors of a block.
+   *
+   * @param sums  the sums of the red, green and blue channels and of their squares.
+   * @param count the number of pixels of the block.
+   * @return the average over the three channels of the variance of the channel.
+   */
+  private static double variance(long[] sums, long count) {
+    double squares = (double) sums[0] * sums[0] + (double) sums[1] * sums[1]
+            + (double) sums[2] * sums[2];
+    return (sums[3] - squares / count) / (3.0 * count);
+  }
+
+}
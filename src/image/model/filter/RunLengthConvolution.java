@@ -0,0 +1,167 @@
+package image.model.filter;
+
+import java.util.Arrays;
+
+import image.model.RunLengthImage;
+import image.model.RunLengthImageImpl;
+
+/**
+ * This class applies a blur or a sharpen filter to a run-length image without visiting every
+ * pixel. The filter of a pixel only depends on the pixels under the filter, so along a row it can
+ * only change where one of the rows under the filter starts a new run. Between two such places,
+ * every pixel whose filter stays inside that stretch gets the same value, which is computed once;
+ * only the pixels near the ends of a stretch are computed one by one. A row whose rows under the
+ * filter are the same as those of the row above it takes the result of that row. The values are
+ * the same as those of the filter on the full image, with every product rounded before it is
+ * summed and pixels outside of the image counted as black.
+ */
+final class RunLengthConvolution {
+
+  /**
+   * This class only holds static methods and cannot be instantiated.
+   */
+  private RunLengthConvolution() {
+  }
+
+  /**
+   * This method applies the given filter to a run-length image.
+   *
+   * @param image  the image that the filter will be applied to.
+   * @param filter the filter, with odd and equal width and height.
+   * @return a new run-length image with the filter applied.
+   */
+  static RunLengthImage apply(RunLengthImage image, double[][] filter) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int bounds = filter.length / 2;
+    int[][] runEnds = new int[height][];
+    int[][] runColors = new int[height][];
+    int[] ends = new int[width];
+    int[] colors = new int[width];
+    int[] positions = new int[filter.length];
+    for (int row = 0; row < height; row++) {
+      if (row > 0 && sameWindow(image, row, bounds)) {
+        runEnds[row] = runEnds[row - 1];
+        runColors[row] = runColors[row - 1];
+        continue;
+      }
+      int first = Math.max(0, row - bounds);
+      int last = Math.min(height - 1, row + bounds);
+      Arrays.fill(positions, 0);
+      int runs = 0;
+      int start = 0;
+      while (start < width) {
+        int end = width;
+        for (int i = first; i <= last; i++) {
+          int[] rowEnds = image.getRunEnds(i);
+          int k = i - first;
+          while (rowEnds[positions[k]] <= start) {
+            positions[k]++;
+          }
+          end = Math.min(end, rowEnds[positions[k]]);
+        }
+        int innerStart = Math.min(end, start + bounds);
+        int innerEnd = Math.max(innerStart, end - bounds);
+        for (int column = start; column < innerStart; column++) {
+          runs = append(ends, colors, runs, column + 1, pixel(image, filter, row, column));
+        }
+        if (innerEnd > innerStart) {
+          runs = append(ends, colors, runs, innerEnd, pixel(image, filter, row, innerStart));
+        }
+        for (int column = innerEnd; column < end; column++) {
+          runs = append(ends, colors, runs, column + 1, pixel(image, filter, row, column));
+        }
+        start = end;
+      }
+      runEnds[row] = Arrays.copyOf(ends, runs);
+      runColors[row] = Arrays.copyOf(colors, runs);
+    }
+    return new RunLengthImageImpl(width, runEnds, runColors);
+  }
+
+  /**
+   * This helper method checks whether the rows under the filter of a row are the same as those of
+   * the row above it, counting rows outside of the image as equal only to each other.
+   *
+   * @param image  the image that the filter is applied to.
+   * @param row    the row of the pixels, greater than 0.
+   * @param bounds half the size of the filter, rounded down.
+   * @return true if both rows get the same result.
+   */
+  private static boolean sameWindow(RunLengthImage image, int row, int bounds) {
+    int height = image.getImageHeight();
+    for (int i = row - bounds; i <= row + bounds; i++) {
+      boolean inside = i >= 0 && i < height;
+      boolean insideAbove = i - 1 >= 0 && i - 1 < height;
+      if (inside != insideAbove) {
+        return false;
+      }
+      if (inside && (image.getRunEnds(i) != image.getRunEnds(i - 1)
+              || image.getRunColors(i) != image.getRunColors(i - 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * This helper method adds a pixel or a stretch of pixels of one color to the runs of a row,
+   * extending the last run if it has the same color.
+   *
+   * @param ends   the ends of the runs so far.
+   * @param colors the colors of the runs so far.
+   * @param runs   the number of runs so far.
+   * @param end    the column after the last pixel to add.
+   * @param color  the packed color of the pixels to add.
+   * @return the number of runs after adding the pixels.
+   */
+  private static int append(int[] ends, int[] colors, int runs, int end, int color) {
+    if (runs > 0 && colors[runs - 1] == color) {
+      ends[runs - 1] = end;
+      return runs;
+    }
+    ends[runs] = end;
+    colors[runs] = color;
+    return runs + 1;
+  }
+
+  /**
+   * This helper method applies the filter to a single pixel, rounding every product before it is
+   * summed and clamping the sums between 0 and 255.
+   *
+   * @param image  the image that the filter is applied to.
+   * @param filter the filter.
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the filtered pixel.
+   */
+  private static int pixel(RunLengthImage image, double[][] filter, int row, int column) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int bounds = filter.length / 2;
+    int red = 0;
+    int green = 0;
+    int blue = 0;
+    for (int i = Math.max(0, bounds - row); i < filter.length && row - bounds + i < height; i++) {
+      for (int j = Math.max(0, bounds - column); j < filter.length
+              && column - bounds + j < width; j++) {
+        int color = image.getRGB(row - bounds + i, column - bounds + j);
+        red += (int) Math.round(((color >> 16) & 0xFF) * filter[i][j]);
+        green += (int) Math.round(((color >> 8) & 0xFF) * filter[i][j]);
+        blue += (int) Math.round((color & 0xFF) * filter[i][j]);
+      }
+    }
+    return clamp(red) << 16 | clamp(green) << 8 | clamp(blue);
+  }
+
+  /**
+   * This helper method keeps a channel value between 0 and 255.
+   *
+   * @param value the channel value.
+   * @return the value, raised to 0 or lowered to 255 if it is out of range.
+   */
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+
+}
@@ -0,0 +1,81 @@
+package image.model.filter;
+
+/**
+ * This class holds the precomputed sRGB transfer tables used by linear-light filtering. Decoding
+ * goes through a 256-entry table that maps an 8-bit sRGB channel to a linear float between 0 and 1,
+ * and encoding goes through a 4096-entry table that maps a quantized linear value back to an 8-bit
+ * sRGB channel. Both tables are built once, so no transcendental functions are evaluated per
+ * pixel.
+ */
+public final class SrgbTransfer {
+
+  /**
+   * The number of entries in the encoding table. Linear values are quantized to 12 bits before
+   * they are looked up.
+   */
+  static final int ENCODE_SIZE = 4096;
+
+  /**
+   * The table that maps an 8-bit sRGB channel value to its linear light value.
+   */
+  private static final float[] DECODE = new float[256];
+
+  /**
+   * The table that maps a 12-bit linear light value to its 8-bit sRGB channel value.
+   */
+  private static final int[] ENCODE = new int[ENCODE_SIZE];
+
+  static {
+    for (int i = 0; i < DECODE.length; i++) {
+      double c = i / 255.0;
+      if (c <= 0.04045) {
+        DECODE[i] = (float) (c / 12.92);
+      } else {
+        DECODE[i] = (float) Math.pow((c + 0.055) / 1.055, 2.4);
+      }
+    }
+    for (int i = 0; i < ENCODE.length; i++) {
+      double l = i / (double) (ENCODE_SIZE - 1);
+      double c;
+      if (l <= 0.0031308) {
+        c = l * 12.92;
+      } else {
+        c = 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+      }
+      ENCODE[i] = (int) Math.round(c * 255);
+    }
+  }
+
+  /**
+   * This class only holds static tables and cannot be instantiated.
+   */
+  private SrgbTransfer() {
+  }
+
+  /**
+   * This method converts an 8-bit sRGB channel value to linear light.
+   *
+   * @param value the sRGB channel value between 0 and 255.
+   * @return the linear light value between 0 and 1.
+   */
+  public static float toLinear(int value) {
+    return DECODE[value];
+  }
+
+  /**
+   * This method converts a linear light value back to an 8-bit sRGB channel value. Values outside
+   * of 0 to 1 are clamped before they are encoded.
+   *
+   * @param linear the linear light value.
+   * @return the sRGB channel value between 0 and 255.
+   */
+  public static int toSrgb(float linear) {
+    if (linear <= 0) {
+      return 0;
+    } else if (linear >= 1) {
+      return 255;
+    }
+    return ENCODE[(int) (linear * (ENCODE_SIZE - 1) + 0.5f)];
+  }
+
+}
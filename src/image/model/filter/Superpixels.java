@@ -0,0 +1,180 @@
+package image.model.filter;
+
+import java.util.stream.IntStream;
+
+import image.model.Image;
+
+/**
+ * This class splits an image into superpixels with SLIC, a k-means clustering in the combined
+ * space of color and position. Centers start on a regular grid with a spacing of S pixels. Every
+ * iteration assigns each pixel to the closest center whose 2S by 2S window holds it, and then moves
+ * each center to the average color and position of its pixels. The distance weighs the color
+ * difference against the distance in pixels scaled by the compactness, so a larger compactness
+ * gives more regular tiles. Each pixel only looks at the centers in the grid cells around it, so
+ * an iteration costs the same whatever the number of superpixels, and the rows of an iteration are
+ * processed in parallel. The iterations stop early once no center moves.
+ */
+class Superpixels {
+
+  /**
+   * The number of superpixels that is asked for.
+   */
+  private final int superpixels;
+
+  /**
+   * How strongly the distance in pixels counts against the color difference.
+   */
+  private final int compactness;
+
+  /**
+   * The largest number of iterations.
+   */
+  private final int iterations;
+
+  /**
+   * This constructor creates a superpixel clustering with the given settings.
+   *
+   * @param superpixels the number of superpixels that is asked for.
+   * @param compactness how strongly the distance in pixels counts against the color difference.
+   * @param iterations  the largest number of iterations.
+   * @throws IllegalArgumentException if the number of superpixels or iterations is less than one,
+   *                                  or if the compactness is negative.
+   */
+  Superpixels(int superpixels, int compactness, int iterations) throws IllegalArgumentException {
+    if (superpixels < 1 || iterations < 1 || compactness < 0) {
+      throw new IllegalArgumentException("Error: superpixels need a positive count and iterations "
+              + "and a compactness of at least 0");
+    }
+    this.superpixels = superpixels;
+    this.compactness = compactness;
+    this.iterations = iterations;
+  }
+
+  /**
+   * This method computes the superpixel of every pixel of the given image.
+   *
+   * @param image the image to split into superpixels.
+   * @return the superpixel of every pixel, stored row by row. Superpixels are numbered from 0 up to
+   *         the number of grid centers, and some of them may end up with no pixels.
+   * @throws IllegalArgumentException if the image has fewer pixels than the number of superpixels.
+   */
+  int[] label(Image image) throws IllegalArgumentException {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    if (superpixels > width * height) {
+      throw new IllegalArgumentException("Error: more superpixels than pixels");
+    }
+    int spacing = Math.max(1, (int) Math.sqrt((double) width * height / superpixels));
+    int gridX = Math.max(1, width / spacing);
+    int gridY = Math.max(1, height / spacing);
+    int centers = gridX * gridY;
+    int[] centerX = new int[centers];
+    int[] centerY = new int[centers];
+    int[] centerColor = new int[centers];
+    for (int j = 0; j < gridY; j++) {
+      for (int i = 0; i < gridX; i++) {
+        int center = j * gridX + i;
+        centerX[center] = (int) ((i + 0.5) * width / gridX);
+        centerY[center] = (int) ((j + 0.5) * height / gridY);
+        centerColor[center] = image.getRGB(centerY[center], centerX[center]);
+      }
+    }
+    int[] labels = new int[width * height];
+    IntStream.range(0, height).parallel().forEach(y -> {
+      int j = Math.min(gridY - 1, y * gridY / height);
+      for (int x = 0; x < width; x++) {
+        labels[y * width + x] = j * gridX + Math.min(gridX - 1, x * gridX / width);
+      }
+    });
+
+    long colorWeight = (long) spacing * spacing;
+    long positionWeight = (long) compactness * compactness;
+    int cellsX = (width + spacing - 1) / spacing;
+    int cellsY = (height + spacing - 1) / spacing;
+    for (int iteration = 0; iteration < iterations; iteration++) {
+      int[] cellStart = new int[cellsX * cellsY + 1];
+      int[] cellCenters = new int[centers];
+      for (int center = 0; center < centers; center++) {
+        cellStart[(centerY[center] / spacing) * cellsX + centerX[center] / spacing + 1]++;
+      }
+      for (int c = 0; c < cellsX * cellsY; c++) {
+        cellStart[c + 1] += cellStart[c];
+      }
+      int[] next = new int[cellsX * cellsY];
+      for (int center = 0; center < centers; center++) {
+        int c = (centerY[center] / spacing) * cellsX + centerX[center] / spacing;
+        cellCenters[cellStart[c] + next[c]++] = center;
+      }
+
+      IntStream.range(0, height).parallel().forEach(y -> {
+        int cellY = y / spacing;
+        for (int x = 0; x < width; x++) {
+          int cellX = x / spacing;
+          int color = image.getRGB(y, x);
+          long bestDistance = Long.MAX_VALUE;
+          int best = labels[y * width + x];
+          for (int cy = Math.max(0, cellY - 1); cy <= Math.min(cellsY - 1, cellY + 1); cy++) {
+            for (int cx = Math.max(0, cellX - 1); cx <= Math.min(cellsX - 1, cellX + 1); cx++) {
+              int c = cy * cellsX + cx;
+              for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                int center = cellCenters[k];
+                long dx = x - centerX[center];
+                long dy = y - centerY[center];
+                if (Math.abs(dx) > spacing || Math.abs(dy) > spacing) {
+                  continue;
+                }
+                long distance = colorWeight * colorDistance(color, centerColor[center])
+                        + positionWeight * (dx * dx + dy * dy);
+                if (distance < bestDistance || (distance == bestDistance && center < best)) {
+                  bestDistance = distance;
+                  best = center;
+                }
+              }
+            }
+          }
+          labels[y * width + x] = best;
+        }
+      });
+
+      long[] sums = TileSums.sum(image, labels, centers);
+      boolean moved = false;
+      for (int center = 0; center < centers; center++) {
+        int tile = TileSums.STRIDE * center;
+        long count = sums[tile + TileSums.COUNT];
+        if (count == 0) {
+          continue;
+        }
+        int x = (int) (sums[tile + TileSums.COLUMN] / count);
+        int y = (int) (sums[tile + TileSums.ROW] / count);
+        int color = (int) (sums[tile + TileSums.RED] / count) << 16
+                | (int) (sums[tile + TileSums.GREEN] / count) << 8
+                | (int) (sums[tile + TileSums.BLUE] / count);
+        if (x != centerX[center] || y != centerY[center] || color != centerColor[center]) {
+          moved = true;
+          centerX[center] = x;
+          centerY[center] = y;
+          centerColor[center] = color;
+        }
+      }
+      if (!moved) {
+        break;
+      }
+    }
+    return labels;
+  }
+
+  /**
+   * This helper method computes the squared distance between two packed colors.
+   *
+   * @param first  the first color (0xRRGGBB).
+   * @param second the second color (0xRRGGBB).
+   * @return the sum of the squared differences of the three channels.
+   */
+  private static long colorDistance(int first, int second) {
+    long red = ((first >> 16) & 0xFF) - ((second >> 16) & 0xFF);
+    long green = ((first >> 8) & 0xFF) - ((second >> 8) & 0xFF);
+    long blue = (first & 0xFF) - (second & 0xFF);
+    return red * red + green * green + blue * blue;
+  }
+
+}
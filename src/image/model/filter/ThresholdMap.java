@@ -0,0 +1,146 @@
+package image.model.filter;
+
+/**
+ * This enum represents the threshold maps that ordered dithering can tile over an image. Each map
+ * is a square of ranks from 0 to size * size - 1; a pixel turns white when its grey value is above
+ * the threshold that its rank stands for. The Bayer maps are built recursively and the blue noise
+ * map is generated with the void-and-cluster method. Every map is built once, the first time it is
+ * used, and kept for later calls.
+ */
+public enum ThresholdMap {
+
+  /**
+   * The 2 by 2 Bayer map.
+   */
+  BAYER2("bayer2", 2),
+
+  /**
+   * The 4 by 4 Bayer map.
+   */
+  BAYER4("bayer4", 4),
+
+  /**
+   * The 8 by 8 Bayer map.
+   */
+  BAYER8("bayer8", 8),
+
+  /**
+   * A 64 by 64 blue noise map.
+   */
+  BLUE_NOISE("bluenoise", 64);
+
+  /**
+   * The name of this map as it is written in commands.
+   */
+  private final String name;
+
+  /**
+   * The width and height of this map.
+   */
+  private final int size;
+
+  /**
+   * The smallest grey value that turns white for each position of this map, stored row by row.
+   * It is built the first time it is needed.
+   */
+  private volatile int[] thresholds;
+
+  /**
+   * This constructor creates a threshold map with the given name and size.
+   *
+   * @param name the name of this map as it is written in commands.
+   * @param size the width and height of this map.
+   */
+  ThresholdMap(String name, int size) {
+    this.name = name;
+    this.size = size;
+  }
+
+  /**
+   * This method gets the width and height of this map.
+   *
+   * @return the size of this map.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * This method gets the smallest grey value that turns white for each position of this map,
+   * stored row by row. The returned array is shared and must not be modified.
+   *
+   * @return the thresholds of this map.
+   */
+  int[] getThresholds() {
+    int[] result = thresholds;
+    if (result == null) {
+      synchronized (this) {
+        result = thresholds;
+        if (result == null) {
+          result = toThresholds(this == BLUE_NOISE ? new VoidAndCluster(size).generate()
+                  : bayer(size));
+          thresholds = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * This helper method turns a map of ranks into grey value thresholds. A rank r stands for the
+   * grey level (r + 0.5) / (size * size) of the full range, so that every map keeps the average
+   * brightness of the image.
+   *
+   * @param ranks the ranks of the map, stored row by row.
+   * @return the smallest grey value that turns white for each position.
+   */
+  private static int[] toThresholds(int[] ranks) {
+    int[] result = new int[ranks.length];
+    for (int i = 0; i < ranks.length; i++) {
+      result[i] = ((2 * ranks[i] + 1) * 256 + 2 * ranks.length - 1) / (2 * ranks.length);
+    }
+    return result;
+  }
+
+  /**
+   * This helper method builds a Bayer map of the given size, which must be a power of two. Each map
+   * is made of four copies of the map half its size, scaled by four and offset by 0, 2, 3 and 1.
+   *
+   * @param size the width and height of the map.
+   * @return the ranks of the map, stored row by row.
+   */
+  private static int[] bayer(int size) {
+    int[] ranks = {0};
+    for (int n = 1; n < size; n *= 2) {
+      int[] next = new int[4 * n * n];
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          int rank = 4 * ranks[i * n + j];
+          next[i * 2 * n + j] = rank;
+          next[i * 2 * n + j + n] = rank + 2;
+          next[(i + n) * 2 * n + j] = rank + 3;
+          next[(i + n) * 2 * n + j + n] = rank + 1;
+        }
+      }
+      ranks = next;
+    }
+    return ranks;
+  }
+
+  /**
+   * This method finds the map with the given name, for example "bayer4" or "bluenoise".
+   *
+   * @param name the name of the map.
+   * @return the map with the given name.
+   * @throws IllegalArgumentException if there is no map with the given name.
+   */
+  public static ThresholdMap fromName(String name) throws IllegalArgumentException {
+    for (ThresholdMap map : values()) {
+      if (map.name.equalsIgnoreCase(name)) {
+        return map;
+      }
+    }
+    throw new IllegalArgumentException("Error: unknown threshold map " + name);
+  }
+
+}
@@ -0,0 +1,197 @@
+package image.model.filter;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import image.model.Image;
+import image.model.ImageImpl;
+
+/**
+ * This class sums the colors and positions of the pixels of every tile on the fork-join pool, for
+ * the mosaic and superpixel filters. The rows of the image are split in half until a band is small
+ * enough, each band is summed into its own arrays, and the arrays of the two halves are added
+ * together on the way back up. The sums are integers, so the result does not depend on how the
+ * rows were split or which thread summed them.
+ */
+class TileSums extends RecursiveTask<long[]> {
+
+  /**
+   * The version of this class for serialization, which every fork-join task supports.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of sums kept for every tile.
+   */
+  static final int STRIDE = 6;
+
+  /**
+   * Where the sum of the red channel of a tile is kept, relative to the first sum of the tile.
+   */
+  static final int RED = 0;
+
+  /**
+   * Where the sum of the green channel of a tile is kept, relative to the first sum of the tile.
+   */
+  static final int GREEN = 1;
+
+  /**
+   * Where the sum of the blue channel of a tile is kept, relative to the first sum of the tile.
+   */
+  static final int BLUE = 2;
+
+  /**
+   * Where the sum of the columns of a tile is kept, relative to the first sum of the tile.
+   */
+  static final int COLUMN = 3;
+
+  /**
+   * Where the sum of the rows of a tile is kept, relative to the first sum of the tile.
+   */
+  static final int ROW = 4;
+
+  /**
+   * Where the number of pixels of a tile is kept, relative to the first sum of the tile.
+   */
+  static final int COUNT = 5;
+
+  /**
+   * The smallest number of rows that is summed as one band.
+   */
+  private static final int BAND_HEIGHT = 64;
+
+  /**
+   * The image whose colors are summed.
+   */
+  private final Image image;
+
+  /**
+   * The tile of every pixel, stored row by row.
+   */
+  private final int[] labels;
+
+  /**
+   * The number of tiles.
+   */
+  private final int tiles;
+
+  /**
+   * The largest number of rows that is summed as one band.
+   */
+  private final int band;
+
+  /**
+   * The first row of this task.
+   */
+  private final int start;
+
+  /**
+   * One past the last row of this task.
+   */
+  private final int end;
+
+  /**
+   * This constructor creates a task that sums the given rows.
+   *
+   * @param image  the image whose colors are summed.
+   * @param labels the tile of every pixel, stored row by row.
+   * @param tiles  the number of tiles.
+   * @param band   the largest number of rows that is summed as one band.
+   * @param start  the first row of this task.
+   * @param end    one past the last row of this task.
+   */
+  private TileSums(Image image, int[] labels, int tiles, int band, int start, int end) {
+    this.image = image;
+    this.labels = labels;
+    this.tiles = tiles;
+    this.band = band;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * This method sums the colors and positions of the pixels of every tile of the given image.
+   * Bands are sized so that there are a few per processor, which keeps the number of partial sum
+   * arrays small even when there are many tiles.
+   *
+   * @param image  the image whose colors are summed.
+   * @param labels the tile of every pixel, stored row by row.
+   * @param tiles  the number of tiles.
+   * @return STRIDE values per tile: the sums of the red, green and blue channels, of the columns
+   *         and of the rows, and the number of pixels.
+   */
+  static long[] sum(Image image, int[] labels, int tiles) {
+    int height = image.getImageHeight();
+    int bands = 4 * ForkJoinPool.getCommonPoolParallelism();
+    int band = Math.max(BAND_HEIGHT, (height + bands - 1) / bands);
+    return ForkJoinPool.commonPool().invoke(new TileSums(image, labels, tiles, band, 0, height));
+  }
+
+  /**
+   * This method paints every tile of the given image with the average color of its pixels. The
+   * averages are truncated to whole numbers, and the rows are painted in parallel.
+   *
+   * @param image  the image whose colors are averaged.
+   * @param labels the tile of every pixel, stored row by row.
+   * @param tiles  the number of tiles.
+   * @return a new image where every pixel has the average color of its tile.
+   */
+  static Image paint(Image image, int[] labels, int tiles) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    long[] sums = sum(image, labels, tiles);
+    int[][] averages = new int[tiles][3];
+    for (int i = 0; i < tiles; i++) {
+      long count = sums[STRIDE * i + COUNT];
+      for (int channel = 0; count > 0 && channel < 3; channel++) {
+        averages[i][channel] = (int) (sums[STRIDE * i + RED + channel] / count);
+      }
+    }
+    int[][][] painted = new int[height][width][3];
+    IntStream.range(0, height).parallel().forEach(row -> {
+      for (int column = 0; column < width; column++) {
+        System.arraycopy(averages[labels[row * width + column]], 0, painted[row][column], 0, 3);
+      }
+    });
+    return new ImageImpl(painted);
+  }
+
+  /**
+   * This method sums the rows of this task, splitting them in half while there are too many.
+   *
+   * @return STRIDE values per tile: the sums of the red, green and blue channels, of the columns
+   *         and of the rows, and the number of pixels.
+   */
+  @Override
+  protected long[] compute() {
+    if (end - start > band) {
+      int middle = (start + end) >>> 1;
+      TileSums top = new TileSums(image, labels, tiles, band, start, middle);
+      TileSums bottom = new TileSums(image, labels, tiles, band, middle, end);
+      top.fork();
+      long[] sums = bottom.compute();
+      long[] topSums = top.join();
+      for (int i = 0; i < sums.length; i++) {
+        sums[i] += topSums[i];
+      }
+      return sums;
+    }
+    int width = image.getImageWidth();
+    long[] sums = new long[STRIDE * tiles];
+    for (int row = start; row < end; row++) {
+      for (int column = 0; column < width; column++) {
+        int tile = STRIDE * labels[row * width + column];
+        int color = image.getRGB(row, column);
+        sums[tile + RED] += (color >> 16) & 0xFF;
+        sums[tile + GREEN] += (color >> 8) & 0xFF;
+        sums[tile + BLUE] += color & 0xFF;
+        sums[tile + COLUMN] += column;
+        sums[tile + ROW] += row;
+        sums[tile + COUNT]++;
+      }
+    }
+    return sums;
+  }
+
+}
@@ -0,0 +1,158 @@
+package image.model.filter;
+
+import java.util.stream.IntStream;
+
+import image.model.TiledImage;
+import image.model.TiledImageImpl;
+
+/**
+ * This class applies a blur or a sharpen filter to a tiled image. A uniform tile whose filter
+ * only reaches pixels of the same color, inside the image, gets the same value at every pixel, so
+ * that value is computed once and the tile stays a single color; every other tile is filtered
+ * pixel by pixel. The values are the same as those of the filter on the full image, with every
+ * product rounded before it is summed and pixels outside of the image counted as black. Tiles are
+ * filtered in parallel.
+ */
+final class TiledConvolution {
+
+  /**
+   * This class only holds static methods and cannot be instantiated.
+   */
+  private TiledConvolution() {
+  }
+
+  /**
+   * This method applies the given filter to a tiled image.
+   *
+   * @param image  the image that the filter will be applied to.
+   * @param filter the filter, with odd and equal width and height.
+   * @return a new tiled image with the filter applied.
+   */
+  static TiledImage apply(TiledImage image, double[][] filter) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int size = image.getTileSize();
+    int across = image.getTilesAcross();
+    int tiles = across * image.getTilesDown();
+    int[][] tilePixels = new int[tiles][];
+    int[] tileColors = new int[tiles];
+    IntStream.range(0, tiles).parallel().forEach(tile -> {
+      int tileRow = tile / across;
+      int tileColumn = tile % across;
+      if (skippable(image, filter.length / 2, tileRow, tileColumn)) {
+        int color = image.getUniformColor(tileRow, tileColumn);
+        tileColors[tile] = uniformPixel(color, filter);
+        return;
+      }
+      int top = tileRow * size;
+      int left = tileColumn * size;
+      int[] pixels = new int[size * size];
+      for (int i = 0; i < size && top + i < height; i++) {
+        for (int j = 0; j < size && left + j < width; j++) {
+          pixels[i * size + j] = pixel(image, filter, top + i, left + j);
+        }
+      }
+      tilePixels[tile] = pixels;
+    });
+    return new TiledImageImpl(width, height, tilePixels, tileColors);
+  }
+
+  /**
+   * This helper method checks whether the filter of every pixel of a tile only reaches pixels
+   * inside the image that have the color of the tile. The filter reaches at most one tile past
+   * the tile on each side as long as it is no larger than a tile, so only the tile and the tiles
+   * around it are checked.
+   *
+   * @param image      the image that the filter is applied to.
+   * @param bounds     half the size of the filter, rounded down.
+   * @param tileRow    the row of the tile.
+   * @param tileColumn the column of the tile.
+   * @return true if every pixel of the tile gets the same value.
+   */
+  private static boolean skippable(TiledImage image, int bounds, int tileRow, int tileColumn) {
+    int size = image.getTileSize();
+    int top = tileRow * size;
+    int left = tileColumn * size;
+    int bottom = Math.min(image.getImageHeight(), top + size);
+    int right = Math.min(image.getImageWidth(), left + size);
+    if (bounds > size || top - bounds < 0 || left - bounds < 0
+            || bottom + bounds > image.getImageHeight() || right + bounds > image.getImageWidth()
+            || !image.isUniform(tileRow, tileColumn)) {
+      return false;
+    }
+    int color = image.getUniformColor(tileRow, tileColumn);
+    int firstRow = (top - bounds) / size;
+    int lastRow = (bottom - 1 + bounds) / size;
+    int firstColumn = (left - bounds) / size;
+    int lastColumn = (right - 1 + bounds) / size;
+    for (int i = firstRow; i <= lastRow; i++) {
+      for (int j = firstColumn; j <= lastColumn; j++) {
+        if (!image.isUniform(i, j) || image.getUniformColor(i, j) != color) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * This helper method applies the filter to a pixel whose filter only covers pixels of one color.
+   *
+   * @param color  the packed color of every pixel under the filter.
+   * @param filter the filter.
+   * @return the packed color of the filtered pixel.
+   */
+  private static int uniformPixel(int color, double[][] filter) {
+    int red = 0;
+    int green = 0;
+    int blue = 0;
+    for (double[] filterRow : filter) {
+      for (double weight : filterRow) {
+        red += (int) Math.round(((color >> 16) & 0xFF) * weight);
+        green += (int) Math.round(((color >> 8) & 0xFF) * weight);
+        blue += (int) Math.round((color & 0xFF) * weight);
+      }
+    }
+    return clamp(red) << 16 | clamp(green) << 8 | clamp(blue);
+  }
+
+  /**
+   * This helper method applies the filter to a single pixel, rounding every product before it is
+   * summed and clamping the sums between 0 and 255.
+   *
+   * @param image  the image that the filter is applied to.
+   * @param filter the filter.
+   * @param row    the row of the pixel.
+   * @param column the column of the pixel.
+   * @return the packed color of the filtered pixel.
+   */
+  private static int pixel(TiledImage image, double[][] filter, int row, int column) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int bounds = filter.length / 2;
+    int red = 0;
+    int green = 0;
+    int blue = 0;
+    for (int i = Math.max(0, bounds - row); i < filter.length && row - bounds + i < height; i++) {
+      for (int j = Math.max(0, bounds - column); j < filter.length
+              && column - bounds + j < width; j++) {
+        int color = image.getRGB(row - bounds + i, column - bounds + j);
+        red += (int) Math.round(((color >> 16) & 0xFF) * filter[i][j]);
+        green += (int) Math.round(((color >> 8) & 0xFF) * filter[i][j]);
+        blue += (int) Math.round((color & 0xFF) * filter[i][j]);
+      }
+    }
+    return clamp(red) << 16 | clamp(green) << 8 | clamp(blue);
+  }
+
+  /**
+   * This helper method keeps a channel value between 0 and 255.
+   *
+   * @param value the channel value.
+   * @return the value, raised to 0 or lowered to 255 if it is out of range.
+   */
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+
+}
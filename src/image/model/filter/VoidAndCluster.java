@@ -0,0 +1,141 @@
+package image.model.filter;
+
+import java.util.Random;
+
+/**
+ * This class generates a blue noise threshold map with the void-and-cluster method. Every set
+ * pixel of a binary pattern adds a Gaussian bump, which wraps around the edges of the map, to an
+ * energy field. The tightest cluster is the set pixel with the highest energy and the largest void
+ * is the empty pixel with the lowest energy. The random initial pattern is relaxed by moving its
+ * tightest cluster into its largest void until that no longer changes it, and then ranks are handed
+ * out by removing clusters from the pattern and filling voids after it.
+ */
+class VoidAndCluster {
+
+  /**
+   * The spread of the Gaussian bump around each set pixel.
+   */
+  private static final double SIGMA = 1.5;
+
+  /**
+   * The seed of the random initial pattern, so the same map is generated every time.
+   */
+  private static final long SEED = 0x5eedL;
+
+  /**
+   * The width and height of the map.
+   */
+  private final int size;
+
+  /**
+   * The Gaussian bump for every wrapped offset, stored row by row.
+   */
+  private final double[] bump;
+
+  /**
+   * This constructor creates a generator for a map of the given size.
+   *
+   * @param size the width and height of the map.
+   */
+  VoidAndCluster(int size) {
+    this.size = size;
+    this.bump = new double[size * size];
+    for (int dy = 0; dy < size; dy++) {
+      for (int dx = 0; dx < size; dx++) {
+        int y = Math.min(dy, size - dy);
+        int x = Math.min(dx, size - dx);
+        bump[dy * size + dx] = Math.exp(-(x * x + y * y) / (2 * SIGMA * SIGMA));
+      }
+    }
+  }
+
+  /**
+   * This method generates the map.
+   *
+   * @return the rank of every position of the map, from 0 to size * size - 1, stored row by row.
+   */
+  int[] generate() {
+    int total = size * size;
+    boolean[] initial = new boolean[total];
+    double[] energy = new double[total];
+    Random random = new Random(SEED);
+    int ones = 0;
+    while (ones < total / 10) {
+      int index = random.nextInt(total);
+      if (!initial[index]) {
+        initial[index] = true;
+        update(energy, index, 1);
+        ones++;
+      }
+    }
+    for (int i = 0; i < total; i++) {
+      int cluster = find(initial, energy, true);
+      initial[cluster] = false;
+      update(energy, cluster, -1);
+      int largestVoid = find(initial, energy, false);
+      if (largestVoid == cluster) {
+        initial[cluster] = true;
+        update(energy, cluster, 1);
+        break;
+      }
+      initial[largestVoid] = true;
+      update(energy, largestVoid, 1);
+    }
+    int[] ranks = new int[total];
+    boolean[] pattern = initial.clone();
+    double[] patternEnergy = energy.clone();
+    for (int rank = ones - 1; rank >= 0; rank--) {
+      int cluster = find(pattern, patternEnergy, true);
+      pattern[cluster] = false;
+      update(patternEnergy, cluster, -1);
+      ranks[cluster] = rank;
+    }
+    for (int rank = ones; rank < total; rank++) {
+      int largestVoid = find(initial, energy, false);
+      initial[largestVoid] = true;
+      update(energy, largestVoid, 1);
+      ranks[largestVoid] = rank;
+    }
+    return ranks;
+  }
+
+  /**
+   * This helper method adds or removes the Gaussian bump of one pixel to or from the energy field.
+   *
+   * @param energy the energy field.
+   * @param index  the position of the pixel.
+   * @param sign   1 to add the bump and -1 to remove it.
+   */
+  private void update(double[] energy, int index, int sign) {
+    int row = index / size;
+    int column = index % size;
+    for (int y = 0; y < size; y++) {
+      int dy = (y - row + size) % size;
+      for (int x = 0; x < size; x++) {
+        int dx = (x - column + size) % size;
+        energy[y * size + x] += sign * bump[dy * size + dx];
+      }
+    }
+  }
+
+  /**
+   * This helper method finds the tightest cluster or the largest void of a pattern.
+   *
+   * @param pattern the binary pattern.
+   * @param energy  the energy field of the pattern.
+   * @param set     true to find the set pixel with the highest energy, false to find the empty
+   *                pixel with the lowest energy.
+   * @return the position of the pixel that was found.
+   */
+  private int find(boolean[] pattern, double[] energy, boolean set) {
+    int best = -1;
+    for (int i = 0; i < pattern.length; i++) {
+      if (pattern[i] == set && (best < 0
+              || (set ? energy[i] > energy[best] : energy[i] < energy[best]))) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+}
@@ -0,0 +1,258 @@
+package image.model.filter;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This class computes the nearest seed of every pixel of an image, which splits the image into the
+ * Voronoi tiles of the mosaic filter. Every method returns a label map that holds the index of the
+ * nearest seed of each pixel, row by row. Rows and columns do not depend on each other within a
+ * pass, so each pass processes them in parallel. Where several seeds share a position, the one
+ * with the lowest index is used.
+ */
+final class VoronoiLabels {
+
+  /**
+   * The label of a pixel that has no seed yet.
+   */
+  private static final int NONE = -1;
+
+  /**
+   * This class only holds static methods and cannot be instantiated.
+   */
+  private VoronoiLabels() {
+  }
+
+  /**
+   * This method labels every pixel by looking it up in a uniform grid over the seeds. Pixels that
+   * are equally close to several seeds take the one with the lowest index.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the index of the nearest seed of every pixel, stored row by row.
+   */
+  static int[] grid(int[] seedX, int[] seedY, int width, int height) {
+    NearestSeedGrid grid = new NearestSeedGrid(seedX, seedY, width, height);
+    int[] labels = new int[width * height];
+    IntStream.range(0, height).parallel().forEach(y -> {
+      for (int x = 0; x < width; x++) {
+        labels[y * width + x] = grid.nearest(x, y);
+      }
+    });
+    return labels;
+  }
+
+  /**
+   * This method labels every pixel with an exact Euclidean feature transform in two separable
+   * passes. The first pass finds the nearest seed within each column, and the second pass finds,
+   * for each row, the lower envelope of the parabolas (x - column)^2 + (distance within that
+   * column)^2 over all columns, following Felzenszwalb and Huttenlocher. Every pixel gets a seed at
+   * the smallest distance; pixels exactly halfway between two seeds may take either one. The cost
+   * is linear in the number of pixels, whatever the number of seeds.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the index of the nearest seed of every pixel, stored row by row.
+   */
+  static int[] featureTransform(int[] seedX, int[] seedY, int width, int height) {
+    int[] columnLabels = place(seedX, seedY, width, height);
+    IntStream.range(0, width).parallel().forEach(x -> {
+      int above = NONE;
+      for (int y = 0; y < height; y++) {
+        int index = y * width + x;
+        if (columnLabels[index] != NONE) {
+          above = columnLabels[index];
+        }
+        columnLabels[index] = above;
+      }
+      int below = NONE;
+      for (int y = height - 1; y >= 0; y--) {
+        int index = y * width + x;
+        above = columnLabels[index];
+        if (above != NONE && seedY[above] == y) {
+          below = above;
+        }
+        if (below != NONE && (above == NONE || seedY[below] - y < y - seedY[above]
+                || (seedY[below] - y == y - seedY[above] && below < above))) {
+          columnLabels[index] = below;
+        }
+      }
+    });
+
+    int[] labels = new int[width * height];
+    IntStream.range(0, height).parallel().forEach(y -> {
+      int row = y * width;
+      int[] vertices = new int[width];
+      double[] bounds = new double[width + 1];
+      int k = NONE;
+      for (int q = 0; q < width; q++) {
+        int seed = columnLabels[row + q];
+        if (seed == NONE) {
+          continue;
+        }
+        long height2 = parabola(seedY[seed], y, q);
+        if (k == NONE) {
+          k = 0;
+          vertices[0] = q;
+          bounds[0] = Double.NEGATIVE_INFINITY;
+          bounds[1] = Double.POSITIVE_INFINITY;
+          continue;
+        }
+        double s = intersect(vertices[k], parabola(seedY[columnLabels[row + vertices[k]]], y,
+                vertices[k]), q, height2);
+        while (s <= bounds[k]) {
+          k--;
+          s = intersect(vertices[k], parabola(seedY[columnLabels[row + vertices[k]]], y,
+                  vertices[k]), q, height2);
+        }
+        k++;
+        vertices[k] = q;
+        bounds[k] = s;
+        bounds[k + 1] = Double.POSITIVE_INFINITY;
+      }
+      k = 0;
+      for (int x = 0; x < width; x++) {
+        while (bounds[k + 1] < x) {
+          k++;
+        }
+        labels[row + x] = columnLabels[row + vertices[k]];
+      }
+    });
+    return labels;
+  }
+
+  /**
+   * This helper method computes the height of a parabola of the second pass: the squared distance
+   * from a pixel to the nearest seed of its column, plus the squared column.
+   *
+   * @param seedRow the row of the nearest seed in the column.
+   * @param row     the row of the pixel.
+   * @param column  the column of the parabola.
+   * @return the value of the parabola at column 0.
+   */
+  private static long parabola(int seedRow, int row, int column) {
+    long dy = seedRow - row;
+    return dy * dy + (long) column * column;
+  }
+
+  /**
+   * This helper method finds where two parabolas of the second pass intersect.
+   *
+   * @param p       the column of the first parabola.
+   * @param heightP the value of the first parabola at column 0.
+   * @param q       the column of the second parabola, greater than p.
+   * @param heightQ the value of the second parabola at column 0.
+   * @return the column where both parabolas are equal.
+   */
+  private static double intersect(int p, long heightP, int q, long heightQ) {
+    return (heightQ - heightP) / (2.0 * (q - p));
+  }
+
+  /**
+   * This method labels every pixel by jump flooding. Starting from the seeds, every pixel looks at
+   * its eight neighbors at a distance that halves from pass to pass and keeps the closest of their
+   * seeds; a final pass at distance one cleans up most of the remaining errors. The result is
+   * nearly always exact, and the cost is the number of pixels times the logarithm of the image
+   * size, whatever the number of seeds.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the index of the nearest seed found for every pixel, stored row by row.
+   */
+  static int[] jumpFlood(int[] seedX, int[] seedY, int width, int height) {
+    int[] source = place(seedX, seedY, width, height);
+    int[] target = new int[width * height];
+    int start = Integer.highestOneBit(Math.max(1, Math.max(width, height) - 1));
+    for (int step = start; step >= 1; step /= 2) {
+      flood(seedX, seedY, width, height, step, source, target);
+      int[] swap = source;
+      source = target;
+      target = swap;
+    }
+    flood(seedX, seedY, width, height, 1, source, target);
+    return target;
+  }
+
+  /**
+   * This helper method runs one pass of jump flooding. Every pixel keeps the closest of its own
+   * seed and the seeds of its eight neighbors at the given distance.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @param step   the distance to the neighbors.
+   * @param source the labels before this pass.
+   * @param target the labels after this pass, which are written by this method.
+   */
+  private static void flood(int[] seedX, int[] seedY, int width, int height, int step,
+                            int[] source, int[] target) {
+    IntStream.range(0, height).parallel().forEach(y -> {
+      for (int x = 0; x < width; x++) {
+        int best = source[y * width + x];
+        long bestDistance = best == NONE ? Long.MAX_VALUE : distance(seedX, seedY, best, x, y);
+        for (int ny = y - step; ny <= y + step; ny += step) {
+          if (ny < 0 || ny >= height) {
+            continue;
+          }
+          for (int nx = x - step; nx <= x + step; nx += step) {
+            if (nx < 0 || nx >= width || (nx == x && ny == y)) {
+              continue;
+            }
+            int seed = source[ny * width + nx];
+            if (seed == NONE) {
+              continue;
+            }
+            long d = distance(seedX, seedY, seed, x, y);
+            if (d < bestDistance || (d == bestDistance && seed < best)) {
+              bestDistance = d;
+              best = seed;
+            }
+          }
+        }
+        target[y * width + x] = best;
+      }
+    });
+  }
+
+  /**
+   * This helper method computes the squared distance from a pixel to a seed.
+   *
+   * @param seedX the column of every seed.
+   * @param seedY the row of every seed.
+   * @param seed  the index of the seed.
+   * @param x     the column of the pixel.
+   * @param y     the row of the pixel.
+   * @return the squared distance.
+   */
+  private static long distance(int[] seedX, int[] seedY, int seed, int x, int y) {
+    long dx = x - seedX[seed];
+    long dy = y - seedY[seed];
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * This helper method builds a label map that only holds the seeds, at their own positions.
+   *
+   * @param seedX  the column of every seed.
+   * @param seedY  the row of every seed.
+   * @param width  the width of the image.
+   * @param height the height of the image.
+   * @return the label map, with NONE for every pixel that is not a seed.
+   */
+  private static int[] place(int[] seedX, int[] seedY, int width, int height) {
+    int[] labels = new int[width * height];
+    Arrays.fill(labels, NONE);
+    for (int i = seedX.length - 1; i >= 0; i--) {
+      labels[seedY[i] * width + seedX[i]] = i;
+    }
+    return labels;
+  }
+
+}
@@ -0,0 +1,80 @@
+package image.model.pattern;
+
+/**
+ * This class represents a disc of a flag. The stretch of a line inside the disc is found exactly
+ * from the equation of the circle, so the edge stays smooth at any size.
+ */
+class CircleShape implements FlagShape {
+
+  /**
+   * The across position of the center, in the units of the flag.
+   */
+  private final double centerX;
+
+  /**
+   * The down position of the center, in the units of the flag.
+   */
+  private final double centerY;
+
+  /**
+   * The radius, in the units of the flag.
+   */
+  private final double radius;
+
+  /**
+   * The color of this disc (0xRRGGBB).
+   */
+  private final int color;
+
+  /**
+   * This constructor creates a disc.
+   *
+   * @param centerX the across position of the center, in the units of the flag.
+   * @param centerY the down position of the center, in the units of the flag.
+   * @param radius  the radius, in the units of the flag.
+   * @param color   the color of this disc (0xRRGGBB).
+   * @throws IllegalArgumentException if the radius is not positive.
+   */
+  CircleShape(double centerX, double centerY, double radius, int color)
+          throws IllegalArgumentException {
+    if (!(radius > 0)) {
+      throw new IllegalArgumentException("Error: a circle needs a positive radius");
+    }
+    this.centerX = centerX;
+    this.centerY = centerY;
+    this.radius = radius;
+    this.color = color;
+  }
+
+  /**
+   * This method gets the color of this disc.
+   *
+   * @return the color, packed into one integer with the red, green and blue channels stored in 8
+   *         bits each (0xRRGGBB).
+   */
+  @Override
+  public int getColor() {
+    return this.color;
+  }
+
+  /**
+   * This method finds the stretch of a horizontal line that lies inside this disc. When the flag
+   * is not scaled equally in both directions the disc becomes an ellipse.
+   *
+   * @param y      the height of the line in pixels, measured down from the top of the flag.
+   * @param scaleX the number of pixels in one unit across the flag.
+   * @param scaleY the number of pixels in one unit down the flag.
+   * @return the start and end in pixels of the stretch, or an empty array if the line misses the
+   *         disc.
+   */
+  @Override
+  public double[] getSpans(double y, double scaleX, double scaleY) {
+    double dy = (y - this.centerY * scaleY) / (this.radius * scaleY);
+    if (dy <= -1 || dy >= 1) {
+      return new double[0];
+    }
+    double half = this.radius * scaleX * Math.sqrt(1 - dy * dy);
+    return new double[]{this.centerX * scaleX - half, this.centerX * scaleX + half};
+  }
+
+}
@@ -9,11 +9,11 @@ import image.model.Image;
 public interface FlagImage {
 
   /**
-   * This method draws three possible flags, France, Switzerland, and Greece. Countries must be
-   * input staring with a capital letter followed by all lowercase letters. Each flag will be drawn
-   * in proportion to the size given.
+   * This method draws the flag of a country from its spec file in the flags folder of the pattern
+   * package. Countries must be input staring with a capital letter. Each flag will be drawn in
+   * proportion to the size given.
    *
-   * @param country the country's flag to be drawn, can only be France, Switzerland, or Greece.
+   * @param country the country's flag to be drawn, such as France, Switzerland, Greece, or Japan.
    * @param size    the desired width in pixels of the image.
    * @throws IllegalArgumentException if the given value for size does not allow the method to draw
    *                                  the given country's flag (these differ between countries - see
@@ -0,0 +1,31 @@
+package image.model.pattern;
+
+/**
+ * This interface represents one shape of a flag, such as a stripe, a disc or a star, with a single
+ * color. A shape is drawn one horizontal line at a time: for any height it gives the stretches of
+ * that line that lie inside it, so a flag can be filled line by line without testing every pixel.
+ * Shapes are given in the units of their flag, and are scaled to pixels when they are drawn.
+ */
+interface FlagShape {
+
+  /**
+   * This method gets the color of this shape.
+   *
+   * @return the color, packed into one integer with the red, green and blue channels stored in 8
+   *         bits each (0xRRGGBB).
+   */
+  int getColor();
+
+  /**
+   * This method finds the stretches of a horizontal line that lie inside this shape, once the
+   * shape is scaled to pixels.
+   *
+   * @param y      the height of the line in pixels, measured down from the top of the flag.
+   * @param scaleX the number of pixels in one unit across the flag.
+   * @param scaleY the number of pixels in one unit down the flag.
+   * @return the start and end in pixels of every stretch, in increasing order, two entries per
+   *         stretch; empty if the line misses the shape.
+   */
+  double[] getSpans(double y, double scaleX, double scaleY);
+
+}
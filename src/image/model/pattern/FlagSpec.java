@@ -0,0 +1,368 @@
+package image.model.pattern;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import image.model.RunLengthImage;
+import image.model.RunLengthImageImpl;
+
+/**
+ * This class represents the geometry of a flag, read from a spec file, which can be drawn at any
+ * size. A spec starts with the width and height of the flag in any units, followed by its shapes
+ * from back to front, one per line:
+ *
+ * <pre>
+ * flag [width] [height]
+ * rect [left] [top] [width] [height] [color]
+ * polygon [x1] [y1] [x2] [y2] [x3] [y3] ... [color]
+ * circle [center x] [center y] [radius] [color]
+ * star [center x] [center y] [radius] [color]
+ * </pre>
+ *
+ * <p>Colors are written as #RRGGBB, and lines starting with # are comments. Each row of pixels
+ * is drawn on its own, in parallel with the others: every shape gives the stretches of a few
+ * horizontal lines through the row that lie inside it, and the share of each pixel that is covered
+ * decides how much of the shape color is blended over the colors below it. The row is kept as runs
+ * of one color from start to end, so the work per row depends on the number of shape edges it
+ * meets rather than on its width. Spec files are read once and kept.
+ */
+final class FlagSpec {
+
+  /**
+   * The number of horizontal lines through each row that are used to measure the coverage.
+   */
+  private static final int LINES_PER_ROW = 8;
+
+  /**
+   * The specs that were already read, by country name.
+   */
+  private static final Map<String, FlagSpec> CACHE = new ConcurrentHashMap<>();
+
+  /**
+   * The width of the flag, in its own units.
+   */
+  private final double width;
+
+  /**
+   * The height of the flag, in its own units.
+   */
+  private final double height;
+
+  /**
+   * The shapes of the flag, from back to front.
+   */
+  private final List<FlagShape> shapes;
+
+  /**
+   * This constructor creates a flag geometry.
+   *
+   * @param width  the width of the flag, in its own units.
+   * @param height the height of the flag, in its own units.
+   * @param shapes the shapes of the flag, from back to front.
+   */
+  private FlagSpec(double width, double height, List<FlagShape> shapes) {
+    this.width = width;
+    this.height = height;
+    this.shapes = shapes;
+  }
+
+  /**
+   * This method gets the flag of the given country, reading its spec file the first time.
+   *
+   * @param country the name of the country, written with capital letters as in "Japan".
+   * @return the geometry of the flag.
+   * @throws IllegalArgumentException if there is no spec for the country or it cannot be read.
+   */
+  static FlagSpec load(String country) throws IllegalArgumentException {
+    if (!country.matches("[A-Z][A-Za-z]*(-[A-Z][A-Za-z]*)*")) {
+      throw new IllegalArgumentException("Error: invalid country name.");
+    }
+    return CACHE.computeIfAbsent(country, FlagSpec::read);
+  }
+
+  /**
+   * This helper method reads the spec file of a country from the flags folder next to this class.
+   *
+   * @param country the name of the country.
+   * @return the geometry of the flag.
+   * @throws IllegalArgumentException if there is no spec for the country or it cannot be read.
+   */
+  private static FlagSpec read(String country) throws IllegalArgumentException {
+    InputStream in = FlagSpec.class.getResourceAsStream("flags/" + country + ".flag");
+    if (in == null) {
+      throw new IllegalArgumentException("Error: invalid country name.");
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+            StandardCharsets.UTF_8))) {
+      return parse(reader);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Error: could not read the flag of " + country);
+    }
+  }
+
+  /**
+   * This method reads the geometry of a flag from a spec.
+   *
+   * @param reader the spec to read.
+   * @return the geometry of the flag.
+   * @throws IOException              if the spec cannot be read.
+   * @throws IllegalArgumentException if the spec is not written correctly.
+   */
+  static FlagSpec parse(BufferedReader reader) throws IOException, IllegalArgumentException {
+    double flagWidth = 0;
+    double flagHeight = 0;
+    List<FlagShape> shapes = new ArrayList<>();
+    int number = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      number++;
+      String[] tokens = line.trim().split("\\s+");
+      if (tokens[0].isEmpty() || tokens[0].startsWith("#")) {
+        continue;
+      }
+      try {
+        if (flagWidth == 0) {
+          if (!tokens[0].equals("flag") || tokens.length != 3) {
+            throw new IllegalArgumentException("a spec must start with the flag size");
+          }
+          flagWidth = Double.parseDouble(tokens[1]);
+          flagHeight = Double.parseDouble(tokens[2]);
+          if (!(flagWidth > 0 && flagHeight > 0)) {
+            throw new IllegalArgumentException("the flag size must be positive");
+          }
+          continue;
+        }
+        double[] values = new double[tokens.length - 2];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = Double.parseDouble(tokens[i + 1]);
+        }
+        int color = parseColor(tokens[tokens.length - 1]);
+        shapes.add(parseShape(tokens[0], values, color));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Error: invalid flag spec on line " + number + ": "
+                + e.getMessage());
+      }
+    }
+    if (flagWidth == 0) {
+      throw new IllegalArgumentException("Error: invalid flag spec: the flag size is missing");
+    }
+    return new FlagSpec(flagWidth, flagHeight, shapes);
+  }
+
+  /**
+   * This helper method creates one shape of a spec.
+   *
+   * @param kind   the kind of shape: rect, polygon, circle or star.
+   * @param values the numbers written after the kind.
+   * @param color  the color of the shape (0xRRGGBB).
+   * @return the shape.
+   * @throws IllegalArgumentException if the kind is unknown or has the wrong number of values.
+   */
+  private static FlagShape parseShape(String kind, double[] values, int color)
+          throws IllegalArgumentException {
+    switch (kind) {
+      case "rect":
+        checkCount(kind, values, 4);
+        return PolygonShape.rectangle(values[0], values[1], values[2], values[3], color);
+      case "circle":
+        checkCount(kind, values, 3);
+        return new CircleShape(values[0], values[1], values[2], color);
+      case "star":
+        checkCount(kind, values, 3);
+        return PolygonShape.star(values[0], values[1], values[2], color);
+      case "polygon":
+        if (values.length % 2 != 0) {
+          throw new IllegalArgumentException("a polygon needs pairs of positions");
+        }
+        double[] xs = new double[values.length / 2];
+        double[] ys = new double[values.length / 2];
+        for (int i = 0; i < xs.length; i++) {
+          xs[i] = values[2 * i];
+          ys[i] = values[2 * i + 1];
+        }
+        return new PolygonShape(xs, ys, color);
+      default:
+        throw new IllegalArgumentException("unknown shape " + kind);
+    }
+  }
+
+  /**
+   * This helper method checks the number of values of a shape.
+   *
+   * @param kind     the kind of shape.
+   * @param values   the numbers written after the kind.
+   * @param expected the number of values the shape needs.
+   * @throws IllegalArgumentException if the number of values is wrong.
+   */
+  private static void checkCount(String kind, double[] values, int expected)
+          throws IllegalArgumentException {
+    if (values.length != expected) {
+      throw new IllegalArgumentException(kind + " needs " + expected + " numbers and a color");
+    }
+  }
+
+  /**
+   * This helper method reads a color written as #RRGGBB.
+   *
+   * @param token the color as written.
+   * @return the packed color (0xRRGGBB).
+   * @throws IllegalArgumentException if the color is not written correctly.
+   */
+  private static int parseColor(String token) throws IllegalArgumentException {
+    if (!token.matches("#[0-9A-Fa-f]{6}")) {
+      throw new IllegalArgumentException("invalid color " + token);
+    }
+    return Integer.parseInt(token.substring(1), 16);
+  }
+
+  /**
+   * This method draws the flag with the given width. The height keeps the proportions of the
+   * flag, rounded to the nearest pixel.
+   *
+   * @param pixels the width of the image in pixels.
+   * @return the flag as a run-length image.
+   * @throws IllegalArgumentException if the flag would be less than one pixel wide or tall.
+   */
+  RunLengthImage render(int pixels) throws IllegalArgumentException {
+    int rows = (int) Math.round(pixels * this.height / this.width);
+    if (pixels < 1 || rows < 1) {
+      throw new IllegalArgumentException("Error: flag is too small");
+    }
+    double scaleX = pixels / this.width;
+    double scaleY = rows / this.height;
+    int[][] runEnds = new int[rows][];
+    int[][] runColors = new int[rows][];
+    IntStream.range(0, rows).parallel().forEach(row -> {
+      int[] ends = {pixels};
+      int[] colors = {0};
+      for (FlagShape shape : this.shapes) {
+        int[][] runs = paint(shape, row, pixels, scaleX, scaleY, ends, colors);
+        ends = runs[0];
+        colors = runs[1];
+      }
+      runEnds[row] = ends;
+      runColors[row] = colors;
+    });
+    return new RunLengthImageImpl(pixels, runEnds, runColors);
+  }
+
+  /**
+   * This helper method blends one shape over the runs of one row. For every line through the row,
+   * each stretch inside the shape covers the pixels it passes through completely and the pixels
+   * at its ends partly; the coverage of a pixel is the covered length averaged over the lines.
+   *
+   * @param shape  the shape to blend.
+   * @param row    the row of pixels.
+   * @param pixels the width of the image in pixels.
+   * @param scaleX the number of pixels in one unit across the flag.
+   * @param scaleY the number of pixels in one unit down the flag.
+   * @param ends   the end of every run of the row so far.
+   * @param colors the color of every run of the row so far.
+   * @return the ends and the colors of the runs of the row with the shape blended in.
+   */
+  private static int[][] paint(FlagShape shape, int row, int pixels, double scaleX,
+                               double scaleY, int[] ends, int[] colors) {
+    TreeMap<Integer, Integer> fullChanges = new TreeMap<>();
+    TreeMap<Integer, Double> partial = new TreeMap<>();
+    for (int line = 0; line < LINES_PER_ROW; line++) {
+      double[] spans = shape.getSpans(row + (line + 0.5) / LINES_PER_ROW, scaleX, scaleY);
+      for (int k = 0; k < spans.length; k += 2) {
+        double start = Math.max(0, spans[k]);
+        double end = Math.min(pixels, spans[k + 1]);
+        if (end <= start) {
+          continue;
+        }
+        int first = (int) Math.floor(start);
+        int last = (int) Math.floor(end);
+        if (first == last) {
+          partial.merge(first, end - start, Double::sum);
+          continue;
+        }
+        partial.merge(first, first + 1 - start, Double::sum);
+        fullChanges.merge(first + 1, 1, Integer::sum);
+        fullChanges.merge(last, -1, Integer::sum);
+        if (last < pixels && end > last) {
+          partial.merge(last, end - last, Double::sum);
+        }
+      }
+    }
+    if (fullChanges.isEmpty() && partial.isEmpty()) {
+      return new int[][]{ends, colors};
+    }
+    TreeSet<Integer> breaks = new TreeSet<>(fullChanges.keySet());
+    for (int column : partial.keySet()) {
+      breaks.add(column);
+      breaks.add(column + 1);
+    }
+    breaks.add(pixels);
+
+    int[] newEnds = new int[ends.length + 2 * breaks.size()];
+    int[] newColors = new int[newEnds.length];
+    int runs = 0;
+    int full = 0;
+    int run = 0;
+    int start = 0;
+    for (int end : breaks) {
+      if (end > pixels) {
+        break;
+      }
+      if (end == start) {
+        full += fullChanges.getOrDefault(end, 0);
+        continue;
+      }
+      double covered = full + (end == start + 1 ? partial.getOrDefault(start, 0.0) : 0.0);
+      double coverage = Math.min(1, covered / LINES_PER_ROW);
+      while (start < end) {
+        while (ends[run] <= start) {
+          run++;
+        }
+        int stop = Math.min(end, ends[run]);
+        int color = blend(colors[run], shape.getColor(), coverage);
+        if (runs > 0 && newColors[runs - 1] == color) {
+          newEnds[runs - 1] = stop;
+        } else {
+          newEnds[runs] = stop;
+          newColors[runs++] = color;
+        }
+        start = stop;
+      }
+      full += fullChanges.getOrDefault(end, 0);
+    }
+    return new int[][]{Arrays.copyOf(newEnds, runs), Arrays.copyOf(newColors, runs)};
+  }
+
+  /**
+   * This helper method blends a color over another one.
+   *
+   * @param below    the color below (0xRRGGBB).
+   * @param above    the color blended over it (0xRRGGBB).
+   * @param coverage how much of the color above is used, between 0 and 1.
+   * @return the blended color (0xRRGGBB).
+   */
+  private static int blend(int below, int above, double coverage) {
+    if (coverage <= 0) {
+      return below;
+    } else if (coverage >= 1) {
+      return above;
+    }
+    int color = 0;
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      int low = (below >> shift) & 0xFF;
+      int high = (above >> shift) & 0xFF;
+      color |= (int) Math.round(low + (high - low) * coverage) << shift;
+    }
+    return color;
+  }
+
+}
@@ -1,13 +1,16 @@
 package image.model.pattern;
 
+import image.model.GeneratedImageImpl;
 import image.model.Image;
-import image.model.ImageImpl;
+import image.model.RunLengthImageImpl;
 
 /**
  * This class represents the implementation of the rainbow image interface. It contains two methods
  * that draw a horizontal or vertical rainbow with given width and height. Each method requires the
  * user to enter a minimum number of pixels since all colors of the rainbow need to be displayed. It
- * also contains a helper method that gets the stripe size using the given width and height.
+ * also contains a helper method that gets the stripe size using the given width and height. Each
+ * image is stored as runs of constant color along its rows, found from the color of every pixel as
+ * a function of its position, so no pixel array is kept.
  */
 public class PatternImageImpl implements PatternImage {
 
@@ -40,18 +43,9 @@ public class PatternImageImpl implements PatternImage {
       throw new IllegalArgumentException("Error: width must be greater than 0 and height must be "
               + "greater than 12");
     }
-    int[][][] rainbow = new int[height][width][3];
     int stripeSize = getStripeSize(height);
-    int colorIndex = 0;
-    for (int i = 0; i < height; i++) {
-      if (i == stripeSize * (colorIndex + 1)) {
-        colorIndex += 1;
-      }
-      for (int j = 0; j < width; j++) {
-        rainbow[i][j] = colors[colorIndex];
-      }
-    }
-    return new ImageImpl(rainbow);
+    return RunLengthImageImpl.encode(new GeneratedImageImpl(width, height, colors,
+            (i, j) -> i / stripeSize));
   }
 
   /**
@@ -73,23 +67,9 @@ public class PatternImageImpl implements PatternImage {
               + "greater than 12");
     }
     int stripeSize = getStripeSize(width);
-    int colorIndex;
-    int[][][] rainbow = new int[height][width][3];
-    for (int i = 0; i < height; i++) {
-      colorIndex = 0;
-      for (int j = 0; j < width; j++) {
-        if (j <= stripeSize * (colorIndex + 1)) {
-          rainbow[i][j] = colors[colorIndex];
-        } else {
-          if (colorIndex == 7) {
-            rainbow[i][j] = colors[colorIndex];
-          }
-          colorIndex += 1;
-          rainbow[i][j] = colors[colorIndex];
-        }
-      }
-    }
-    return new ImageImpl(rainbow);
+    // the first stripe also takes the column where the others would start
+    return RunLengthImageImpl.encode(new GeneratedImageImpl(width, height, colors,
+            (i, j) -> j == 0 ? 0 : (j - 1) / stripeSize));
   }
 
   /**
@@ -107,46 +87,14 @@ public class PatternImageImpl implements PatternImage {
     if (size < 8) {
       throw new IllegalArgumentException("Error: height and width must be over 8");
     }
-    int[][][] checkerboard = new int[size * 8][size * 8][3];
-    int checkerDown = 1;
-    int checkerAcross;
-    int colorIndex = 0;
-    int colorAcross;
-    for (int i = 0; i < checkerboard.length; i++) {
-      checkerAcross = 1;
-      colorAcross = colorIndex;
-      if (i < size * (checkerDown)) {
-        for (int j = 0; j < checkerboard[0].length; j++) {
-          if (j <= size * (checkerAcross)) {
-            checkerboard[i][j] = blackAndWhite[colorAcross];
-          } else {
-            checkerAcross += 1;
-            colorAcross = colorSwitcher(colorAcross);
-            checkerboard[i][j] = blackAndWhite[colorAcross];
-          }
-        }
-      } else {
-        checkerDown += 1;
-        colorIndex = colorSwitcher(colorIndex);
-      }
-    }
-    return new ImageImpl(checkerboard);
-  }
-
-  /**
-   * This method changes the colorIndex. If the index is 0, it changes to 1. If it is 1, it changes
-   * to 0.
-   *
-   * @param colorIndex an integer that represents the color index.
-   * @return an integer, the changed colorIndex.
-   */
-  private int colorSwitcher(int colorIndex) {
-    if (colorIndex == 0) {
-      colorIndex = 1;
-    } else {
-      colorIndex = 0;
-    }
-    return colorIndex;
+    // the first row of every band of checks after the first is left black
+    return RunLengthImageImpl.encode(new GeneratedImageImpl(size * 8, size * 8, blackAndWhite,
+            (i, j) -> {
+              if (i > 0 && i % size == 0) {
+                return 0;
+              }
+              return (i / size + (j == 0 ? 0 : (j - 1) / size)) % 2;
+            }));
   }
 
   /**
@@ -0,0 +1,125 @@
+package image.model.pattern;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a polygon of a flag, which is also used for rectangles and stars. A point
+ * is inside the polygon if a line from it crosses the edges an odd number of times, so the corners
+ * may be given in either direction.
+ */
+class PolygonShape implements FlagShape {
+
+  /**
+   * The ratio between the inner and outer radius of a regular five-pointed star.
+   */
+  private static final double STAR_INNER_RATIO = 0.381966;
+
+  /**
+   * The across position of every corner, in the units of the flag.
+   */
+  private final double[] xs;
+
+  /**
+   * The down position of every corner, in the units of the flag.
+   */
+  private final double[] ys;
+
+  /**
+   * The color of this polygon (0xRRGGBB).
+   */
+  private final int color;
+
+  /**
+   * This constructor creates a polygon with the given corners.
+   *
+   * @param xs    the across position of every corner, in the units of the flag.
+   * @param ys    the down position of every corner, in the units of the flag.
+   * @param color the color of this polygon (0xRRGGBB).
+   * @throws IllegalArgumentException if there are fewer than three corners or the positions do not
+   *                                  pair up.
+   */
+  PolygonShape(double[] xs, double[] ys, int color) throws IllegalArgumentException {
+    if (xs.length < 3 || xs.length != ys.length) {
+      throw new IllegalArgumentException("Error: a polygon needs at least three corners");
+    }
+    this.xs = xs;
+    this.ys = ys;
+    this.color = color;
+  }
+
+  /**
+   * This method creates a rectangle.
+   *
+   * @param x      the left side of the rectangle.
+   * @param y      the top side of the rectangle.
+   * @param width  the width of the rectangle.
+   * @param height the height of the rectangle.
+   * @param color  the color of the rectangle (0xRRGGBB).
+   * @return the rectangle as a polygon.
+   */
+  static PolygonShape rectangle(double x, double y, double width, double height, int color) {
+    return new PolygonShape(new double[]{x, x + width, x + width, x},
+            new double[]{y, y, y + height, y + height}, color);
+  }
+
+  /**
+   * This method creates a regular five-pointed star with one point straight up.
+   *
+   * @param centerX the across position of the center of the star.
+   * @param centerY the down position of the center of the star.
+   * @param radius  the distance from the center to each point.
+   * @param color   the color of the star (0xRRGGBB).
+   * @return the star as a polygon of ten corners.
+   */
+  static PolygonShape star(double centerX, double centerY, double radius, int color) {
+    double[] xs = new double[10];
+    double[] ys = new double[10];
+    for (int i = 0; i < 10; i++) {
+      double angle = Math.toRadians(-90 + 36 * i);
+      double distance = i % 2 == 0 ? radius : radius * STAR_INNER_RATIO;
+      xs[i] = centerX + distance * Math.cos(angle);
+      ys[i] = centerY + distance * Math.sin(angle);
+    }
+    return new PolygonShape(xs, ys, color);
+  }
+
+  /**
+   * This method gets the color of this polygon.
+   *
+   * @return the color, packed into one integer with the red, green and blue channels stored in 8
+   *         bits each (0xRRGGBB).
+   */
+  @Override
+  public int getColor() {
+    return this.color;
+  }
+
+  /**
+   * This method finds the stretches of a horizontal line that lie inside this polygon, by pairing
+   * up the places where the line crosses its edges from left to right.
+   *
+   * @param y      the height of the line in pixels, measured down from the top of the flag.
+   * @param scaleX the number of pixels in one unit across the flag.
+   * @param scaleY the number of pixels in one unit down the flag.
+   * @return the start and end in pixels of every stretch, in increasing order, two entries per
+   *         stretch; empty if the line misses the polygon.
+   */
+  @Override
+  public double[] getSpans(double y, double scaleX, double scaleY) {
+    double[] crossings = new double[this.xs.length];
+    int count = 0;
+    for (int i = 0; i < this.xs.length; i++) {
+      int next = (i + 1) % this.xs.length;
+      double y1 = this.ys[i] * scaleY;
+      double y2 = this.ys[next] * scaleY;
+      if ((y1 <= y && y < y2) || (y2 <= y && y < y1)) {
+        double x1 = this.xs[i] * scaleX;
+        double x2 = this.xs[next] * scaleX;
+        crossings[count++] = x1 + (y - y1) * (x2 - x1) / (y2 - y1);
+      }
+    }
+    Arrays.sort(crossings, 0, count);
+    return Arrays.copyOf(crossings, count - count % 2);
+  }
+
+}
@@ -1,7 +1,15 @@
 package image.model.transformation;
 
+import java.util.Arrays;
+
+import image.model.GreyscaleImage;
+import image.model.GreyscaleImageImpl;
 import image.model.Image;
 import image.model.ImageImpl;
+import image.model.RunLengthImage;
+import image.model.RunLengthImageImpl;
+import image.model.TiledImage;
+import image.model.TiledImageImpl;
 
 /**
  * This class represents the implementation of the image filter interface. It is used to apply a
@@ -11,21 +19,222 @@ import image.model.ImageImpl;
  */
 public class ImageTransformationImpl implements ImageTransformation {
 
+  /**
+   * This method applies a matrix to an image that transforms each pixel. If every row of the matrix
+   * is the same (as in greyscale), all three channels of the result are equal and a single-channel
+   * greyscale image is returned. Greyscale images are transformed through a lookup table with one
+   * entry per grey value instead of once per pixel, run-length images are transformed once per
+   * run into a new run-length image, and the uniform tiles of tiled images are transformed once per
+   * tile.
+   *
+   * @param image  the given image.
+   * @param matrix the given matrix that will be applied to the given image.
+   * @return the result of the transformation represented as a new image array of pixels.
+   */
   @Override
   public Image applyTransformation(Image image, double[][] matrix) {
+    if (image instanceof GreyscaleImage) {
+      return transformGreyscale((GreyscaleImage) image, matrix);
+    }
+    if (image instanceof RunLengthImage) {
+      return transformRuns((RunLengthImage) image, matrix);
+    }
+    if (image instanceof TiledImage) {
+      return transformTiles((TiledImage) image, matrix);
+    }
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int[][][] pixels = image.getImage();
+    if (hasIdenticalRows(matrix)) {
+      byte[] grey = new byte[width * height];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          grey[i * width + j] = (byte) clamp((int) Math.round(transform(pixels[i][j],
+                  matrix[0])));
+        }
+      }
+      return new GreyscaleImageImpl(grey, width, height);
+    }
+    int[][][] newImage = new int[height][width][3];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        for (int k = 0; k < 3; k++) {
+          newImage[i][j][k] = clamp((int) Math.round(transform(pixels[i][j], matrix[k])));
+        }
+      }
+    }
+    return new ImageImpl(newImage);
+  }
+
+  /**
+   * This helper method applies a matrix to a greyscale image. Since every pixel has the same value
+   * in all three channels, the result for each of the 256 grey values is computed once and looked
+   * up for every pixel.
+   *
+   * @param image  the given greyscale image.
+   * @param matrix the given matrix that will be applied to the given image.
+   * @return the result of the transformation, a greyscale image if every row of the matrix is the
+   *         same.
+   */
+  private Image transformGreyscale(GreyscaleImage image, double[][] matrix) {
     int width = image.getImageWidth();
     int height = image.getImageHeight();
+    int[][] table = new int[3][256];
+    for (int value = 0; value < 256; value++) {
+      int[] pixel = {value, value, value};
+      for (int k = 0; k < 3; k++) {
+        table[k][value] = clamp((int) Math.round(transform(pixel, matrix[k])));
+      }
+    }
+    byte[] grey = image.getGreyValues();
+    if (hasIdenticalRows(matrix)) {
+      byte[] newGrey = new byte[grey.length];
+      for (int i = 0; i < grey.length; i++) {
+        newGrey[i] = (byte) table[0][grey[i] & 0xFF];
+      }
+      return new GreyscaleImageImpl(newGrey, width, height);
+    }
     int[][][] newImage = new int[height][width][3];
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
+        int value = grey[i * width + j] & 0xFF;
         for (int k = 0; k < 3; k++) {
-          newImage[i][j][k] = clamp((int) Math.round(transform(image.getImage()[i][j], matrix[k])));
+          newImage[i][j][k] = table[k][value];
         }
       }
     }
     return new ImageImpl(newImage);
   }
 
+  /**
+   * This helper method applies a matrix to a run-length image. The color of every run is
+   * transformed once, the runs keep their ends, and a row that is identical to the row above it
+   * takes the result of that row. The result stays a run-length image even when every row of the
+   * matrix is the same, since a greyscale image would need one byte per pixel.
+   *
+   * @param image  the given run-length image.
+   * @param matrix the given matrix that will be applied to the given image.
+   * @return the result of the transformation as a new run-length image.
+   */
+  private Image transformRuns(RunLengthImage image, double[][] matrix) {
+    int height = image.getImageHeight();
+    int[][] runEnds = new int[height][];
+    int[][] runColors = new int[height][];
+    int[] pixel = new int[3];
+    for (int i = 0; i < height; i++) {
+      int[] colors = image.getRunColors(i);
+      runEnds[i] = image.getRunEnds(i);
+      if (i > 0 && runEnds[i] == image.getRunEnds(i - 1) && colors == image.getRunColors(i - 1)) {
+        runColors[i] = runColors[i - 1];
+        continue;
+      }
+      runColors[i] = new int[colors.length];
+      for (int k = 0; k < colors.length; k++) {
+        pixel[0] = (colors[k] >> 16) & 0xFF;
+        pixel[1] = (colors[k] >> 8) & 0xFF;
+        pixel[2] = colors[k] & 0xFF;
+        for (int channel = 0; channel < 3; channel++) {
+          runColors[i][k] = (runColors[i][k] << 8)
+                  | clamp((int) Math.round(transform(pixel, matrix[channel])));
+        }
+      }
+    }
+    return new RunLengthImageImpl(image.getImageWidth(), runEnds, runColors);
+  }
+
+  /**
+   * This helper method applies a matrix to a tiled image. A uniform tile is transformed once and
+   * stays uniform, and the pixels of every other tile are transformed one by one. If every row of
+   * the matrix is the same, the result is a greyscale image; otherwise it is a new tiled image.
+   *
+   * @param image  the given tiled image.
+   * @param matrix the given matrix that will be applied to the given image.
+   * @return the result of the transformation.
+   */
+  private Image transformTiles(TiledImage image, double[][] matrix) {
+    int width = image.getImageWidth();
+    int height = image.getImageHeight();
+    int size = image.getTileSize();
+    int across = image.getTilesAcross();
+    int tiles = across * image.getTilesDown();
+    boolean grey = hasIdenticalRows(matrix);
+    byte[] greyValues = grey ? new byte[width * height] : null;
+    int[][] tilePixels = grey ? null : new int[tiles][];
+    int[] tileColors = grey ? null : new int[tiles];
+    int[] pixel = new int[3];
+    for (int tile = 0; tile < tiles; tile++) {
+      int top = tile / across * size;
+      int left = tile % across * size;
+      int bottom = Math.min(height, top + size);
+      int right = Math.min(width, left + size);
+      if (image.isUniform(tile / across, tile % across)) {
+        int color = transformColor(image.getUniformColor(tile / across, tile % across), matrix,
+                pixel);
+        if (!grey) {
+          tileColors[tile] = color;
+          continue;
+        }
+        for (int i = top; i < bottom; i++) {
+          Arrays.fill(greyValues, i * width + left, i * width + right, (byte) color);
+        }
+        continue;
+      }
+      int[] pixels = grey ? null : new int[size * size];
+      for (int i = top; i < bottom; i++) {
+        for (int j = left; j < right; j++) {
+          int color = transformColor(image.getRGB(i, j), matrix, pixel);
+          if (grey) {
+            greyValues[i * width + j] = (byte) color;
+          } else {
+            pixels[(i - top) * size + j - left] = color;
+          }
+        }
+      }
+      if (!grey) {
+        tilePixels[tile] = pixels;
+      }
+    }
+    if (grey) {
+      return new GreyscaleImageImpl(greyValues, width, height);
+    }
+    return new TiledImageImpl(width, height, tilePixels, tileColors);
+  }
+
+  /**
+   * This helper method applies a matrix to a single packed color.
+   *
+   * @param color  the packed color (0xRRGGBB).
+   * @param matrix the given matrix.
+   * @param pixel  an array of three entries that holds the channels while they are transformed.
+   * @return the packed transformed color.
+   */
+  private int transformColor(int color, double[][] matrix, int[] pixel) {
+    pixel[0] = (color >> 16) & 0xFF;
+    pixel[1] = (color >> 8) & 0xFF;
+    pixel[2] = color & 0xFF;
+    int result = 0;
+    for (int channel = 0; channel < 3; channel++) {
+      result = (result << 8) | clamp((int) Math.round(transform(pixel, matrix[channel])));
+    }
+    return result;
+  }
+
+  /**
+   * This helper method checks whether every row of the given matrix is the same, which means that
+   * the transformation produces the same value in all three channels.
+   *
+   * @param matrix the given matrix.
+   * @return true if all rows of the matrix are equal.
+   */
+  private boolean hasIdenticalRows(double[][] matrix) {
+    for (int k = 1; k < matrix.length; k++) {
+      if (!Arrays.equals(matrix[0], matrix[k])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * This helper method is used to apply a color transformation to a pixel. Transformations are
    * applied using matrix multiplication with the given pixel integer, and filter integer matrix.
@@ -34,12 +34,14 @@ import javax.swing.JScrollPane;
 import javax.swing.JMenuBar;
 import javax.swing.JTextArea;
 import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.filechooser.FileSystemView;
 
-//ImageUtil import.
+//Model imports.
+import image.model.Image;
 import image.model.ImageUtil;
 
 /**
@@ -512,6 +514,22 @@ public class ImageGraphics extends JFrame implements ImageView {
     }
   }
 
+  /**
+   * This method is used by the controller to set the image displayed in the view to an image of
+   * the model. The image is converted on the calling thread, which may be a background thread of
+   * the controller, and is then shown on the event dispatch thread.
+   *
+   * @param image the image to display.
+   */
+  @Override
+  public void setImage(Image image) {
+    BufferedImage bufferedImage = ImageUtil.getBufferedImage(image);
+    onDisplayThread(() -> {
+      imageLabel.setIcon(new ImageIcon(bufferedImage));
+      this.repaint();
+    });
+  }
+
   /**
    * This method is used to refresh the view, so that images and other objects can be reset and
    * updated without having to save and load images multiple times.
@@ -530,8 +548,22 @@ public class ImageGraphics extends JFrame implements ImageView {
    */
   @Override
   public void showErrorMessage(String error) {
-    JOptionPane.showMessageDialog(this, error, "Error",
-            JOptionPane.ERROR_MESSAGE);
+    onDisplayThread(() -> JOptionPane.showMessageDialog(this, error, "Error",
+            JOptionPane.ERROR_MESSAGE));
+  }
+
+  /**
+   * This helper method runs a change to the components of this view on the event dispatch thread,
+   * straight away if it is already running on it.
+   *
+   * @param change the change to run.
+   */
+  private void onDisplayThread(Runnable change) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      change.run();
+    } else {
+      SwingUtilities.invokeLater(change);
+    }
   }
 
 }
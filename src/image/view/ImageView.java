@@ -2,6 +2,8 @@ package image.view;
 
 import java.util.function.Consumer;
 
+import image.model.Image;
+
 /**
  * This interface represents the methods that an ImageView can execute. ImageView is intended to be
  * used in tandem with ImageModel and ImageController but can be implemented elsewhere as it is it's
@@ -50,6 +52,14 @@ public interface ImageView {
    */
   void setImage(int[][][] image);
 
+  /**
+   * This method is used by the controller to set the image displayed in the view to an image of
+   * the model, without converting it to an array first. It may be called from any thread.
+   *
+   * @param image the image to display.
+   */
+  void setImage(Image image);
+
   /**
    * This method is used to refresh the view, so that images and other objects can be reset and
    * updated without having to save and load images multiple times.
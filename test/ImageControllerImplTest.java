@@ -1,20 +1,32 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
 
 import image.control.ImageController;
 import image.control.ImageControllerImpl;
+import image.control.ImageControllerImplInteractive;
+import image.model.GreyscaleImageImpl;
+import image.model.Image;
 import image.model.ImageImpl;
 import image.model.ImageModel;
 import image.model.ImageModelImpl;
+import image.view.ImageView;
 
 import static image.model.ImageUtil.readImage;
+import static image.model.ImageUtil.readImageFile;
 import static image.model.ImageUtil.writeImage;
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * A JUnit test class for the image controller interface and its classes.
@@ -329,4 +341,123 @@ public class ImageControllerImplTest {
     assertArrayEquals(controllerArray, modelArray);
   }
 
+  @Test
+  public void streamTest() throws IOException {
+    new ImageControllerImpl(new FileReader("res/streamTest.txt"), testModel,
+            Long.MAX_VALUE).begin();
+    int[][][] loadedColor = readImage("res/catStreamed.ppm");
+    int[][][] loadedDither = readImage("res/catStreamed.png");
+    ImageModel streamModel = new ImageModelImpl();
+    new ImageControllerImpl(new FileReader("res/streamTest.txt"), streamModel,
+            2000000).begin();
+    assertArrayEquals(loadedColor, readImage("res/catStreamed.ppm"));
+    assertArrayEquals(loadedDither, readImage("res/catStreamed.png"));
+    assertEquals(1, streamModel.getImageWidth());
+  }
+
+  @Test
+  public void streamInPlaceTest() throws IOException {
+    for (String file : new String[]{"res/catInPlace.ppm", "res/catInPlace.png"}) {
+      writeImage(catM.getCurrentImage(), file);
+      ImageModel expected = new ImageModelImpl();
+      expected.loadImage(readImageFile(file));
+      expected.toSepia();
+      new ImageControllerImpl(new StringReader("load " + file + "\nsepia\nsave " + file + "\n"),
+              testModel, 100000).begin();
+      assertArrayEquals(expected.getImage(), readImage(file));
+    }
+  }
+
+  @Test
+  public void writeBehindTest() throws IOException {
+    catM.toGreyscale();
+    new File("res/catWriteBehind.png").delete();
+    new File("res/catReadAhead.png").delete();
+    new ImageControllerImpl(new FileReader("res/writeBehindTest.txt"), testModel).begin();
+    assertArrayEquals(catM.getImage(), readImage("res/catWriteBehind.png"));
+    assertArrayEquals(catM.getImage(), readImage("res/catReadAhead.png"));
+    assertArrayEquals(grandpaM.getImage(), readImage("res/grandpaWriteBehind.png"));
+    assertArrayEquals(grandpaM.getImage(), testModel.getImage());
+  }
+
+  @Test
+  public void previewTest() throws IOException {
+    int width = 4100;
+    int height = 4000;
+    byte[] grey = new byte[width * height];
+    for (int i = 0; i < grey.length; i++) {
+      grey[i] = (byte) (i % width * 7 + i / width * 13);
+    }
+    writeImage(new GreyscaleImageImpl(grey, width, height), "res/largePreview.pgm");
+    ImageModel full = new ImageModelImpl();
+    full.loadImage(readImageFile("res/largePreview.pgm"));
+    full.blur();
+    writeImage(full.getCurrentImage(), "res/largePreviewModel.pgm");
+    StubView view = new StubView();
+    ImageControllerImplInteractive test = new ImageControllerImplInteractive(view,
+            new ImageModelImpl());
+    test.accept("load res/largePreview.pgm");
+    test.accept("blur");
+    test.accept("save res/largePreviewBlurred.pgm");
+    try {
+      assertEquals("", view.errors.toString());
+      assertTrue(view.first.getImageWidth() <= 2048);
+      assertEquals(width, view.shown.getImageWidth());
+      assertArrayEquals(Files.readAllBytes(Paths.get("res/largePreviewModel.pgm")),
+              Files.readAllBytes(Paths.get("res/largePreviewBlurred.pgm")));
+    } finally {
+      Files.deleteIfExists(Paths.get("res/largePreview.pgm"));
+      Files.deleteIfExists(Paths.get("res/largePreviewModel.pgm"));
+      Files.deleteIfExists(Paths.get("res/largePreviewBlurred.pgm"));
+    }
+  }
+
+  /**
+   * A view that shows nothing and keeps the first and last images and every error it was given.
+   */
+  private static class StubView implements ImageView {
+
+    private final StringBuilder errors = new StringBuilder();
+    private Image first;
+    private Image shown;
+
+    @Override
+    public void makeVisible() {
+      // Nothing is shown.
+    }
+
+    @Override
+    public void setCommandCallback(Consumer<String> callback) {
+      // Commands are given to the controller directly.
+    }
+
+    @Override
+    public String getCommand() {
+      return "";
+    }
+
+    @Override
+    public synchronized void showErrorMessage(String error) {
+      errors.append(error);
+    }
+
+    @Override
+    public void setImage(int[][][] image) {
+      setImage(new ImageImpl(image));
+    }
+
+    @Override
+    public synchronized void setImage(Image image) {
+      if (first == null) {
+        first = image;
+      }
+      shown = image;
+    }
+
+    @Override
+    public void refresh() {
+      // Nothing is shown.
+    }
+  }
+
 }
\ No newline at end of file
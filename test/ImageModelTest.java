@@ -3,19 +3,51 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import image.model.BinaryImage;
+import image.model.DecodeCache;
+import image.model.GeneratedImage;
+import image.model.GreyscaleImage;
+import image.model.Image;
 import image.model.ImageImpl;
 import image.model.ImageModel;
 import image.model.ImageModelImpl;
+import image.model.IndexedImage;
+import image.model.MappedImage;
+import image.model.RunLengthImage;
+import image.model.SaveOptions;
+import image.model.TiledImage;
+import image.model.TiledImageImpl;
+import image.model.filter.DitherKernel;
+import image.model.filter.ImageFilter;
+import image.model.filter.ImageFilterImpl;
+import image.model.filter.MosaicMethod;
+import image.model.filter.ThresholdMap;
 
+import static image.model.ImageUtil.getHeight;
+import static image.model.ImageUtil.getWidth;
 import static image.model.ImageUtil.readImage;
+import static image.model.ImageUtil.readImageFile;
+import static image.model.ImageUtil.readPreview;
+import static image.model.ImageUtil.readTiledImage;
 import static image.model.ImageUtil.writeImage;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * A JUnit test class for the image model interface and its classes.
@@ -97,6 +129,25 @@ public class ImageModelTest {
     }
   }
 
+  @Test
+  public void testBlurLinear() {
+    int[][][] edge = new int[3][3][3];
+    for (int i = 0; i < 3; i++) {
+      for (int k = 0; k < 3; k++) {
+        edge[i][1][k] = 255;
+        edge[i][2][k] = 255;
+      }
+    }
+    ImageModel srgb = new ImageModelImpl();
+    srgb.loadImage(new ImageImpl(edge));
+    srgb.blur();
+    ImageModel linear = new ImageModelImpl();
+    linear.loadImage(new ImageImpl(edge));
+    linear.blur(true);
+    assertTrue(linear.getImage()[1][1][0] > srgb.getImage()[1][1][0]);
+    assertEquals(linear.getImage()[1][1][0], linear.getImage()[1][1][2]);
+  }
+
   // ************
   // TEST SHARPEN
   // ************
@@ -195,6 +246,19 @@ public class ImageModelTest {
     }
   }
 
+  @Test
+  public void testToGreyscaleSingleChannel() {
+    cat.toGreyscale();
+    assertTrue(cat.getCurrentImage() instanceof GreyscaleImage);
+    int[][][] pixels = cat.getImage();
+    GreyscaleImage grey = (GreyscaleImage) cat.getCurrentImage();
+    assertEquals(cat.getImageWidth() * cat.getImageHeight(), grey.getGreyValues().length);
+    assertEquals(grey.getGrey(10, 20), pixels[10][20][0]);
+    assertEquals(pixels[10][20][0], pixels[10][20][2]);
+    cat.toSepia();
+    assertTrue(!(cat.getCurrentImage() instanceof GreyscaleImage));
+  }
+
   @Test(expected = IOException.class)
   public void testGreyscaleException() throws IOException {
     int[][][] testImage = readImage("res/grandpaw.jpg");
@@ -221,6 +285,29 @@ public class ImageModelTest {
     assertTrue(new File("res/checkerboard.jpg").isFile());
   }
 
+  @Test
+  public void testDrawCheckerboardGenerated() throws IOException {
+    test.drawCheckerboard(8);
+    assertTrue(test.getCurrentImage() instanceof GeneratedImage);
+    int[][][] pixels = test.getImage();
+    assertArrayEquals(new int[]{0, 0, 0}, pixels[0][0]);
+    assertArrayEquals(new int[]{0, 0, 0}, pixels[0][8]);
+    assertArrayEquals(new int[]{255, 255, 255}, pixels[0][9]);
+    assertArrayEquals(new int[]{0, 0, 0}, pixels[8][3]);
+    assertArrayEquals(new int[]{255, 255, 255}, pixels[9][3]);
+    writeImage(test.getCurrentImage(), "res/checkerboard-generated.png");
+    assertArrayEquals(pixels, readImage("res/checkerboard-generated.png"));
+    assertTrue(test.getCurrentImage() instanceof RunLengthImage);
+    test.blur();
+    test.toSepia();
+    assertTrue(test.getCurrentImage() instanceof RunLengthImage);
+    ImageModel dense = new ImageModelImpl();
+    dense.loadImage(new ImageImpl(pixels));
+    dense.blur();
+    dense.toSepia();
+    assertArrayEquals(dense.getImage(), test.getImage());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testDrawCheckerboardExceptionOne() {
     test.drawCheckerboard(0);
@@ -239,6 +326,45 @@ public class ImageModelTest {
     fail("This test should not have passed");
   }
 
+  // ******************
+  // TEST TILED IMAGES
+  // ******************
+
+  @Test
+  public void testTiledImage() {
+    assertTrue(cat.getCurrentImage() instanceof TiledImage);
+    int[][][] pixels = new int[150][200][3];
+    for (int i = 0; i < 150; i++) {
+      for (int j = 0; j < 200; j++) {
+        pixels[i][j] = new int[]{240, 235, 230};
+      }
+    }
+    for (int j = 0; j < 200; j++) {
+      pixels[140][j] = new int[]{10, 20, 30};
+    }
+    TiledImage tiled = TiledImageImpl.of(new ImageImpl(pixels));
+    assertEquals(4, tiled.getTilesAcross());
+    assertEquals(3, tiled.getTilesDown());
+    assertTrue(tiled.isUniform(0, 0));
+    assertEquals(0xF0EBE6, tiled.getUniformColor(1, 3));
+    assertTrue(!tiled.isUniform(2, 0));
+    assertArrayEquals(pixels, tiled.getImage());
+    test.loadImage(tiled);
+    test.blur();
+    test.sharpen();
+    test.toSepia();
+    assertTrue(test.getCurrentImage() instanceof TiledImage);
+    ImageModel dense = new ImageModelImpl();
+    dense.loadImage(new ImageImpl(pixels));
+    dense.blur();
+    dense.sharpen();
+    dense.toSepia();
+    assertArrayEquals(dense.getImage(), test.getImage());
+    test.toGreyscale();
+    dense.toGreyscale();
+    assertArrayEquals(dense.getImage(), test.getImage());
+  }
+
   // *********************
   // TEST VERTICAL RAINBOW
   // *********************
@@ -408,6 +534,34 @@ public class ImageModelTest {
     fail("This test should not have passed");
   }
 
+  // ****************
+  // TEST SPEC FLAGS
+  // ****************
+
+  @Test
+  public void testDrawSpecFlag() {
+    test.drawFlag("Japan", 300);
+    assertEquals(300, test.getImageWidth());
+    assertEquals(200, test.getImageHeight());
+    int[][][] pixels = test.getImage();
+    assertArrayEquals(new int[]{255, 255, 255}, pixels[0][0]);
+    assertArrayEquals(new int[]{188, 0, 45}, pixels[100][150]);
+    boolean blended = false;
+    for (int[] pixel : pixels[60]) {
+      blended |= pixel[0] != 255 && pixel[0] != 188;
+    }
+    assertTrue(blended);
+    test.drawFlag("Germany", 500);
+    assertEquals(300, test.getImageHeight());
+    assertArrayEquals(new int[]{221, 0, 0}, test.getImage()[150][250]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDrawSpecFlagException() {
+    test.drawFlag("Atlantis", 100);
+    fail("This test should not have passed");
+  }
+
   // ***********
   // TEST DITHER
   // ***********
@@ -437,6 +591,143 @@ public class ImageModelTest {
     }
   }
 
+  @Test
+  public void testDitherKernels() {
+    for (DitherKernel kernel : DitherKernel.values()) {
+      ImageModel test = new ImageModelImpl();
+      test.loadImage(cat.getCurrentImage());
+      test.dither(kernel, true);
+      int[][][] pixels = test.getImage();
+      for (int[][] row : pixels) {
+        for (int[] pixel : row) {
+          assertTrue(pixel[0] == 0 || pixel[0] == 255);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDitherLeavesUndoImage() {
+    test.loadImage(cat.getCurrentImage());
+    test.toGreyscale();
+    int[][][] grey = test.getImage();
+    test.dither();
+    test.undo();
+    assertArrayEquals(grey, test.getImage());
+  }
+
+  @Test
+  public void testDitherBinary() {
+    cat.dither();
+    assertTrue(cat.getCurrentImage() instanceof BinaryImage);
+    BinaryImage binary = (BinaryImage) cat.getCurrentImage();
+    int width = binary.getImageWidth();
+    int height = binary.getImageHeight();
+    assertEquals((width + 63) / 64 * height, binary.getWords().length);
+    try {
+      writeImage(binary, "res/dither_cat.png");
+      assertArrayEquals(cat.getImage(), readImage("res/dither_cat.png"));
+      writeImage(binary, "res/dither_cat.pbm");
+      String header = "P4\n" + width + " " + height + "\n";
+      assertEquals(header.length() + (width + 7) / 8 * height,
+              new File("res/dither_cat.pbm").length());
+    } catch (IOException e) {
+      fail();
+    }
+  }
+
+  @Test
+  public void testDitherParallel() throws IOException {
+    ImageFilter filter = new ImageFilterImpl();
+    int[][][] strip = new int[5][7][3];
+    for (int i = 0; i < strip.length; i++) {
+      for (int j = 0; j < strip[i].length; j++) {
+        Arrays.fill(strip[i][j], (37 * i + 71 * j) % 256);
+      }
+    }
+    List<Image> images = new ArrayList<>();
+    images.add(new ImageImpl(strip));
+    for (String file : new String[]{"res/cat.jpg", "res/grandpa.jpg", "res/noise.jpg"}) {
+      images.add(new ImageImpl(readImage(file)));
+    }
+    for (Image image : images) {
+      Image serial = filter.applyDitherFilter(image, DitherKernel.FLOYD_STEINBERG, false, 1);
+      for (int threads : new int[]{2, 3, 7}) {
+        assertArrayEquals(serial.getImage(), filter.applyDitherFilter(image,
+                DitherKernel.FLOYD_STEINBERG, false, threads).getImage());
+      }
+    }
+  }
+
+  @Test
+  public void testDitherOrdered() {
+    int[][][] flat = new int[16][16][3];
+    for (int[][] row : flat) {
+      for (int[] pixel : row) {
+        pixel[0] = 128;
+        pixel[1] = 128;
+        pixel[2] = 128;
+      }
+    }
+    for (ThresholdMap map : ThresholdMap.values()) {
+      ImageModel test = new ImageModelImpl();
+      test.loadImage(new ImageImpl(flat));
+      test.ditherOrdered(map);
+      int white = 0;
+      for (int[][] row : test.getImage()) {
+        for (int[] pixel : row) {
+          assertTrue(pixel[0] == 0 || pixel[0] == 255);
+          if (pixel[0] == 255) {
+            white++;
+          }
+        }
+      }
+      if (map != ThresholdMap.BLUE_NOISE) {
+        assertEquals(128, white);
+      }
+    }
+  }
+
+  // *************
+  // TEST QUANTIZE
+  // *************
+
+  @Test
+  public void testQuantize() {
+    for (boolean dither : new boolean[]{false, true}) {
+      ImageModel test = new ImageModelImpl();
+      test.loadImage(cat.getCurrentImage());
+      test.quantize(16, dither);
+      assertTrue(test.getCurrentImage() instanceof IndexedImage);
+      IndexedImage indexed = (IndexedImage) test.getCurrentImage();
+      assertTrue(indexed.getPalette().length <= 16);
+      Set<Integer> colors = new HashSet<>();
+      for (int[][] row : test.getImage()) {
+        for (int[] pixel : row) {
+          colors.add((pixel[0] << 16) | (pixel[1] << 8) | pixel[2]);
+        }
+      }
+      assertTrue(colors.size() <= 16);
+      try {
+        writeImage(indexed, "res/quantize.png");
+        assertArrayEquals(test.getImage(), readImage("res/quantize.png"));
+      } catch (IOException e) {
+        fail();
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testQuantizeException() {
+    cat.quantize(257, false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDitherKernelException() {
+    DitherKernel.fromName("diagonal");
+    fail("This test should not have passed");
+  }
+
   // ***********
   // TEST MOSAIC
   // ***********
@@ -466,6 +757,135 @@ public class ImageModelTest {
     }
   }
 
+  @Test
+  public void testMosaicTiles() {
+    cat.mosaic(2000);
+    Set<Integer> colors = new HashSet<>();
+    for (int[][] row : cat.getImage()) {
+      for (int[] pixel : row) {
+        colors.add((pixel[0] << 16) | (pixel[1] << 8) | pixel[2]);
+      }
+    }
+    assertTrue(colors.size() <= 2000);
+  }
+
+  @Test
+  public void testMosaicMethods() {
+    for (MosaicMethod method : MosaicMethod.values()) {
+      ImageModel test = new ImageModelImpl();
+      test.loadImage(cat.getCurrentImage());
+      test.mosaic(500, method);
+      Set<Integer> colors = new HashSet<>();
+      for (int[][] row : test.getImage()) {
+        for (int[] pixel : row) {
+          colors.add((pixel[0] << 16) | (pixel[1] << 8) | pixel[2]);
+        }
+      }
+      assertTrue(colors.size() <= 500);
+    }
+  }
+
+  @Test
+  public void testMosaicReproducible() {
+    ImageModel first = new ImageModelImpl();
+    first.loadImage(cat.getCurrentImage());
+    first.mosaic(300, MosaicMethod.EXACT, 42);
+    ImageModel second = new ImageModelImpl();
+    second.loadImage(cat.getCurrentImage());
+    second.mosaic(300, MosaicMethod.EXACT, 42);
+    assertArrayEquals(first.getImage(), second.getImage());
+  }
+
+  @Test
+  public void testMosaicAlmostEveryPixel() {
+    int[][][] pixels = new int[20][30][3];
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 30; j++) {
+        pixels[i][j][0] = i;
+        pixels[i][j][1] = j;
+      }
+    }
+    test.loadImage(new ImageImpl(pixels));
+    test.mosaic(20 * 30 - 1, MosaicMethod.GRID, 7);
+    int changed = 0;
+    int[][][] result = test.getImage();
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 30; j++) {
+        if (result[i][j][0] != i || result[i][j][1] != j) {
+          changed++;
+        }
+      }
+    }
+    assertTrue(changed <= 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMosaicMethodException() {
+    MosaicMethod.fromName("hexagon");
+    fail("This test should not have passed");
+  }
+
+  @Test
+  public void testSuperpixel() {
+    int[][][] pixels = new int[20][30][3];
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 30; j++) {
+        pixels[i][j][j < 15 ? 0 : 2] = 200;
+      }
+    }
+    test.loadImage(new ImageImpl(pixels));
+    test.superpixel(6, 10, 10);
+    int[][][] result = test.getImage();
+    Set<Integer> colors = new HashSet<>();
+    for (int i = 0; i < 20; i++) {
+      for (int j = 0; j < 30; j++) {
+        assertArrayEquals(pixels[i][j], result[i][j]);
+        colors.add(result[i][j][0] << 16 | result[i][j][1] << 8 | result[i][j][2]);
+      }
+    }
+    assertEquals(2, colors.size());
+    test.undo();
+    assertArrayEquals(pixels[0][0], test.getImage()[0][0]);
+  }
+
+  @Test
+  public void testQuadMosaic() {
+    int[][][] pixels = new int[16][16][3];
+    for (int i = 0; i < 16; i++) {
+      for (int j = 0; j < 16; j++) {
+        pixels[i][j][0] = i < 8 && j < 8 ? 100 : 0;
+        pixels[i][j][1] = i >= 8 && j >= 8 ? (i + j) % 2 * 200 : 0;
+      }
+    }
+    test.loadImage(new ImageImpl(pixels));
+    test.quadMosaic(10, 2);
+    int[][][] result = test.getImage();
+    for (int i = 0; i < 16; i++) {
+      for (int j = 0; j < 16; j++) {
+        int[] expected = i < 8 && j < 8 ? new int[]{100, 0, 0}
+                : i >= 8 && j >= 8 ? new int[]{0, 100, 0} : new int[]{0, 0, 0};
+        assertArrayEquals(expected, result[i][j]);
+      }
+    }
+    test.undo();
+    test.quadMosaic(0, 1);
+    assertArrayEquals(pixels[9][8], test.getImage()[9][8]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testQuadMosaicException() {
+    test.loadImage(new ImageImpl(new int[4][4][3]));
+    test.quadMosaic(10, 0);
+    fail("This test should not have passed");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSuperpixelException() {
+    test.loadImage(new ImageImpl(new int[4][4][3]));
+    test.superpixel(17, 10, 10);
+    fail("This test should not have passed");
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testMosaicNegativeException() throws IOException {
     int[][][] testImage = readImage("res/manhattan-small.png");
@@ -501,6 +921,190 @@ public class ImageModelTest {
     assertArrayEquals(testArray, catArray);
   }
 
+  // ************
+  // TEST LOADING
+  // ************
+
+  @Test
+  public void testReadTiledImage() throws IOException {
+    int[][][] catArray = readImage("res/cat.jpg");
+    assertArrayEquals(catArray, readTiledImage("res/cat.jpg").getImage());
+    assertArrayEquals(catArray, new ImageImpl("res/cat.jpg").getImage());
+    assertEquals(catArray[0].length, getWidth("res/cat.jpg"));
+    assertEquals(catArray.length, getHeight("res/cat.jpg"));
+    assertArrayEquals(readImage("res/manhattan-small.png"),
+            readTiledImage("res/manhattan-small.png").getImage());
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadImageException() throws IOException {
+    readImage("res/missing.jpg");
+    fail("This test should not have passed");
+  }
+
+  // ***********
+  // TEST NETPBM
+  // ***********
+
+  @Test
+  public void testNetpbm() throws IOException {
+    writeImage(cat.getCurrentImage(), "res/cat.ppm");
+    assertArrayEquals(cat.getImage(), readImage("res/cat.ppm"));
+    assertEquals(cat.getImage()[0].length, getWidth("res/cat.ppm"));
+    cat.toGreyscale();
+    writeImage(cat.getCurrentImage(), "res/cat.pgm");
+    assertTrue(readImageFile("res/cat.pgm") instanceof GreyscaleImage);
+    assertArrayEquals(cat.getImage(), readImage("res/cat.pgm"));
+    cat.dither();
+    writeImage(cat.getCurrentImage(), "res/cat.pnm");
+    Image bitmap = readImageFile("res/cat.pnm");
+    assertTrue(bitmap instanceof BinaryImage);
+    assertArrayEquals(cat.getImage(), bitmap.getImage());
+  }
+
+  @Test
+  public void testNetpbmFixtures() throws IOException {
+    assertArrayEquals(new int[][][]{
+            {{0, 0, 0}, {255, 255, 255}, {0, 0, 0}},
+            {{255, 255, 255}, {0, 0, 0}, {255, 255, 255}}}, readImage("res/plainBitmap.pbm"));
+    assertArrayEquals(new int[][][]{
+            {{0, 0, 0}, {119, 119, 119}, {136, 136, 136}},
+            {{255, 255, 255}, {17, 17, 17}, {238, 238, 238}}}, readImage("res/plainGrey.pgm"));
+    assertArrayEquals(new int[][][]{{{255, 0, 0}, {10, 20, 30}}},
+            readImage("res/plainColor.ppm"));
+    assertArrayEquals(new int[][][]{{{255, 0, 128}, {1, 254, 0}}},
+            readImage("res/deepColor.ppm"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNetpbmTruncated() throws IOException {
+    readImageFile("res/truncatedGrey.pgm");
+    fail("This test should not have passed");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNetpbmException() throws IOException {
+    writeImage(cat.getCurrentImage(), "res/cat.pbm");
+    fail("This test should not have passed");
+  }
+
+  @Test
+  public void testImgRaw() throws IOException {
+    writeImage(cat.getCurrentImage(), "res/cat.imgraw");
+    Image mapped = readImageFile("res/cat.imgraw");
+    assertTrue(mapped instanceof MappedImage);
+    assertArrayEquals(cat.getImage(), mapped.getImage());
+    assertEquals(cat.getImageWidth(), getWidth("res/cat.imgraw"));
+    ImageModel grey = new ImageModelImpl();
+    grey.loadImage(mapped);
+    grey.toGreyscale();
+    writeImage(grey.getCurrentImage(), "res/cat.imgraw");
+    assertEquals(24 + cat.getImageWidth() * cat.getImageHeight(),
+            new File("res/cat.imgraw").length());
+    assertArrayEquals(grey.getImage(), readImage("res/cat.imgraw"));
+    assertArrayEquals(cat.getImage(), mapped.getImage());
+  }
+
+  @Test(expected = IOException.class)
+  public void testImgRawException() throws IOException {
+    writeImage(cat.getCurrentImage(), "res/catCorrupt.imgraw");
+    try (RandomAccessFile file = new RandomAccessFile("res/catCorrupt.imgraw", "rw")) {
+      file.seek(1000);
+      file.write(file.read() ^ 1);
+    }
+    readImageFile("res/catCorrupt.imgraw");
+    fail("This test should not have passed");
+  }
+
+  @Test
+  public void testDecodeCache() throws Exception {
+    DecodeCache cache = new DecodeCache(4L * getWidth("res/grandpa.jpg")
+            * getHeight("res/grandpa.jpg"), null);
+    Image first = cache.read("res/cat.jpg");
+    assertSame(first, cache.read("res/cat.jpg"));
+    assertArrayEquals(cat.getImage(), first.getImage());
+    cache.read("res/grandpa.jpg");
+    assertTrue(cache.contains("res/grandpa.jpg"));
+    assertFalse(cache.contains("res/cat.jpg"));
+    cache.read("res/cat.jpg");
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+    assertEquals(2, cache.getEvictions());
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    List<Future<Image>> reads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      reads.add(threads.submit(() -> cache.read("res/landscape.jpg")));
+    }
+    for (Future<Image> read : reads) {
+      assertSame(reads.get(0).get(), read.get());
+    }
+    threads.shutdown();
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void testDecodeCacheDisk() throws IOException {
+    Path directory = Files.createTempDirectory("decode-cache");
+    DecodeCache cache = new DecodeCache(0, directory);
+    cache.read("res/cat.jpg");
+    Image kept = cache.read("res/cat.jpg");
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getDiskHits());
+    assertTrue(kept instanceof TiledImage);
+    assertArrayEquals(cat.getImage(), kept.getImage());
+    writeImage(cat.getCurrentImage(), "res/catCache.ppm");
+    assertArrayEquals(cat.getImage(), DecodeCache.getShared().read("res/catCache.ppm").getImage());
+    cat.toSepia();
+    writeImage(cat.getCurrentImage(), "res/catCache.ppm");
+    assertArrayEquals(cat.getImage(), DecodeCache.getShared().read("res/catCache.ppm").getImage());
+  }
+
+  @Test
+  public void testReadPreview() throws IOException {
+    writeImage(cat.getCurrentImage(), "res/cat.ppm");
+    int[][][] full = cat.getImage();
+    int step = (Math.max(full.length, full[0].length) + 99) / 100;
+    int[][][] preview = readPreview("res/cat.ppm", 100).getImage();
+    assertEquals((full.length + step - 1) / step, preview.length);
+    assertEquals((full[0].length + step - 1) / step, preview[0].length);
+    for (int i = 0; i < preview.length; i++) {
+      for (int j = 0; j < preview[0].length; j++) {
+        assertArrayEquals(full[i * step][j * step], preview[i][j]);
+      }
+    }
+    assertTrue(readPreview("res/cat.jpg", 100).getImageWidth() <= 100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadPreviewException() throws IOException {
+    readPreview("res/cat.jpg", 0);
+    fail("This test should not have passed");
+  }
+
+  // ***********
+  // TEST SAVING
+  // ***********
+
+  @Test
+  public void testSaveOptions() throws IOException {
+    String arguments = "res/cat options.png compression=9 progressive";
+    assertEquals("res/cat options.png", SaveOptions.filename(arguments));
+    SaveOptions options = SaveOptions.parse(arguments);
+    assertEquals(-1, options.getQuality());
+    assertEquals(9, options.getCompression());
+    assertTrue(options.isProgressive());
+    writeImage(cat.getCurrentImage(), SaveOptions.filename(arguments), options);
+    assertArrayEquals(cat.getImage(), readImage("res/cat options.png"));
+    writeImage(cat.getCurrentImage(), "res/cat.quality.jpg", SaveOptions.parse("x quality=85"));
+    assertEquals(cat.getImage().length, getHeight("res/cat.quality.jpg"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSaveOptionsException() throws IOException {
+    writeImage(cat.getCurrentImage(), "res/cat.png", SaveOptions.parse("res/cat.png quality=85"));
+    fail("This test should not have passed");
+  }
+
   // *********
   // TEST REDO
   // *********
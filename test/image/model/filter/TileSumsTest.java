@@ -0,0 +1,56 @@
+package image.model.filter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import image.model.Image;
+import image.model.ImageImpl;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * A JUnit test class for the tile sums of the mosaic and superpixel filters. It sits in the
+ * package of the filters since the tile sums are not public.
+ */
+public class TileSumsTest {
+
+  @Test
+  public void testSumMatchesLoop() {
+    Random random = new Random(7);
+    int[][] sizes = {{1, 1}, {1, 200}, {200, 1}, {13, 64}, {40, 65}, {129, 257}, {300, 1000}};
+    for (int[] size : sizes) {
+      int width = size[0];
+      int height = size[1];
+      int[][][] pixels = new int[height][width][3];
+      for (int[][] row : pixels) {
+        for (int[] pixel : row) {
+          for (int channel = 0; channel < 3; channel++) {
+            pixel[channel] = random.nextInt(256);
+          }
+        }
+      }
+      Image image = new ImageImpl(pixels);
+      for (int tiles : new int[]{1, 5, 97}) {
+        int[] labels = new int[width * height];
+        for (int i = 0; i < labels.length; i++) {
+          labels[i] = random.nextInt(tiles);
+        }
+        long[] expected = new long[TileSums.STRIDE * tiles];
+        for (int row = 0; row < height; row++) {
+          for (int column = 0; column < width; column++) {
+            int tile = TileSums.STRIDE * labels[row * width + column];
+            expected[tile + TileSums.RED] += pixels[row][column][0];
+            expected[tile + TileSums.GREEN] += pixels[row][column][1];
+            expected[tile + TileSums.BLUE] += pixels[row][column][2];
+            expected[tile + TileSums.COLUMN] += column;
+            expected[tile + TileSums.ROW] += row;
+            expected[tile + TileSums.COUNT]++;
+          }
+        }
+        assertArrayEquals(expected, TileSums.sum(image, labels, tiles));
+      }
+    }
+  }
+
+}